@@ -1,36 +1,48 @@
 package src.POO.teste_final;
 
-import java.io.File;
-import java.io.FileWriter;
-import java.io.IOException;
-import java.io.PrintWriter;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.Paths;
-import java.util.ArrayList;
+import java.io.UncheckedIOException;
 import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Modela um adepto, que pode comprar bilhetes e produtos.
  * Esta classe é responsável por gerir os dados do adepto, a sua carteira
- * e por guardar as suas informações em ficheiros no disco.
+ * e por pedir que as suas informações sejam guardadas no disco (ver Persistencia).
+ *
+ * A carteira pode ser usada por várias threads ao mesmo tempo (ex: um bilhete comprado
+ * online enquanto o adepto paga numa rolote): os débitos e créditos são atómicos e
+ * nunca deixam o saldo negativo. Cada adepto tem o seu próprio contador, por isso as
+ * compras de adeptos diferentes não competem por nenhum trinco.
  */
 public class Adepto {
 
+    // --- CONSTANTES ---
+
+    private static final String PREFIXO_CODIGO = "AD";   // Prefixo do código mostrado ao utilizador.
+    private static final int DIGITOS_CODIGO = 3;         // Dígitos mínimos do código (AD001).
+
+    // Regras do registo (usadas pelo modo de lote e pela API HTTP; ver MenuController.processoCriarAdepto).
+    public static final int IDADE_MINIMA = 18;
+    public static final long CARTEIRA_MINIMA = Dinheiro.deEuros(10);    // Em cêntimos.
+    private static final int DIGITOS_DOCUMENTO = 8;
+
     // --- ATRIBUTOS ---
 
-    private String id;                  // O ID único e sequencial (ex: "AD001").
+    private final long id;              // O ID único e sequencial (mostrado como "AD001", ver getCodigo()).
     private String nome;                // O nome do adepto.
     private int idade;                  // A idade do adepto.
     private String documento;           // O documento de identificação (CC).
     private String endereco;            // A morada do adepto.
-    private double carteira;            // O dinheiro que o adepto tem disponível.
+    private final AtomicLong carteira;  // O dinheiro que o adepto tem disponível, em cêntimos.
+    private final long carteiraInicial; // O valor na carteira no momento do registo, em cêntimos.
     private List<Bilhete> bilhetes;     // A lista de bilhetes que o adepto comprou.
+    private volatile Persistencia persistencia; // Onde são guardados os dados do adepto e dos seus bilhetes.
 
     // --- CONSTRUTOR ---
 
     /**
-     * Cria uma nova instância de Adepto.
+     * Cria uma nova instância de Adepto, guardada em ficheiros de texto.
      * No momento da criação, guarda automaticamente os dados do adepto num ficheiro info.txt,
      * dentro de uma pasta com o seu ID.
      *
@@ -39,28 +51,56 @@ public class Adepto {
      * @param idade A idade do adepto.
      * @param documento O número do documento de identificação.
      * @param endereco A morada do adepto.
-     * @param carteira O valor inicial na carteira do adepto.
+     * @param carteira O valor inicial na carteira do adepto, em cêntimos.
+     */
+    public Adepto(long id, String nome, int idade, String documento, String endereco, long carteira) {
+        this(id, nome, idade, documento, endereco, carteira, new PersistenciaFicheiros());
+    }
+
+    /**
+     * Cria uma nova instância de Adepto.
+     * No momento da criação, os dados do adepto são entregues à persistência indicada.
+     *
+     * @param id O ID único para o adepto.
+     * @param nome O nome do adepto.
+     * @param idade A idade do adepto.
+     * @param documento O número do documento de identificação.
+     * @param endereco A morada do adepto.
+     * @param carteira O valor inicial na carteira do adepto, em cêntimos.
+     * @param persistencia Onde guardar os dados do adepto e dos bilhetes que comprar.
      */
-    public Adepto(String id, String nome, int idade, String documento, String endereco, double carteira) {
+    public Adepto(long id, String nome, int idade, String documento, String endereco, long carteira,
+                  Persistencia persistencia) {
         this.id = id;
         this.nome = nome;
         this.idade = idade;
         this.documento = documento;
         this.endereco = endereco;
-        this.carteira = carteira;
-        this.bilhetes = new ArrayList<>(); // A lista de bilhetes começa vazia.
-
-        // Tenta guardar os dados em ficheiro assim que o adepto é criado.
-        salvarInformacaoEmFicheiro();
+        this.carteira = new AtomicLong(carteira);
+        this.carteiraInicial = carteira;
+        // A lista de bilhetes começa vazia. Pode receber bilhetes de várias threads e é lida muito mais vezes do que muda.
+        this.bilhetes = new CopyOnWriteArrayList<>();
+        this.persistencia = persistencia;
+
+        // Tenta guardar os dados assim que o adepto é criado.
+        this.persistencia.registarAdepto(this);
     }
 
     // --- GETTERS E SETTERS ---
     // (A maioria dos dados de um adepto são definidos na criação, mas getters são úteis)
 
-    public String getId() {
+    public long getId() {
         return id;
     }
 
+    /**
+     * Devolve o código do adepto, tal como é mostrado ao utilizador (ex: "AD001").
+     * @return O código do adepto.
+     */
+    public String getCodigo() {
+        return formatarCodigo(id);
+    }
+
     public String getNome() {
         return nome;
     }
@@ -77,14 +117,66 @@ public class Adepto {
         return endereco;
     }
 
-    public double getCarteira() {
-        return carteira;
+    /**
+     * Devolve o saldo atual da carteira.
+     * @return O saldo, em cêntimos.
+     */
+    public long getCarteira() {
+        return carteira.get();
+    }
+
+    /**
+     * Devolve o valor que o adepto tinha na carteira quando foi registado.
+     * Ao contrário de getCarteira(), nunca muda, por isso pode ser guardado mais tarde
+     * (por exemplo, por uma persistência assíncrona) sem depender das compras entretanto feitas.
+     * @return O valor inicial da carteira, em cêntimos.
+     */
+    public long getCarteiraInicial() {
+        return carteiraInicial;
     }
 
     public List<Bilhete> getBilhetes() {
         return bilhetes;
     }
 
+    // --- CARTEIRA ---
+
+    /**
+     * Retira um valor da carteira, de forma atómica, se houver saldo suficiente.
+     * A verificação do saldo e a subtração são uma única operação (compare-and-set):
+     * duas compras simultâneas nunca gastam o mesmo dinheiro.
+     *
+     * @param valor O valor a retirar, em cêntimos (não negativo).
+     * @return true se o valor foi retirado, false se o saldo não chegava.
+     */
+    public boolean debitar(long valor) {
+        if (valor < 0) {
+            throw new IllegalArgumentException("O valor a debitar não pode ser negativo.");
+        }
+        long saldo;
+        do {
+            saldo = carteira.get();
+            if (saldo < valor) {
+                return false;
+            }
+        } while (!carteira.compareAndSet(saldo, saldo - valor));
+        return true;
+    }
+
+    /**
+     * Acrescenta um valor à carteira (carregamento ou reembolso), de forma atómica.
+     *
+     * @param valor O valor a acrescentar, em cêntimos (não negativo).
+     * @return O novo saldo, em cêntimos.
+     * @throws ArithmeticException Se o saldo ultrapassar o limite de um long.
+     */
+    public long creditar(long valor) {
+        if (valor < 0) {
+            throw new IllegalArgumentException("O valor a creditar não pode ser negativo.");
+        }
+        return carteira.accumulateAndGet(valor, Dinheiro::somar);
+    }
+
     // --- MÉTODOS DE COMPRA ---
 
     /**
@@ -92,101 +184,168 @@ public class Adepto {
      * Verifica se há dinheiro suficiente na carteira.
      *
      * @param bilhete O bilhete a ser comprado.
-     * @return true se a compra for bem-sucedida, false caso contrário.
+     * @return true se a compra for bem-sucedida, false se o saldo não chegar.
+     * @throws UncheckedIOException Se o bilhete não pôde ser guardado; a compra é desfeita.
      */
     public boolean comprarBilhete(Bilhete bilhete) {
-        // Validação: verificar se tem dinheiro
-        if (this.carteira < bilhete.getPreco()) {
-            System.out.println("Erro: " + this.nome + " não tem saldo suficiente para comprar o bilhete.");
+        // Verifica o saldo e subtrai o preço numa só operação
+        if (!debitar(bilhete.getPreco())) {
             return false;
         }
 
-        // Processar a compra
-        this.carteira -= bilhete.getPreco(); // Subtrai o preço da carteira
         this.bilhetes.add(bilhete);          // Adiciona o bilhete à lista
 
         //System.out.println("\nCompra de bilhete para " + this.id + " efetuada com sucesso!");
-        //System.out.printf("Novo saldo na carteira: %.2f€\n", this.carteira);
+        //System.out.println("Novo saldo na carteira: " + Dinheiro.formatar(getCarteira()));
 
-        // Guarda os dados do bilhete num ficheiro
-        salvarBilheteEmFicheiro(bilhete);
+        // Guarda os dados do bilhete; se não ficar guardado, a venda não conta
+        try {
+            this.persistencia.registarBilhete(this, bilhete);
+        } catch (UncheckedIOException e) {
+            this.bilhetes.remove(bilhete);
+            creditar(bilhete.getPreco());
+            anularRegistoPendente(bilhete);
+            throw e;
+        }
 
         return true;
     }
 
     /**
-     * Tenta comprar comida (ou outros produtos).
+     * Anula a compra de um bilhete e devolve o valor à carteira.
+     * Usado quando a reserva do lugar expira antes de a compra ser confirmada.
      *
-     * @param valorCompra O custo total dos produtos a comprar.
-     * @return true se a compra for bem-sucedida, false caso contrário.
+     * @param bilhete O bilhete a anular.
+     * @return true se o bilhete pertencia ao adepto e foi reembolsado, false caso contrário.
      */
-    public boolean comprarComida(double valorCompra) {
-        if (this.carteira < valorCompra) {
-            System.out.println("Erro: " + this.id + " não tem saldo suficiente para esta compra.");
+    public boolean reembolsarBilhete(Bilhete bilhete) {
+        // Só quem consegue remover o bilhete é que o reembolsa (não há reembolsos a dobrar)
+        if (!this.bilhetes.remove(bilhete)) {
             return false;
         }
+        creditar(bilhete.getPreco());
 
-        this.carteira -= valorCompra;
-        System.out.println("Compra de comida efetuada com sucesso!");
-        System.out.printf("Novo saldo na carteira: %.2f€\n", this.carteira);
+        // O bilhete já tinha sido guardado: regista a anulação
+        this.persistencia.anularBilhete(this, bilhete);
         return true;
     }
 
-    // --- MÉTODOS DE GESTÃO DE FICHEIROS (PERSISTÊNCIA) ---
+    // O registo do bilhete pode ter chegado ao disco antes da falha (ex: falhou só a sincronização):
+    // tenta registar a anulação. Se também falhar, não há mais nada a fazer; anular um bilhete
+    // que não está no disco é ignorado na recuperação.
+    private void anularRegistoPendente(Bilhete bilhete) {
+        try {
+            this.persistencia.anularBilhete(this, bilhete);
+        } catch (UncheckedIOException e) {
+            System.err.println("ERRO: Não foi possível registar a anulação do bilhete " + bilhete.getCodigo() + ": " + e.getMessage());
+        }
+    }
 
     /**
-     * Guarda os dados principais do adepto num ficheiro info.txt.
-     * Cria um diretório para o adepto se não existir.
+     * Repõe o saldo da carteira ao restaurar o adepto a partir do disco.
+     * @param carteira O saldo guardado, em cêntimos.
      */
-    private void salvarInformacaoEmFicheiro() {
-        // Define o caminho para o diretório do adepto (ex: "adeptos/AD001")
-        Path diretorioAdepto = Paths.get("adeptos", this.id);
+    void restaurarCarteira(long carteira) {
+        this.carteira.set(carteira);
+    }
 
-        try {
-            // Cria o diretório (e o diretório "adeptos" se necessário). Não faz nada se já existir.
-            Files.createDirectories(diretorioAdepto);
-
-            // Define o caminho completo para o ficheiro (ex: "adeptos/AD001/info.txt")
-            File ficheiroInfo = new File(diretorioAdepto.toString(), "info.txt");
-
-            // Usa try-with-resources para garantir que o PrintWriter é fechado automaticamente.
-            try (PrintWriter writer = new PrintWriter(new FileWriter(ficheiroInfo))) {
-                writer.println("ID: " + this.id);
-                writer.println("Nome: " + this.nome);
-                writer.println("Idade: " + this.idade);
-                writer.println("Documento: " + this.documento);
-                writer.println("Morada: " + this.endereco);
-                writer.printf("Carteira Inicial: %.2f€\n", this.carteira);
-            }
+    /**
+     * Define onde são guardadas as compras seguintes do adepto. Usado pelo estádio quando
+     * muda de persistência e ao restaurar o adepto do disco (é criado sem persistência,
+     * para não voltar a ser guardado).
+     * @param persistencia A persistência do estádio.
+     */
+    void setPersistencia(Persistencia persistencia) {
+        this.persistencia = persistencia;
+    }
 
-        } catch (IOException e) {
-            System.err.println("ERRO: Falha ao guardar os dados do adepto " + this.id + " em ficheiro.");
-            e.printStackTrace(); // Imprime o detalhe do erro na consola de erro.
-        }
+    /**
+     * Repõe um bilhete já comprado ao restaurar o adepto a partir do disco
+     * (não mexe na carteira nem volta a guardar o bilhete).
+     * @param bilhete O bilhete guardado.
+     */
+    void restaurarBilhete(Bilhete bilhete) {
+        this.bilhetes.add(bilhete);
     }
 
     /**
-     * Guarda os dados de um bilhete comprado num ficheiro .txt dentro da pasta do adepto.
-     * @param bilhete O bilhete cujos dados serão guardados.
+     * Tenta comprar comida (ou outros produtos).
+     *
+     * @param valorCompra O custo total dos produtos a comprar, em cêntimos.
+     * @return true se a compra for bem-sucedida, false caso contrário.
      */
-    private void salvarBilheteEmFicheiro(Bilhete bilhete) {
-        // Define o caminho para o diretório de bilhetes do adepto (ex: "adeptos/AD001/bilhetes")
-        Path diretorioBilhetes = Paths.get("adeptos", this.id, "bilhetes");
+    public boolean comprarComida(long valorCompra) {
+        if (!debitar(valorCompra)) {
+            System.out.println("Erro: " + getCodigo() + " não tem saldo suficiente para esta compra.");
+            return false;
+        }
 
-        try {
-            Files.createDirectories(diretorioBilhetes);
+        System.out.println("Compra de comida efetuada com sucesso!");
+        System.out.println("Novo saldo na carteira: " + Dinheiro.formatar(getCarteira()));
+        return true;
+    }
 
-            // O nome do ficheiro será o ID do bilhete (ex: "A7.txt")
-            File ficheiroBilhete = new File(diretorioBilhetes.toString(), bilhete.getId() + ".txt");
+    // --- CÓDIGOS ---
 
-            try (PrintWriter writer = new PrintWriter(new FileWriter(ficheiroBilhete))) {
-                // Usamos o método toString() do bilhete, que já formata a informação toda.
-                writer.println(bilhete.toString());
+    /**
+     * Converte um ID numérico no código mostrado ao utilizador: "AD" seguido do número
+     * com pelo menos 3 dígitos (AD001, AD042, AD1234).
+     * @param id O ID do adepto.
+     * @return O código do adepto.
+     */
+    public static String formatarCodigo(long id) {
+        String numero = Long.toString(id);
+        StringBuilder codigo = new StringBuilder(PREFIXO_CODIGO.length() + Math.max(DIGITOS_CODIGO, numero.length()));
+        codigo.append(PREFIXO_CODIGO);
+        for (int i = numero.length(); i < DIGITOS_CODIGO; i++) {
+            codigo.append('0');
+        }
+        return codigo.append(numero).toString();
+    }
+
+    /**
+     * Lê o ID numérico a partir do código escrito pelo utilizador.
+     * Aceita o prefixo em maiúsculas ou minúsculas, ou apenas o número (ex: "AD001", "ad1", "1").
+     * @param codigo O código escrito.
+     * @return O ID do adepto, ou -1 se o código não for válido.
+     */
+    public static long lerCodigo(String codigo) {
+        if (codigo == null) {
+            return -1;
+        }
+        String texto = codigo.trim();
+        if (texto.regionMatches(true, 0, PREFIXO_CODIGO, 0, PREFIXO_CODIGO.length())) {
+            texto = texto.substring(PREFIXO_CODIGO.length());
+        }
+        if (texto.isEmpty() || texto.length() > 18) {
+            return -1;
+        }
+        long id = 0;
+        for (int i = 0; i < texto.length(); i++) {
+            char c = texto.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
             }
+            id = id * 10 + (c - '0');
+        }
+        return id;
+    }
 
-        } catch (IOException e) {
-            System.err.println("ERRO: Falha ao guardar o bilhete " + bilhete.getId() + " em ficheiro.");
-            e.printStackTrace();
+    /**
+     * Verifica se o número do CC tem exatamente 8 dígitos.
+     * Não usa expressões regulares, porque pode ser chamado para milhões de registos.
+     * @param documento O número do CC.
+     * @return true se o CC for válido.
+     */
+    public static boolean documentoValido(String documento) {
+        if (documento == null || documento.length() != DIGITOS_DOCUMENTO) {
+            return false;
         }
+        for (int i = 0; i < documento.length(); i++) {
+            if (documento.charAt(i) < '0' || documento.charAt(i) > '9') {
+                return false;
+            }
+        }
+        return true;
     }
-}
\ No newline at end of file
+}
@@ -1,7 +1,6 @@
 package src.POO.teste_final;
 
 import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
 
 /**
  * Modela um bilhete individual vendido a um adepto.
@@ -9,12 +8,31 @@ import java.time.format.DateTimeFormatter;
  */
 public class Bilhete {
 
+    // --- CONSTANTES ---
+    // O ID de um bilhete é um long com o jogo, o setor, a fila e a coluna do lugar:
+    // [ jogo: 15 bits | setor: 8 bits | fila: 20 bits | coluna: 20 bits ] (o bit de sinal fica a 0).
+
+    private static final int BITS_COLUNA = 20;
+    private static final int BITS_FILA = 20;
+    private static final int BITS_SETOR = 8;
+    private static final int BITS_JOGO = 15;
+
+    private static final int DESLOCAMENTO_FILA = BITS_COLUNA;
+    private static final int DESLOCAMENTO_SETOR = DESLOCAMENTO_FILA + BITS_FILA;
+    private static final int DESLOCAMENTO_JOGO = DESLOCAMENTO_SETOR + BITS_SETOR;
+
+    public static final int MAXIMO_COLUNA = (1 << BITS_COLUNA) - 1;
+    public static final int MAXIMO_FILA = (1 << BITS_FILA) - 1;
+    public static final int MAXIMO_SETOR = (1 << BITS_SETOR) - 1;
+    public static final int MAXIMO_JOGO = (1 << BITS_JOGO) - 1;
+
+    private static final int TAMANHO_RECIBO = 128;   // Capacidade inicial suficiente para um recibo.
+
     // --- ATRIBUTOS ---
 
-    private String id;              // O ID único do bilhete (ex: "A7", "C12").
+    private final long id;          // O ID único do bilhete (jogo, setor, fila e coluna, ver codificarId).
     private Setor setor;            // A referência ao objeto Setor ao qual este bilhete pertence.
-    private String lugar;           // Uma descrição do lugar (ex: "7 (Fila 2, Posição 2)").
-    private double preco;           // O preço final pago pelo bilhete.
+    private long preco;             // O preço final pago pelo bilhete, em cêntimos.
     private LocalDateTime dataCompra; // A data e hora exatas da compra.
 
     // --- CONSTRUTOR ---
@@ -23,18 +41,24 @@ public class Bilhete {
      * Cria uma nova instância de Bilhete.
      * A data e hora da compra são automaticamente definidas para o momento da criação.
      *
-     * @param id O ID único para este bilhete.
+     * @param id O ID do bilhete, gerado com codificarId (ou Estadio.gerarIdBilhete).
      * @param setor A instância do Setor onde o bilhete é válido.
-     * @param lugar A descrição textual do lugar.
-     * @param preco O preço efetivamente pago.
+     * @param preco O preço efetivamente pago, em cêntimos.
      */
-    public Bilhete(String id, Setor setor, String lugar, double preco) {
+    public Bilhete(long id, Setor setor, long preco) {
+        // Captura a data e hora atuais no momento em que o bilhete é criado.
+        this(id, setor, preco, LocalDateTime.now());
+    }
+
+    /**
+     * Recria um bilhete já vendido, com a data de compra original.
+     * Usado ao restaurar o estado do estádio a partir do disco.
+     */
+    Bilhete(long id, Setor setor, long preco, LocalDateTime dataCompra) {
         this.id = id;
         this.setor = setor;
-        this.lugar = lugar;
         this.preco = preco;
-        // Captura a data e hora atuais no momento em que o bilhete é criado.
-        this.dataCompra = LocalDateTime.now();
+        this.dataCompra = dataCompra;
     }
 
     // --- GETTERS ---
@@ -42,13 +66,22 @@ public class Bilhete {
     // então podemos omitir os setters para a maioria dos atributos para torná-lo "imutável".
 
     /**
-     * Devolve o ID do bilhete.
+     * Devolve o ID numérico do bilhete.
      * @return O ID do bilhete.
      */
-    public String getId() {
+    public long getId() {
         return id;
     }
 
+    /**
+     * Devolve o código do bilhete, tal como é mostrado ao utilizador (ex: "J1-A7":
+     * jogo 1, setor A, lugar 7).
+     * @return O código do bilhete.
+     */
+    public String getCodigo() {
+        return escreverCodigo(new StringBuilder(16)).toString();
+    }
+
     /**
      * Devolve o objeto Setor associado a este bilhete.
      * @return A instância do Setor.
@@ -58,18 +91,50 @@ public class Bilhete {
     }
 
     /**
-     * Devolve a descrição do lugar.
+     * Devolve a descrição do lugar (ex: "7 (Fila 2, Posição 2)").
      * @return A descrição do lugar.
      */
     public String getLugar() {
-        return lugar;
+        return escreverLugar(new StringBuilder(32)).toString();
+    }
+
+    /**
+     * Devolve o número do lugar dentro do setor, contado fila a fila a partir de 1.
+     * @return O número do lugar.
+     */
+    public int getNumeroLugar() {
+        return getFila() * this.setor.getColunas() + getColuna() + 1;
+    }
+
+    /**
+     * Devolve a fila do lugar na grelha do setor.
+     * @return A fila (a começar em 0).
+     */
+    public int getFila() {
+        return filaDe(id);
+    }
+
+    /**
+     * Devolve a coluna do lugar na grelha do setor.
+     * @return A coluna (a começar em 0).
+     */
+    public int getColuna() {
+        return colunaDe(id);
+    }
+
+    /**
+     * Devolve o número do jogo para o qual o bilhete foi vendido.
+     * @return O número do jogo.
+     */
+    public int getNumeroJogo() {
+        return jogoDe(id);
     }
 
     /**
      * Devolve o preço pago pelo bilhete.
-     * @return O preço do bilhete.
+     * @return O preço do bilhete, em cêntimos.
      */
-    public double getPreco() {
+    public long getPreco() {
         return preco;
     }
 
@@ -84,29 +149,95 @@ public class Bilhete {
     // --- MÉTODOS ADICIONAIS ---
 
     /**
-     * Retorna uma representação textual formatada dos detalhes do bilhete.
+     * Retorna uma representação textual formatada dos detalhes do bilhete (o recibo).
      * É útil para gerar recibos ou guardar em ficheiro.
      * @return Uma String com todos os dados do bilhete.
      */
     @Override
     public String toString() {
-        // Define o formato desejado para a data e hora (ex: 11/12/2024 14:30)
-        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm");
-        String dataFormatada = this.dataCompra.format(formatter);
-
-        // Constrói a string final com todos os detalhes.
-        // O %.2f formata o preço para ter sempre duas casas decimais.
-        return String.format(
-                "- ID: %s\n" +
-                        "- Setor: %s\n" +
-                        "- Lugar: %s\n" +
-                        "- Preço: %.2f€\n" +
-                        "- Data Compra: %s",
-                this.id,
-                this.setor.getId(), // Usamos o getId() para obter o nome do setor
-                this.lugar,
-                this.preco,
-                dataFormatada
-        );
+        return escreverRecibo(new StringBuilder(TAMANHO_RECIBO)).toString();
+    }
+
+    // --- ESCRITA (sem criar objetos) ---
+    // Para mostrar ou guardar muitos bilhetes, o mesmo StringBuilder pode ser reutilizado
+    // (setLength(0)) de bilhete para bilhete: estes métodos só acrescentam caracteres.
+
+    /**
+     * Acrescenta o recibo do bilhete (o mesmo texto de toString), por exemplo:
+     * <pre>
+     * - ID: J1-A7
+     * - Setor: A
+     * - Lugar: 7 (Fila 2, Posição 2)
+     * - Preço: 10.00€
+     * - Data Compra: 11/12/2024 14:30
+     * </pre>
+     * @param destino Onde escrever.
+     * @return O destino, para encadear chamadas.
+     */
+    public StringBuilder escreverRecibo(StringBuilder destino) {
+        escreverCodigo(destino.append("- ID: "));
+        destino.append("\n- Setor: ").append(this.setor.getId());
+        escreverLugar(destino.append("\n- Lugar: "));
+        // O preço (em cêntimos) aparece sempre com duas casas decimais.
+        Dinheiro.escrever(destino.append("\n- Preço: "), this.preco);
+        return Formatos.escreverDataHora(destino.append("\n- Data Compra: "), this.dataCompra);
+    }
+
+    /**
+     * Acrescenta o código do bilhete (ver getCodigo).
+     * @param destino Onde escrever.
+     * @return O destino, para encadear chamadas.
+     */
+    public StringBuilder escreverCodigo(StringBuilder destino) {
+        return destino.append('J').append(getNumeroJogo()).append('-').append(this.setor.getId()).append(getNumeroLugar());
+    }
+
+    /**
+     * Acrescenta a descrição do lugar (ver getLugar).
+     * @param destino Onde escrever.
+     * @return O destino, para encadear chamadas.
+     */
+    public StringBuilder escreverLugar(StringBuilder destino) {
+        return destino.append(getNumeroLugar())
+                .append(" (Fila ").append(getFila() + 1)
+                .append(", Posição ").append(getColuna() + 1).append(')');
+    }
+
+    // --- CODIFICAÇÃO DO ID ---
+
+    /**
+     * Junta o jogo, o setor, a fila e a coluna de um lugar num único ID.
+     * @param jogo O número do jogo (0 a MAXIMO_JOGO).
+     * @param setor A posição do setor no estádio (0 a MAXIMO_SETOR).
+     * @param fila A fila do lugar (0 a MAXIMO_FILA).
+     * @param coluna A coluna do lugar (0 a MAXIMO_COLUNA).
+     * @return O ID do bilhete.
+     */
+    public static long codificarId(int jogo, int setor, int fila, int coluna) {
+        if (jogo < 0 || jogo > MAXIMO_JOGO || setor < 0 || setor > MAXIMO_SETOR
+                || fila < 0 || fila > MAXIMO_FILA || coluna < 0 || coluna > MAXIMO_COLUNA) {
+            throw new IllegalArgumentException("Lugar fora dos limites do ID de bilhete: jogo " + jogo
+                    + ", setor " + setor + ", fila " + fila + ", coluna " + coluna + ".");
+        }
+        return ((long) jogo << DESLOCAMENTO_JOGO)
+                | ((long) setor << DESLOCAMENTO_SETOR)
+                | ((long) fila << DESLOCAMENTO_FILA)
+                | coluna;
+    }
+
+    public static int jogoDe(long id) {
+        return (int) (id >>> DESLOCAMENTO_JOGO) & MAXIMO_JOGO;
+    }
+
+    public static int setorDe(long id) {
+        return (int) (id >>> DESLOCAMENTO_SETOR) & MAXIMO_SETOR;
+    }
+
+    public static int filaDe(long id) {
+        return (int) (id >>> DESLOCAMENTO_FILA) & MAXIMO_FILA;
+    }
+
+    public static int colunaDe(long id) {
+        return (int) id & MAXIMO_COLUNA;
     }
 }
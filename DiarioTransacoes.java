@@ -0,0 +1,662 @@
+package src.POO.teste_final;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.nio.file.DirectoryStream;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.CRC32;
+
+/**
+ * Diário de transações: um registo binário, só de acrescento, onde ficam as criações
+ * de adeptos, de rolotes e de jogos, as vendas (e anulações) de bilhetes, as compras de
+ * comida e os resultados dos jogos terminados.
+ *
+ * Os registos são acumulados num buffer em memória e escritos em bloco. A ida ao
+ * disco (force) é agrupada: uma única sincronização torna duráveis todos os registos
+ * acumulados até esse momento, venham de quantas vendas vierem (group commit).
+ * Uma thread de fundo sincroniza o diário a intervalos regulares.
+ *
+ * O diário é uma pasta com vários segmentos (segmento-SEQ.bin, onde SEQ é a sequência
+ * do primeiro registo). Quando o segmento atual passa do tamanho limite, é fechado e
+ * começa um novo; numa thread de fundo, os segmentos fechados são compactados num
+ * instantâneo do estado (estado.snap) e apagados. Assim, o arranque só precisa de ler
+ * o instantâneo e os poucos registos que vêm depois dele (ver recuperar()).
+ *
+ * Formato de cada segmento:
+ * - Cabeçalho: int MAGIA, short VERSAO.
+ * - Registos: int tamanho do conteúdo, long sequência, byte tipo, conteúdo, int CRC32
+ *   (calculado sobre a sequência, o tipo e o conteúdo).
+ */
+public class DiarioTransacoes implements Persistencia {
+
+    // --- CONSTANTES ---
+
+    public static final int MAGIA = 0x45535444;  // "ESTD"
+    public static final short VERSAO = 4;
+
+    public static final byte TIPO_ADEPTO = 1;
+    public static final byte TIPO_BILHETE = 2;
+    public static final byte TIPO_ANULACAO_BILHETE = 3;
+    public static final byte TIPO_ROLOTE = 4;
+    public static final byte TIPO_COMPRA_COMIDA = 5;
+    public static final byte TIPO_JOGO = 6;
+    public static final byte TIPO_FIM_JOGO = 7;
+
+    public static final long LIMITE_SEGMENTO_PADRAO = 4L * 1024 * 1024;
+    private static final String PREFIXO_SEGMENTO = "segmento-";
+    private static final String EXTENSAO_SEGMENTO = ".bin";
+    private static final String NOME_INSTANTANEO = "estado.snap";
+
+    private static final int TAMANHO_CABECALHO = 4 + 2;
+    private static final int TAMANHO_ENVELOPE = 4 + 8 + 1 + 4; // tamanho, sequência, tipo, CRC
+    private static final int TAMANHO_BUFFER = 64 * 1024;
+
+    // --- ATRIBUTOS ---
+
+    private final Path diretorio;                   // A pasta com os segmentos e o instantâneo.
+    private final long limiteSegmento;              // Tamanho a partir do qual o segmento atual é fechado.
+    private FileChannel canal;                      // Canal do segmento atual, sempre no fim do ficheiro.
+    private Path segmentoAtual;                     // O segmento onde estão a ser acrescentados registos (trincoBuffer).
+    private final ReentrantLock trincoBuffer;       // Protege o buffer, a sequência, o canal e as escritas nele.
+    private final Object trincoSincronizacao;       // Garante uma única sincronização (force) de cada vez.
+    private final ByteBuffer buffer;                // Registos ainda não escritos no canal.
+    private final CRC32 crc;                        // Usado apenas com o trincoBuffer adquirido.
+    private final ScheduledExecutorService agrupador; // Sincroniza periodicamente (pode ser null).
+    private final ExecutorService compactador;      // Compacta os segmentos fechados num instantâneo.
+    private long ultimaSequencia;                   // Sequência do último registo acrescentado.
+    private volatile long sequenciaDuravel;         // Sequência do último registo já no disco.
+
+    // --- INTERFACE PARA LEITURA ---
+
+    /**
+     * Recebe os registos de um diário, pela ordem em que foram escritos.
+     */
+    public interface LeitorRegistos {
+        void registo(long sequencia, byte tipo, DataInputStream dados) throws IOException;
+    }
+
+    // --- CONSTRUTORES ---
+
+    /**
+     * Abre (ou cria) um diário de transações com segmentos de tamanho padrão.
+     * @param diretorio A pasta do diário.
+     * @param intervaloAgrupamento De quanto em quanto tempo os registos pendentes vão
+     *                             para o disco, ou null para sincronizar apenas à mão.
+     */
+    public DiarioTransacoes(Path diretorio, Duration intervaloAgrupamento) {
+        this(diretorio, intervaloAgrupamento, LIMITE_SEGMENTO_PADRAO);
+    }
+
+    /**
+     * Abre (ou cria) um diário de transações.
+     * Se a pasta já tiver segmentos, os registos válidos são mantidos, um eventual registo
+     * incompleto no fim do último segmento (escrita interrompida) é descartado e a
+     * numeração continua. Se o último segmento nem tiver o cabeçalho completo (o programa
+     * parou logo depois de o criar), é recriado vazio.
+     *
+     * @param diretorio A pasta do diário.
+     * @param intervaloAgrupamento De quanto em quanto tempo os registos pendentes vão
+     *                             para o disco, ou null para sincronizar apenas à mão.
+     * @param limiteSegmento O tamanho (em bytes) a partir do qual se começa um novo segmento.
+     */
+    public DiarioTransacoes(Path diretorio, Duration intervaloAgrupamento, long limiteSegmento) {
+        this.diretorio = diretorio;
+        this.limiteSegmento = limiteSegmento;
+        this.trincoBuffer = new ReentrantLock();
+        this.trincoSincronizacao = new Object();
+        this.buffer = ByteBuffer.allocate(TAMANHO_BUFFER);
+        this.crc = new CRC32();
+
+        try {
+            Files.createDirectories(diretorio);
+            List<Path> segmentos = listarSegmentos(diretorio);
+            long sequencia;
+            if (segmentos.isEmpty()) {
+                sequencia = lerSequenciaInstantaneo(diretorio.resolve(NOME_INSTANTANEO));
+                abrirSegmento(sequencia + 1);
+            } else {
+                Path ultimo = segmentos.get(segmentos.size() - 1);
+                long[] fimValido = ler(ultimo, (seq, tipo, dados) -> { });
+                sequencia = fimValido[1] > 0 ? fimValido[1] : primeiraSequencia(ultimo) - 1;
+                if (fimValido[0] == 0) {
+                    abrirSegmento(sequencia + 1);   // Cabeçalho incompleto: o segmento não tinha registos
+                } else {
+                    this.segmentoAtual = ultimo;
+                    this.canal = FileChannel.open(ultimo, StandardOpenOption.WRITE);
+                    this.canal.truncate(fimValido[0]); // Descarta um registo incompleto no fim
+                    this.canal.position(this.canal.size());
+                }
+            }
+            this.ultimaSequencia = sequencia;
+            this.sequenciaDuravel = sequencia;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Não foi possível abrir o diário " + diretorio, e);
+        }
+
+        this.compactador = Executors.newSingleThreadExecutor(tarefa -> {
+            Thread thread = new Thread(tarefa, "diario-compactacao");
+            thread.setDaemon(true);
+            return thread;
+        });
+        if (intervaloAgrupamento != null) {
+            this.agrupador = Executors.newSingleThreadScheduledExecutor(tarefa -> {
+                Thread thread = new Thread(tarefa, "diario-transacoes");
+                thread.setDaemon(true);
+                return thread;
+            });
+            long nanos = intervaloAgrupamento.toNanos();
+            this.agrupador.scheduleWithFixedDelay(this::sincronizarPeriodicamente, nanos, nanos, TimeUnit.NANOSECONDS);
+        } else {
+            this.agrupador = null;
+        }
+    }
+
+    // --- GETTERS ---
+
+    public Path getDiretorio() {
+        return diretorio;
+    }
+
+    /**
+     * Devolve a sequência do último registo que já está garantidamente no disco.
+     * @return A sequência durável.
+     */
+    public long getSequenciaDuravel() {
+        return sequenciaDuravel;
+    }
+
+    // --- MÉTODOS DE PERSISTÊNCIA ---
+
+    @Override
+    public void registarAdepto(Adepto adepto) {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(128);
+            DataOutputStream dados = new DataOutputStream(bytes);
+            dados.writeLong(adepto.getId());
+            dados.writeUTF(adepto.getNome());
+            dados.writeInt(adepto.getIdade());
+            dados.writeUTF(adepto.getDocumento());
+            dados.writeUTF(adepto.getEndereco());
+            dados.writeLong(adepto.getCarteiraInicial());
+            acrescentar(TIPO_ADEPTO, bytes.toByteArray(), adepto.getId(), null);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Falha ao registar o adepto " + adepto.getCodigo() + " no diário.", e);
+        }
+    }
+
+    @Override
+    public void registarBilhete(Adepto adepto, Bilhete bilhete) {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(96);
+            DataOutputStream dados = new DataOutputStream(bytes);
+            dados.writeLong(adepto.getId());
+            InstantaneoEstado.escreverBilhete(dados, bilhete);
+            acrescentar(TIPO_BILHETE, bytes.toByteArray(), adepto.getId(), bilhete.getSetor().getId());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Falha ao registar o bilhete " + bilhete.getCodigo() + " no diário.", e);
+        }
+    }
+
+    @Override
+    public void anularBilhete(Adepto adepto, Bilhete bilhete) {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(32);
+            DataOutputStream dados = new DataOutputStream(bytes);
+            dados.writeLong(adepto.getId());
+            dados.writeLong(bilhete.getId());
+            acrescentar(TIPO_ANULACAO_BILHETE, bytes.toByteArray(), adepto.getId(), bilhete.getSetor().getId());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Falha ao registar a anulação do bilhete " + bilhete.getCodigo() + " no diário.", e);
+        }
+    }
+
+    @Override
+    public void registarRolote(Rolote rolote) {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(128);
+            DataOutputStream dados = new DataOutputStream(bytes);
+            InstantaneoEstado.escreverRolote(dados, rolote);
+            acrescentar(TIPO_ROLOTE, bytes.toByteArray(), 0, null);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Falha ao registar a rolote " + rolote.getId() + " no diário.", e);
+        }
+    }
+
+    @Override
+    public void registarCompraComida(Adepto adepto, Rolote rolote, Map<Produto, Integer> carrinho, long total) {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+            DataOutputStream dados = new DataOutputStream(bytes);
+            dados.writeLong(adepto.getId());
+            dados.writeInt(rolote.getId());
+            dados.writeInt(carrinho.size());
+            for (Map.Entry<Produto, Integer> linha : carrinho.entrySet()) {
+                dados.writeInt(linha.getKey().getId());
+                dados.writeInt(linha.getValue());
+            }
+            dados.writeLong(total);
+            acrescentar(TIPO_COMPRA_COMIDA, bytes.toByteArray(), adepto.getId(), null);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Falha ao registar a compra de comida de " + adepto.getCodigo() + " no diário.", e);
+        }
+    }
+
+    @Override
+    public void registarJogo(Jogo jogo) {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(512);
+            DataOutputStream dados = new DataOutputStream(bytes);
+            InstantaneoEstado.escreverJogo(dados, jogo);
+            acrescentar(TIPO_JOGO, bytes.toByteArray(), 0, null);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Falha ao registar o jogo " + jogo.getNumero() + " no diário.", e);
+        }
+    }
+
+    @Override
+    public void registarFimJogo(Jogo jogo) {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(16);
+            DataOutputStream dados = new DataOutputStream(bytes);
+            InstantaneoEstado.escreverResultado(dados, jogo);
+            acrescentar(TIPO_FIM_JOGO, bytes.toByteArray(), 0, null);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Falha ao registar o resultado do jogo " + jogo.getNumero() + " no diário.", e);
+        }
+    }
+
+    /**
+     * Escreve os registos pendentes e força-os para o disco.
+     * Se várias threads sincronizarem ao mesmo tempo, a primeira faz o trabalho por
+     * todas e as restantes regressam logo que veem que os seus registos já estão duráveis.
+     * Se o segmento atual tiver passado do tamanho limite, começa um novo segmento e
+     * pede a compactação dos segmentos fechados.
+     * @throws UncheckedIOException Se os registos não puderem ser escritos ou forçados para o disco;
+     *                              nesse caso, nenhum registo pendente é dado como durável.
+     */
+    @Override
+    public void sincronizar() {
+        EventosJfr.SincronizacaoDiario evento = new EventosJfr.SincronizacaoDiario();
+        evento.begin();
+        synchronized (trincoSincronizacao) {
+            long alvo;
+            long bytes;
+            FileChannel canalSincronizado;
+            trincoBuffer.lock();
+            try {
+                alvo = ultimaSequencia;
+                if (alvo <= sequenciaDuravel) {
+                    return; // Nada de novo desde a última sincronização
+                }
+                bytes = buffer.position();
+                despejarBuffer();
+                canalSincronizado = canal;
+            } catch (IOException e) {
+                throw new UncheckedIOException("Falha ao escrever no diário " + diretorio + ".", e);
+            } finally {
+                trincoBuffer.unlock();
+            }
+
+            // O force é feito sem o trinco do buffer: as vendas continuam a acrescentar registos.
+            // Só esta thread (com o trincoSincronizacao) pode trocar de segmento, por isso o canal continua aberto.
+            try {
+                canalSincronizado.force(false);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Falha ao sincronizar o diário " + diretorio + ".", e);
+            }
+            if (evento.shouldCommit()) {
+                evento.registos = alvo - sequenciaDuravel;
+                evento.bytes = bytes;
+                evento.commit();
+            }
+            sequenciaDuravel = alvo;
+
+            // Os registos já estão no disco: uma falha ao trocar de segmento não os põe em causa.
+            try {
+                if (canalSincronizado.size() >= limiteSegmento) {
+                    trocarSegmento();
+                }
+            } catch (IOException e) {
+                System.err.println("ERRO: Falha ao começar um novo segmento do diário " + diretorio + ": " + e.getMessage());
+            }
+        }
+    }
+
+    // Sincronização periódica (thread do agrupador): uma falha é mostrada, mas não cancela
+    // as sincronizações seguintes. Quem precisa de saber se os dados estão no disco chama sincronizar().
+    private void sincronizarPeriodicamente() {
+        try {
+            sincronizar();
+        } catch (UncheckedIOException e) {
+            System.err.println("ERRO: " + e.getMessage() + " " + e.getCause().getMessage());
+        }
+    }
+
+    @Override
+    public void fechar() {
+        if (agrupador != null) {
+            agrupador.shutdown();
+        }
+        try {
+            sincronizar();
+        } catch (UncheckedIOException e) {
+            System.err.println("ERRO: " + e.getMessage() + " Os últimos registos podem não ter ficado no disco.");
+        }
+        compactador.shutdown();
+        try {
+            compactador.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        trincoBuffer.lock();
+        try {
+            canal.close();
+        } catch (IOException e) {
+            System.err.println("ERRO: Falha ao fechar o diário " + diretorio + ": " + e.getMessage());
+        } finally {
+            trincoBuffer.unlock();
+        }
+    }
+
+    // --- RECUPERAÇÃO ---
+
+    /**
+     * Indica se uma pasta contém um diário (ou instantâneo) que possa ser recuperado.
+     * @param diretorio A pasta do diário.
+     * @return true se existir pelo menos um segmento ou um instantâneo.
+     */
+    public static boolean existe(Path diretorio) {
+        try {
+            return Files.exists(diretorio.resolve(NOME_INSTANTANEO)) || !listarSegmentos(diretorio).isEmpty();
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Reconstrói o estado guardado numa pasta de diário: carrega o instantâneo (se existir)
+     * e aplica-lhe os registos dos segmentos que vieram depois dele.
+     * Deve ser chamado antes de o diário ser aberto para escrita.
+     *
+     * @param diretorio A pasta do diário.
+     * @return O estado recuperado, pronto a ser restaurado num Estadio.
+     * @throws IOException Se o instantâneo ou algum segmento estiver ilegível.
+     */
+    public static InstantaneoEstado recuperar(Path diretorio) throws IOException {
+        Path ficheiroInstantaneo = diretorio.resolve(NOME_INSTANTANEO);
+        InstantaneoEstado estado = Files.exists(ficheiroInstantaneo)
+                ? InstantaneoEstado.carregar(ficheiroInstantaneo)
+                : new InstantaneoEstado();
+        List<Path> segmentos = listarSegmentos(diretorio);
+        for (int i = 0; i < segmentos.size(); i++) {
+            long[] fimValido = ler(segmentos.get(i), estado::aplicar);
+            // Só o último segmento pode ter ficado sem cabeçalho (os anteriores foram sincronizados ao ser fechados).
+            if (fimValido[0] == 0 && i < segmentos.size() - 1) {
+                throw new IOException("O segmento " + segmentos.get(i) + " não tem cabeçalho.");
+            }
+        }
+        return estado;
+    }
+
+    // --- LEITURA ---
+
+    /**
+     * Percorre todos os registos válidos de um segmento, do mais antigo para o mais recente.
+     * A leitura pára no primeiro registo incompleto, com CRC errado ou com um tamanho
+     * maior do que o que resta do ficheiro (fim de uma escrita interrompida).
+     * Um ficheiro com o cabeçalho incompleto ou ainda a zeros (criado, mas o programa parou
+     * antes de o cabeçalho chegar ao disco) não tem registos: devolve {0, 0}.
+     *
+     * @param ficheiro O ficheiro do segmento.
+     * @param leitor Quem recebe cada registo.
+     * @return Um array {posição do fim do último registo válido, sequência desse registo}.
+     * @throws IOException Se o ficheiro não puder ser lido ou não for um diário.
+     */
+    public static long[] ler(Path ficheiro, LeitorRegistos leitor) throws IOException {
+        long tamanhoFicheiro = Files.size(ficheiro);
+        if (tamanhoFicheiro < TAMANHO_CABECALHO) {
+            return new long[] {0, 0};
+        }
+        try (DataInputStream entrada = new DataInputStream(new BufferedInputStream(Files.newInputStream(ficheiro), TAMANHO_BUFFER))) {
+            int magia = entrada.readInt();
+            short versao = entrada.readShort();
+            if (magia == 0 && versao == 0) {
+                return new long[] {0, 0};
+            }
+            if (magia != MAGIA) {
+                throw new IOException("O ficheiro " + ficheiro + " não é um diário de transações.");
+            }
+            if (versao != VERSAO) {
+                throw new IOException("Versão do diário não suportada: " + versao);
+            }
+
+            long posicao = TAMANHO_CABECALHO;
+            long ultimaSequencia = 0;
+            CRC32 crc = new CRC32();
+            ByteBuffer cabecalhoRegisto = ByteBuffer.allocate(8 + 1);
+            while (true) {
+                int tamanho;
+                long sequencia;
+                byte tipo;
+                byte[] conteudo;
+                int crcGuardado;
+                try {
+                    tamanho = entrada.readInt();
+                    // Um tamanho impossível é lixo de uma escrita interrompida: não se aloca nada
+                    if (tamanho < 0 || tamanho > tamanhoFicheiro - posicao - TAMANHO_ENVELOPE) {
+                        break;
+                    }
+                    sequencia = entrada.readLong();
+                    tipo = entrada.readByte();
+                    conteudo = new byte[tamanho];
+                    entrada.readFully(conteudo);
+                    crcGuardado = entrada.readInt();
+                } catch (EOFException e) {
+                    break; // Registo incompleto no fim do ficheiro
+                }
+
+                crc.reset();
+                cabecalhoRegisto.clear();
+                cabecalhoRegisto.putLong(sequencia).put(tipo);
+                crc.update(cabecalhoRegisto.array(), 0, cabecalhoRegisto.position());
+                crc.update(conteudo);
+                if ((int) crc.getValue() != crcGuardado) {
+                    break; // Registo corrompido: tudo o que vem depois é ignorado
+                }
+
+                leitor.registo(sequencia, tipo, new DataInputStream(new ByteArrayInputStream(conteudo)));
+                posicao += TAMANHO_ENVELOPE + tamanho;
+                ultimaSequencia = sequencia;
+            }
+            return new long[] {posicao, ultimaSequencia};
+        }
+    }
+
+    // --- SEGMENTOS E COMPACTAÇÃO ---
+
+    /**
+     * Fecha o segmento atual e começa um novo. Os registos que entretanto chegaram ao
+     * buffer são escritos e sincronizados no segmento antigo antes da troca.
+     * Exige o trincoSincronizacao.
+     */
+    private void trocarSegmento() throws IOException {
+        long ultimoFechado;
+        trincoBuffer.lock();
+        try {
+            despejarBuffer();
+            canal.force(false);
+            sequenciaDuravel = ultimaSequencia;
+            canal.close();
+            ultimoFechado = primeiraSequencia(segmentoAtual);
+            abrirSegmento(ultimaSequencia + 1);
+        } finally {
+            trincoBuffer.unlock();
+        }
+        compactador.execute(() -> compactar(ultimoFechado));
+    }
+
+    /**
+     * Junta ao instantâneo os segmentos já fechados e apaga-os.
+     * Corre na thread de compactação, em paralelo com as vendas: só lê os segmentos
+     * que começam até ao último segmento fechado, que já não recebem escritas (o segmento
+     * novo, ou outro aberto entretanto, começa sempre numa sequência maior).
+     * Se falhar, os segmentos ficam no disco e serão incluídos na próxima compactação.
+     * @param ultimoFechado A primeira sequência do segmento que acabou de ser fechado.
+     */
+    private void compactar(long ultimoFechado) {
+        try {
+            Path ficheiroInstantaneo = diretorio.resolve(NOME_INSTANTANEO);
+            List<Path> fechados = new ArrayList<>();
+            for (Path segmento : listarSegmentos(diretorio)) {
+                if (primeiraSequencia(segmento) <= ultimoFechado) {
+                    fechados.add(segmento);
+                }
+            }
+            if (fechados.isEmpty()) {
+                return;
+            }
+
+            InstantaneoEstado estado = Files.exists(ficheiroInstantaneo)
+                    ? InstantaneoEstado.carregar(ficheiroInstantaneo)
+                    : new InstantaneoEstado();
+            for (Path segmento : fechados) {
+                ler(segmento, estado::aplicar);
+            }
+            estado.guardar(ficheiroInstantaneo);
+
+            // O instantâneo já cobre estes segmentos. Se o programa falhar antes de os
+            // apagar, os registos repetidos são ignorados na recuperação (pela sequência).
+            for (Path segmento : fechados) {
+                Files.deleteIfExists(segmento);
+            }
+        } catch (IOException e) {
+            System.err.println("ERRO: Falha ao compactar o diário " + diretorio + ": " + e.getMessage());
+        }
+    }
+
+    // Cria um novo segmento, cujo primeiro registo terá a sequência indicada. Exige o trincoBuffer (ou o construtor).
+    private void abrirSegmento(long primeiraSequencia) throws IOException {
+        Path segmento = diretorio.resolve(String.format("%s%020d%s", PREFIXO_SEGMENTO, primeiraSequencia, EXTENSAO_SEGMENTO));
+        this.canal = FileChannel.open(segmento, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+        ByteBuffer cabecalho = ByteBuffer.allocate(TAMANHO_CABECALHO);
+        cabecalho.putInt(MAGIA).putShort(VERSAO).flip();
+        escreverNoCanal(cabecalho);
+        this.segmentoAtual = segmento;
+    }
+
+    // Lista os segmentos de uma pasta, do mais antigo para o mais recente.
+    private static List<Path> listarSegmentos(Path diretorio) throws IOException {
+        List<Path> segmentos = new ArrayList<>();
+        if (!Files.isDirectory(diretorio)) {
+            return segmentos;
+        }
+        try (DirectoryStream<Path> conteudo = Files.newDirectoryStream(diretorio, PREFIXO_SEGMENTO + "*" + EXTENSAO_SEGMENTO)) {
+            for (Path segmento : conteudo) {
+                segmentos.add(segmento);
+            }
+        }
+        segmentos.sort(Comparator.comparing(segmento -> segmento.getFileName().toString()));
+        return segmentos;
+    }
+
+    // A sequência do primeiro registo de um segmento, tirada do nome do ficheiro.
+    private static long primeiraSequencia(Path segmento) {
+        String nome = segmento.getFileName().toString();
+        return Long.parseLong(nome.substring(PREFIXO_SEGMENTO.length(), nome.length() - EXTENSAO_SEGMENTO.length()));
+    }
+
+    // A sequência coberta pelo instantâneo, ou 0 se não existir.
+    private static long lerSequenciaInstantaneo(Path ficheiro) throws IOException {
+        return Files.exists(ficheiro) ? InstantaneoEstado.carregar(ficheiro).getUltimaSequencia() : 0;
+    }
+
+    // --- MÉTODOS AUXILIARES ---
+
+    /**
+     * Acrescenta um registo ao buffer e devolve a sua sequência.
+     * Se o buffer estiver cheio, é escrito no canal (sem force) antes de continuar.
+     * O ID do adepto (0 se não houver) e o setor (ou null) só servem para o evento JFR.
+     */
+    private long acrescentar(byte tipo, byte[] conteudo, long idAdepto, String setor) throws IOException {
+        int tamanhoRegisto = TAMANHO_ENVELOPE + conteudo.length;
+        EventosJfr.EscritaPersistencia evento = new EventosJfr.EscritaPersistencia();
+        evento.begin();
+        trincoBuffer.lock();
+        try {
+            long sequencia = ultimaSequencia + 1;
+            crc.reset();
+            ByteBuffer destino = buffer;
+            if (destino.remaining() < tamanhoRegisto) {
+                despejarBuffer();
+                if (tamanhoRegisto > destino.capacity()) {
+                    destino = ByteBuffer.allocate(tamanhoRegisto); // Registo maior do que o buffer
+                }
+            }
+            int inicio = destino.position();
+            destino.putInt(conteudo.length).putLong(sequencia).put(tipo).put(conteudo);
+            crc.update(destino.array(), inicio + 4, 8 + 1 + conteudo.length);
+            destino.putInt((int) crc.getValue());
+            if (destino != buffer) {
+                destino.flip();
+                escreverNoCanal(destino);
+            }
+            ultimaSequencia = sequencia; // Só um registo completo recebe a sua sequência
+            return sequencia;
+        } finally {
+            trincoBuffer.unlock();
+            if (evento.shouldCommit()) {
+                evento.concluir("diario", nomeTipo(tipo), idAdepto, setor, tamanhoRegisto);
+            }
+        }
+    }
+
+    private static String nomeTipo(byte tipo) {
+        return switch (tipo) {
+            case TIPO_ADEPTO -> "adepto";
+            case TIPO_BILHETE -> "bilhete";
+            case TIPO_ANULACAO_BILHETE -> "anulacao";
+            case TIPO_ROLOTE -> "rolote";
+            case TIPO_COMPRA_COMIDA -> "compra-comida";
+            case TIPO_JOGO -> "jogo";
+            case TIPO_FIM_JOGO -> "fim-jogo";
+            default -> "tipo-" + tipo;
+        };
+    }
+
+    // Escreve o conteúdo do buffer no canal e esvazia-o. Exige o trincoBuffer.
+    // Se a escrita falhar a meio, o que ficou por escrever continua no buffer, pronto a ser acrescentado.
+    private void despejarBuffer() throws IOException {
+        buffer.flip();
+        try {
+            escreverNoCanal(buffer);
+        } finally {
+            buffer.compact();
+        }
+    }
+
+    private void escreverNoCanal(ByteBuffer dados) throws IOException {
+        while (dados.hasRemaining()) {
+            canal.write(dados);
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package src.POO.teste_final;
+
+/**
+ * Operações com valores monetários.
+ * Todos os valores em dinheiro do sistema (carteiras, preços, faturação) são guardados
+ * como um long em cêntimos, o que torna as somas exatas: ao contrário de um double,
+ * 0,10€ + 0,20€ dá sempre 0,30€, e os totais podem ser acumulados em contadores atómicos.
+ * Os euros só aparecem na entrada de dados e quando um valor é mostrado.
+ */
+public final class Dinheiro {
+
+    // --- CONSTANTES ---
+
+    public static final long CENTIMOS_POR_EURO = 100;
+
+    // Classe utilitária: não é instanciada.
+    private Dinheiro() {
+    }
+
+    // --- CONVERSÕES ---
+
+    /**
+     * Converte um número inteiro de euros em cêntimos.
+     * @param euros O valor em euros.
+     * @return O valor em cêntimos.
+     * @throws ArithmeticException Se o valor não couber num long.
+     */
+    public static long deEuros(long euros) {
+        return Math.multiplyExact(euros, CENTIMOS_POR_EURO);
+    }
+
+    /**
+     * Converte um valor em euros (ex: lido do teclado) em cêntimos, arredondado ao cêntimo mais próximo.
+     * @param euros O valor em euros.
+     * @return O valor em cêntimos.
+     * @throws IllegalArgumentException Se o valor não for um número finito ou for grande demais.
+     */
+    public static long deEuros(double euros) {
+        double centimos = euros * CENTIMOS_POR_EURO;
+        if (Double.isNaN(centimos) || Math.abs(centimos) >= Long.MAX_VALUE) {
+            throw new IllegalArgumentException("Valor monetário inválido: " + euros);
+        }
+        return Math.round(centimos);
+    }
+
+    // --- ARITMÉTICA ---
+
+    /**
+     * Calcula o valor de várias unidades ao mesmo preço.
+     * @param precoUnitario O preço de uma unidade, em cêntimos.
+     * @param quantidade O número de unidades.
+     * @return O valor total, em cêntimos.
+     * @throws ArithmeticException Se o total não couber num long.
+     */
+    public static long multiplicar(long precoUnitario, int quantidade) {
+        return Math.multiplyExact(precoUnitario, (long) quantidade);
+    }
+
+    /**
+     * Soma dois valores.
+     * @throws ArithmeticException Se a soma não couber num long.
+     */
+    public static long somar(long a, long b) {
+        return Math.addExact(a, b);
+    }
+
+    // --- APRESENTAÇÃO ---
+
+    /**
+     * Formata um valor em cêntimos com duas casas decimais e o símbolo do euro (ex: "12.50€").
+     * @param centimos O valor em cêntimos.
+     * @return O valor formatado.
+     */
+    public static String formatar(long centimos) {
+        return escrever(new StringBuilder(16), centimos).toString();
+    }
+
+    /**
+     * Acrescenta um valor formatado como em formatar, sem criar objetos.
+     * @param destino Onde escrever.
+     * @param centimos O valor em cêntimos.
+     * @return O destino, para encadear chamadas.
+     */
+    public static StringBuilder escrever(StringBuilder destino, long centimos) {
+        if (centimos < 0) {
+            destino.append('-');
+        }
+        // Divide antes de tirar o sinal, para funcionar também com Long.MIN_VALUE.
+        long euros = Math.abs(centimos / CENTIMOS_POR_EURO);
+        long resto = Math.abs(centimos % CENTIMOS_POR_EURO);
+        destino.append(euros).append('.');
+        if (resto < 10) {
+            destino.append('0');
+        }
+        return destino.append(resto).append('€');
+    }
+}
@@ -1,16 +1,79 @@
 package src.POO.teste_final;
 
+import java.io.UncheckedIOException;
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * Modela o Estádio, a classe central que contém e gere todos os
- * outros elementos do sistema (Setores, Rolotes, Adeptos, Jogo).
+ * outros elementos do sistema (Setores, Rolotes, Adeptos, Jogos).
+ * O estádio tem um calendário de jogos; os setores descrevem a grelha de lugares
+ * e cada jogo tem a sua própria ocupação (ver Jogo.getMapa()) e os seus bilhetes.
  */
 public class Estadio {
 
+    // --- TIPOS ---
+
+    /**
+     * O resultado da venda de um lugar reservado (ver venderReserva).
+     */
+    public enum ResultadoVenda {
+        VENDIDO("bilhete vendido"),                     // Bilhete cobrado e lugar confirmado.
+        SALDO_INSUFICIENTE("saldo insuficiente"),       // O adepto não tinha saldo; a reserva foi cancelada.
+        RESERVA_EXPIRADA("a reserva do lugar expirou; o valor foi devolvido à carteira"); // Expirou durante o pagamento.
+
+        private final String descricao;
+
+        ResultadoVenda(String descricao) {
+            this.descricao = descricao;
+        }
+
+        public String getDescricao() {
+            return descricao;
+        }
+    }
+
+    /**
+     * Uma venda de um lugar reservado: o resultado e, se o lugar foi vendido, o bilhete.
+     */
+    public static final class Venda {
+        private static final Venda SEM_SALDO = new Venda(ResultadoVenda.SALDO_INSUFICIENTE, null);
+        private static final Venda EXPIRADA = new Venda(ResultadoVenda.RESERVA_EXPIRADA, null);
+
+        private final ResultadoVenda resultado;
+        private final Bilhete bilhete;
+
+        private Venda(ResultadoVenda resultado, Bilhete bilhete) {
+            this.resultado = resultado;
+            this.bilhete = bilhete;
+        }
+
+        public ResultadoVenda getResultado() {
+            return resultado;
+        }
+
+        /**
+         * @return O bilhete vendido, ou null se a venda falhou.
+         */
+        public Bilhete getBilhete() {
+            return bilhete;
+        }
+
+        public boolean isVendido() {
+            return resultado == ResultadoVenda.VENDIDO;
+        }
+    }
+
     // --- ATRIBUTOS ---
 
     private long id;                            // ID único e aleatório de 10 dígitos.
@@ -20,38 +83,70 @@ public class Estadio {
     private List<Setor> setores;                // Lista dos 4 setores do estádio.
     private List<Rolote> rolotes;               // Lista de rolotes, com um máximo de 5.
     private List<Adepto> adeptos;               // Lista de todos os adeptos registados.
-    private List<Bilhete> bilhetesVendidos;     // Lista de todos os bilhetes vendidos
-    private Jogo jogo;                          // O jogo que está atualmente agendado ou a decorrer.
+    private Map<Long, Adepto> adeptosPorId;     // Índice dos adeptos pelo ID.
+    private Map<String, Adepto> adeptosPorDocumento; // Índice dos adeptos pelo CC; garante que não há CC repetidos.
+    private final Set<String> documentosEmRegisto = ConcurrentHashMap.newKeySet(); // CC de adeptos a meio do registo.
+    private List<Bilhete> bilhetesVendidos;     // Lista de todos os bilhetes vendidos, de todos os jogos
+    private final LongAdder receitaBilheteira = new LongAdder(); // Receita de todos os bilhetes vendidos, em cêntimos.
+    private final List<Jogo> calendario = new CopyOnWriteArrayList<>(); // Todos os jogos, pelo seu número (o jogo n está na posição n - 1).
+    private volatile Jogo jogo;                 // O jogo atual: o que é vendido e iniciado pelo menu.
 
     // Contador para gerar IDs sequenciais para os adeptos
-    private int proximoIdAdepto = 1;
+    private final AtomicLong proximoIdAdepto = new AtomicLong(1);
+
+    // Reservas temporárias de lugares: quanto tempo duram e quem as faz expirar.
+    private Duration tempoRetencao = Duration.ofMinutes(5);
+    private final RodaExpiracao rodaExpiracao = new RodaExpiracao(Duration.ofMillis(100));
+
+    // Onde são guardados os adeptos e os bilhetes (ficheiros de texto, por omissão).
+    private Persistencia persistencia = new PersistenciaFicheiros();
+
+    // Métricas de desempenho das vendas, reservas, estatísticas e escritas na persistência.
+    // As escritas passam sempre pela versão medida da persistência.
+    private final Metricas metricas = new Metricas();
+    private Persistencia persistenciaMedida = new Metricas.PersistenciaMedida(this.persistencia, this.metricas);
 
 
     // --- CONSTRUTOR ---
 
     /**
      * Cria uma nova instância de Estádio.
-     * Gera um ID aleatório e inicializa os 4 setores padrão com os seus preços.
+     * Gera um ID aleatório e inicializa os 4 setores padrão (5x5 lugares) com os seus preços.
      * @param nome O nome do estádio.
      * @param localizacao A morada do estádio.
      */
     public Estadio(String nome, String localizacao) {
+        this(nome, localizacao, 5, 5);
+    }
+
+    /**
+     * Cria uma nova instância de Estádio com setores das dimensões indicadas.
+     * Permite modelar estádios reais, com dezenas de milhares de lugares por setor.
+     * @param nome O nome do estádio.
+     * @param localizacao A morada do estádio.
+     * @param filasPorSetor O número de filas de cada setor.
+     * @param colunasPorSetor O número de lugares por fila de cada setor.
+     */
+    public Estadio(String nome, String localizacao, int filasPorSetor, int colunasPorSetor) {
         // Gera um ID aleatório de 10 dígitos.
         this.id = ThreadLocalRandom.current().nextLong(1_000_000_000L, 10_000_000_000L);
         this.nome = nome;
         this.localizacao = localizacao;
 
         // Inicializa as listas
-        this.rolotes = new ArrayList<>();
-        this.adeptos = new ArrayList<>();
+        // As listas podem ser usadas por várias threads ao mesmo tempo (ex: pedidos da API HTTP).
+        this.rolotes = new CopyOnWriteArrayList<>();
+        this.adeptos = Collections.synchronizedList(new ArrayList<>());
+        this.adeptosPorId = new ConcurrentHashMap<>();
+        this.adeptosPorDocumento = new ConcurrentHashMap<>();
         this.setores = new ArrayList<>();
-        this.bilhetesVendidos = new ArrayList<>();
+        this.bilhetesVendidos = Collections.synchronizedList(new ArrayList<>());
 
         // Cria e adiciona os 4 setores padrão com os seus preços base
-        this.setores.add(new Setor("A", 10.0));
-        this.setores.add(new Setor("B", 20.0));
-        this.setores.add(new Setor("C", 30.0));
-        this.setores.add(new Setor("D", 40.0));
+        this.setores.add(new Setor("A", Dinheiro.deEuros(10), filasPorSetor, colunasPorSetor));
+        this.setores.add(new Setor("B", Dinheiro.deEuros(20), filasPorSetor, colunasPorSetor));
+        this.setores.add(new Setor("C", Dinheiro.deEuros(30), filasPorSetor, colunasPorSetor));
+        this.setores.add(new Setor("D", Dinheiro.deEuros(40), filasPorSetor, colunasPorSetor));
     }
 
 
@@ -80,10 +175,83 @@ public class Estadio {
         return adeptos;
     }
 
+    /**
+     * Devolve o jogo atual (o primeiro jogo criado, a menos que outro seja selecionado).
+     * @return O jogo atual, ou null se ainda não houver jogos.
+     */
     public Jogo getJogo() {
         return jogo;
     }
 
+    /**
+     * Devolve todos os jogos do estádio, pelo seu número.
+     * @return O calendário (não modificável).
+     */
+    public List<Jogo> getCalendario() {
+        return Collections.unmodifiableList(calendario);
+    }
+
+    /**
+     * Procura um jogo pelo seu número.
+     * @param numero O número do jogo (a começar em 1).
+     * @return O jogo, ou null se não existir nenhum com esse número.
+     */
+    public Jogo procurarJogo(int numero) {
+        // Os jogos são numerados pela ordem em que são criados, por isso o número é a posição.
+        return numero >= 1 && numero <= calendario.size() ? calendario.get(numero - 1) : null;
+    }
+
+    /**
+     * Escolhe o jogo atual (o que é vendido e iniciado pelo menu).
+     * @param numero O número do jogo.
+     * @return true se o jogo existe e passou a ser o atual.
+     */
+    public boolean selecionarJogo(int numero) {
+        Jogo escolhido = procurarJogo(numero);
+        if (escolhido == null) {
+            return false;
+        }
+        this.jogo = escolhido;
+        return true;
+    }
+
+    /**
+     * Procura um adepto pelo seu ID.
+     * @param idAdepto O ID numérico do adepto.
+     * @return O adepto, ou null se não existir nenhum com esse ID.
+     */
+    public Adepto procurarAdepto(long idAdepto) {
+        return this.adeptosPorId.get(idAdepto);
+    }
+
+    /**
+     * Procura um adepto pelo código escrito pelo utilizador, sem distinguir maiúsculas de minúsculas.
+     * @param codigo O código do adepto (ex: AD001 ou ad001).
+     * @return O adepto, ou null se o código for inválido ou não existir nenhum adepto com ele.
+     */
+    public Adepto procurarAdepto(String codigo) {
+        long idAdepto = Adepto.lerCodigo(codigo);
+        return idAdepto < 0 ? null : procurarAdepto(idAdepto);
+    }
+
+    /**
+     * Procura um adepto pelo número do seu Cartão de Cidadão.
+     * @param documento O número do CC.
+     * @return O adepto, ou null se nenhum adepto tiver esse CC.
+     */
+    public Adepto procurarAdeptoPorDocumento(String documento) {
+        return documento == null ? null : this.adeptosPorDocumento.get(documento.trim());
+    }
+
+    /**
+     * Verifica se já existe um adepto registado com o CC indicado.
+     * @param documento O número do CC.
+     * @return true se o CC já estiver em uso.
+     */
+    public boolean existeDocumento(String documento) {
+        return procurarAdeptoPorDocumento(documento) != null;
+    }
+
     /**
      * Devolve a capacidade máxima do estádio, calculada a partir dos seus setores.
      * Cumpre o requisito (d) capacidadeMaxima: 100.
@@ -101,28 +269,324 @@ public class Estadio {
         return bilhetesVendidos;
     }
 
+    /**
+     * Devolve a receita de todos os bilhetes vendidos, de todos os jogos.
+     * @return A receita da bilheteira, em cêntimos.
+     */
+    public long getReceitaBilheteira() {
+        return this.receitaBilheteira.sum();
+    }
+
+    /**
+     * Tira uma fotografia das estatísticas do jogo atual (ocupação, receitas, rolotes abertas).
+     * Usa os contadores mantidos durante as vendas: custa O(setores + rolotes).
+     * @return As estatísticas atuais.
+     */
+    public EstatisticasEstadio getEstatisticas() {
+        return getEstatisticas(this.jogo);
+    }
+
+    /**
+     * Tira uma fotografia das estatísticas de um jogo (ocupação e receita da bilheteira
+     * desse jogo; rolotes do estádio).
+     * @param jogo O jogo (se for null, a ocupação e a receita da bilheteira são zero).
+     * @return As estatísticas atuais.
+     */
+    public EstatisticasEstadio getEstatisticas(Jogo jogo) {
+        long inicio = System.nanoTime();
+        EstatisticasEstadio estatisticas = new EstatisticasEstadio(this, jogo);
+        this.metricas.registar(Metricas.Operacao.ESTATISTICAS, inicio, true);
+        return estatisticas;
+    }
+
+    public Persistencia getPersistencia() {
+        return persistencia;
+    }
+
+    /**
+     * Define onde são guardados os adeptos criados e os bilhetes vendidos a partir de agora,
+     * incluindo as compras seguintes dos adeptos já registados (ex: restaurados do disco).
+     * @param persistencia A persistência a usar (ficheiros de texto ou diário de transações).
+     */
+    public void setPersistencia(Persistencia persistencia) {
+        this.persistencia = persistencia;
+        this.persistenciaMedida = new Metricas.PersistenciaMedida(persistencia, this.metricas);
+        synchronized (this.adeptos) {
+            for (Adepto adepto : this.adeptos) {
+                adepto.setPersistencia(this.persistenciaMedida);
+            }
+        }
+    }
+
+    public Metricas getMetricas() {
+        return metricas;
+    }
+
+    public Duration getTempoRetencao() {
+        return tempoRetencao;
+    }
+
+    /**
+     * Define durante quanto tempo um lugar fica reservado enquanto o pagamento é validado.
+     * @param tempoRetencao O prazo das novas reservas (maior que zero).
+     */
+    public void setTempoRetencao(Duration tempoRetencao) {
+        if (tempoRetencao == null || tempoRetencao.isNegative() || tempoRetencao.isZero()) {
+            throw new IllegalArgumentException("O tempo de retenção deve ser positivo.");
+        }
+        this.tempoRetencao = tempoRetencao;
+    }
+
     // --- MÉTODOS DE GESTÃO ---
 
     /**
-     * Adiciona um bilhete à lista central de bilhetes vendidos do estádio.
+     * Adiciona um bilhete à lista central de bilhetes vendidos do estádio
+     * e à lista do jogo a que pertence (indicado no ID do bilhete).
      * @param bilhete O bilhete que foi vendido.
      */
     public void adicionarBilheteVendido(Bilhete bilhete) {
         this.bilhetesVendidos.add(bilhete);
-        // Também podemos adicionar o bilhete à lista do jogo, se for necessário para a receita do jogo
-        if (this.jogo != null) {
-            this.jogo.adicionarBilheteVendido(bilhete);
+        this.receitaBilheteira.add(bilhete.getPreco());
+        Jogo jogoDoBilhete = procurarJogo(bilhete.getNumeroJogo());
+        if (jogoDoBilhete != null) {
+            jogoDoBilhete.adicionarBilheteVendido(bilhete);
+        }
+    }
+
+    /**
+     * Anula a venda de um bilhete já confirmado: reembolsa o adepto (registando a anulação),
+     * retira o bilhete das receitas e liberta o lugar. Serve para desfazer uma compra de
+     * vários lugares que falhou a meio.
+     * @param adepto O dono do bilhete.
+     * @param bilhete O bilhete a anular.
+     * @return true se o bilhete era do adepto e foi anulado, false caso contrário.
+     * @throws UncheckedIOException Se a anulação não pôde ser guardada; o lugar continua ocupado.
+     */
+    public boolean anularVenda(Adepto adepto, Bilhete bilhete) {
+        if (!adepto.reembolsarBilhete(bilhete)) {
+            return false;
+        }
+        if (this.bilhetesVendidos.remove(bilhete)) {
+            this.receitaBilheteira.add(-bilhete.getPreco());
         }
+        Jogo jogoDoBilhete = procurarJogo(bilhete.getNumeroJogo());
+        if (jogoDoBilhete != null) {
+            jogoDoBilhete.removerBilheteVendido(bilhete);
+            jogoDoBilhete.getMapa(bilhete.getSetor()).libertarLugar(bilhete.getFila(), bilhete.getColuna());
+        }
+        return true;
     }
 
     /**
-     * Cria e agenda um novo jogo no estádio.
+     * Reserva temporariamente um lugar do jogo atual enquanto o pagamento é validado.
+     * @param setor O setor do lugar.
+     * @param fila A fila do lugar.
+     * @param coluna A coluna do lugar.
+     * @return A reserva, ou null se o lugar não estiver livre.
+     * @throws IllegalStateException Se não houver nenhum jogo agendado, ou se já terminou.
+     */
+    public Reserva reterLugar(Setor setor, int fila, int coluna) {
+        return reterLugar(jogoAtual(), setor, fila, coluna);
+    }
+
+    /**
+     * Reserva temporariamente um lugar de um jogo enquanto o pagamento é validado.
+     * Se a reserva não for confirmada dentro do tempo de retenção, o lugar é libertado.
+     * @param jogo O jogo.
+     * @param setor O setor do lugar.
+     * @param fila A fila do lugar.
+     * @param coluna A coluna do lugar.
+     * @return A reserva, ou null se o lugar não estiver livre.
+     * @throws IllegalStateException Se o jogo já terminou.
+     */
+    public Reserva reterLugar(Jogo jogo, Setor setor, int fila, int coluna) {
+        exigirPorRealizar(jogo);
+        long inicio = System.nanoTime();
+        EventosJfr.ReservaLugar evento = new EventosJfr.ReservaLugar();
+        evento.begin();
+        Reserva reserva = jogo.getMapa(setor).reterLugar(fila, coluna);
+        if (reserva != null) {
+            this.rodaExpiracao.agendar(reserva, this.tempoRetencao);
+        }
+        this.metricas.registar(Metricas.Operacao.RESERVA_LUGARES, inicio, reserva != null);
+        if (evento.shouldCommit()) {
+            evento.jogo = jogo.getNumero();
+            evento.setor = setor.getId();
+            evento.fila = fila;
+            evento.coluna = coluna;
+            evento.lugares = 1;
+            evento.reservado = reserva != null;
+            evento.commit();
+        }
+        return reserva;
+    }
+
+    /**
+     * Reserva temporariamente um bloco de lugares juntos num setor do jogo atual.
+     * @param setor O setor onde procurar o bloco.
+     * @param quantidade O número de lugares seguidos.
+     * @return As reservas do bloco, ou null se não existir um bloco livre com esse tamanho.
+     * @throws IllegalStateException Se não houver nenhum jogo agendado, ou se já terminou.
+     */
+    public List<Reserva> reterBlocoContiguo(Setor setor, int quantidade) {
+        return reterBlocoContiguo(jogoAtual(), setor, quantidade);
+    }
+
+    /**
+     * Reserva temporariamente um bloco de lugares juntos num setor de um jogo.
+     * @param jogo O jogo.
+     * @param setor O setor onde procurar o bloco.
+     * @param quantidade O número de lugares seguidos.
+     * @return As reservas do bloco, ou null se não existir um bloco livre com esse tamanho.
+     * @throws IllegalStateException Se o jogo já terminou.
+     */
+    public List<Reserva> reterBlocoContiguo(Jogo jogo, Setor setor, int quantidade) {
+        exigirPorRealizar(jogo);
+        long inicio = System.nanoTime();
+        EventosJfr.ReservaLugar evento = new EventosJfr.ReservaLugar();
+        evento.begin();
+        List<Reserva> reservas = jogo.getMapa(setor).reterBlocoContiguo(quantidade);
+        if (reservas != null) {
+            for (Reserva reserva : reservas) {
+                this.rodaExpiracao.agendar(reserva, this.tempoRetencao);
+            }
+        }
+        this.metricas.registar(Metricas.Operacao.RESERVA_LUGARES, inicio, reservas != null);
+        if (evento.shouldCommit()) {
+            evento.jogo = jogo.getNumero();
+            evento.setor = setor.getId();
+            evento.fila = reservas == null ? -1 : reservas.get(0).getFila();
+            evento.coluna = reservas == null ? -1 : reservas.get(0).getColuna();
+            evento.lugares = quantidade;
+            evento.reservado = reservas != null;
+            evento.commit();
+        }
+        return reservas;
+    }
+
+    /**
+     * Emite e cobra o bilhete de um lugar reservado e confirma a reserva.
+     * Se o pagamento falhar, a reserva é cancelada; se a reserva expirar enquanto
+     * o pagamento é validado, o bilhete é reembolsado.
+     * @param adepto O adepto que paga.
+     * @param reserva A reserva do lugar.
+     * @return A venda: o bilhete vendido, ou o motivo da falha (o lugar e o dinheiro foram devolvidos).
+     * @throws UncheckedIOException Se o bilhete não pôde ser guardado; a venda é
+     *         desfeita e a reserva cancelada.
+     */
+    public Venda venderReserva(Adepto adepto, Reserva reserva) {
+        long inicio = System.nanoTime();
+        EventosJfr.CompraBilhete evento = new EventosJfr.CompraBilhete();
+        evento.begin();
+        Venda venda = null;
+        try {
+            venda = venderReservaSemMedir(adepto, reserva);
+        } finally {
+            boolean vendido = venda != null && venda.isVendido();
+            this.metricas.registar(Metricas.Operacao.COMPRA_BILHETE, inicio, vendido);
+            if (evento.shouldCommit()) {
+                evento.jogo = reserva.getMapa().getJogo().getNumero();
+                evento.setor = reserva.getSetor().getId();
+                evento.fila = reserva.getFila();
+                evento.coluna = reserva.getColuna();
+                evento.adepto = adepto.getCodigo();
+                evento.preco = reserva.getSetor().getPrecoBase();
+                evento.vendido = vendido;
+                evento.commit();
+            }
+        }
+        return venda;
+    }
+
+    private Venda venderReservaSemMedir(Adepto adepto, Reserva reserva) {
+        Setor setor = reserva.getSetor();
+        Bilhete bilhete = null;
+        boolean pago = false;
+        try {
+            // O ID do bilhete é numérico; o código e a descrição do lugar só são gerados quando são mostrados.
+            long idBilhete = gerarIdBilhete(reserva.getMapa().getJogo(), setor, reserva.getFila(), reserva.getColuna());
+            bilhete = new Bilhete(idBilhete, setor, setor.getPrecoBase());
+            pago = adepto.comprarBilhete(bilhete);
+        } finally {
+            if (!pago) {
+                reserva.cancelar();     // Sem saldo, ID inválido, ou o bilhete não ficou guardado
+            }
+        }
+        if (!pago) {
+            return Venda.SEM_SALDO;
+        }
+        if (!reserva.confirmar()) {
+            // A reserva expirou durante o pagamento: o lugar pode já ter sido vendido a outro adepto.
+            adepto.reembolsarBilhete(bilhete);
+            return Venda.EXPIRADA;
+        }
+        adicionarBilheteVendido(bilhete);
+        return new Venda(ResultadoVenda.VENDIDO, bilhete);
+    }
+
+    /**
+     * Cria e agenda um novo jogo no calendário do estádio.
+     * O primeiro jogo criado passa a ser o jogo atual.
      * @param casa A equipa da casa.
      * @param visitante A equipa visitante.
      * @param dataHora A data e hora do jogo.
+     * @return O jogo criado.
+     * @throws IllegalStateException Se o calendário já tiver o número máximo de jogos.
+     * @throws UncheckedIOException Se o jogo não pôde ser guardado; não é criado.
+     */
+    public synchronized Jogo criarJogo(Equipa casa, Equipa visitante, LocalDateTime dataHora, String arbitro) {
+        int numero = this.calendario.size() + 1;
+        if (numero > Bilhete.MAXIMO_JOGO) {
+            throw new IllegalStateException("O calendário já tem o número máximo de jogos (" + Bilhete.MAXIMO_JOGO + ").");
+        }
+        Jogo novoJogo = new Jogo(numero, casa, visitante, dataHora, arbitro);
+        this.persistenciaMedida.registarJogo(novoJogo);    // Os bilhetes deste jogo só são recuperáveis se o jogo também for
+        this.calendario.add(novoJogo);
+        if (this.jogo == null) {
+            this.jogo = novoJogo;
+        }
+        return novoJogo;
+    }
+
+    /**
+     * Gera o ID de um bilhete para um lugar do jogo atual.
+     * @param setor O setor do lugar (tem de ser um dos setores deste estádio).
+     * @param fila A fila do lugar.
+     * @param coluna A coluna do lugar.
+     * @return O ID do bilhete.
+     * @throws IllegalStateException Se não houver nenhum jogo agendado.
      */
-    public void criarJogo(Equipa casa, Equipa visitante, LocalDateTime dataHora, String arbitro) {
-        this.jogo = new Jogo(casa, visitante, dataHora, arbitro);
+    public long gerarIdBilhete(Setor setor, int fila, int coluna) {
+        return gerarIdBilhete(jogoAtual(), setor, fila, coluna);
+    }
+
+    /**
+     * Gera o ID de um bilhete para um lugar de um jogo.
+     * O ID junta, num único número, o jogo, o setor, a fila e a coluna (ver Bilhete.codificarId).
+     * @param jogo O jogo.
+     * @param setor O setor do lugar (tem de ser um dos setores deste estádio).
+     * @param fila A fila do lugar.
+     * @param coluna A coluna do lugar.
+     * @return O ID do bilhete.
+     */
+    public long gerarIdBilhete(Jogo jogo, Setor setor, int fila, int coluna) {
+        return Bilhete.codificarId(jogo.getNumero(), this.setores.indexOf(setor), fila, coluna);
+    }
+
+    // O jogo atual, para as operações que não indicam o jogo.
+    private Jogo jogoAtual() {
+        Jogo atual = this.jogo;
+        if (atual == null) {
+            throw new IllegalStateException("Nenhum jogo foi agendado no estádio.");
+        }
+        return atual;
+    }
+
+    // Os bilhetes só são vendidos para jogos que ainda não terminaram.
+    private static void exigirPorRealizar(Jogo jogo) {
+        if (jogo.isTerminado()) {
+            throw new IllegalStateException("O jogo " + jogo.getNumero() + " já terminou; os bilhetes já não estão à venda.");
+        }
     }
 
     /**
@@ -131,8 +595,9 @@ public class Estadio {
      * @param rolote A rolote a ser adicionada.
      * @return true se a rolote foi adicionada, false caso contrário.
      */
-    public boolean adicionarRolote(Rolote rolote) {
+    public synchronized boolean adicionarRolote(Rolote rolote) {
         if (this.rolotes.size() < 5) {
+            this.persistenciaMedida.registarRolote(rolote);    // Se não ficar guardada, não é adicionada
             this.rolotes.add(rolote);
             System.out.println("Rolote '" + rolote.getNome() + "' adicionada ao estádio.");
             return true;
@@ -144,17 +609,123 @@ public class Estadio {
 
     /**
      * Cria um novo adepto com um ID sequencial e regista-o no estádio.
-     * @return O objeto Adepto que foi criado.
+     * Cada CC só pode pertencer a um adepto: o CC é primeiro reservado (documentosEmRegisto),
+     * por isso dois registos simultâneos do mesmo CC não passam ambos. O adepto é criado e
+     * guardado fora de qualquer operação sobre os índices (a escrita pode esperar pelo disco)
+     * e só depois é publicado.
+     * @return O objeto Adepto que foi criado, ou null se o CC já estiver registado.
+     * @throws UncheckedIOException Se o adepto não pôde ser guardado; o CC fica livre.
+     */
+    public Adepto criarNovoAdepto(String nome, int idade, String cc, String endereco, long carteira) {
+        String documento = cc.trim();
+        if (this.adeptosPorDocumento.containsKey(documento) || !this.documentosEmRegisto.add(documento)) {
+            System.out.println("ERRO: Já existe um adepto registado com o CC " + documento + ".");
+            return null;
+        }
+        try {
+            // Apanha um registo do mesmo CC que terminou entre a primeira verificação e a reserva
+            if (this.adeptosPorDocumento.containsKey(documento)) {
+                System.out.println("ERRO: Já existe um adepto registado com o CC " + documento + ".");
+                return null;
+            }
+            // O ID é só um número; o código "AD001" é gerado quando é mostrado
+            long idAdepto = this.proximoIdAdepto.getAndIncrement();
+            Adepto novoAdepto = new Adepto(idAdepto, nome, idade, documento, endereco, carteira, this.persistenciaMedida);
+
+            this.adeptosPorId.put(novoAdepto.getId(), novoAdepto);
+            this.adeptos.add(novoAdepto);
+            this.adeptosPorDocumento.put(documento, novoAdepto);
+            return novoAdepto;
+        } finally {
+            this.documentosEmRegisto.remove(documento);
+        }
+    }
+
+    /**
+     * Vende um carrinho numa rolote (ver Rolote.finalizarCompra) e, se a compra for
+     * concluída, regista-a para que possa ser recuperada do disco.
+     * @param adepto O adepto que paga.
+     * @param rolote A rolote onde a compra é feita.
+     * @param carrinho Os produtos e as quantidades pedidas.
+     * @return O resultado da compra.
+     * @throws UncheckedIOException Se a compra não pôde ser guardada; a compra é desfeita
+     *         (stock, faturação e carteira voltam ao que eram).
+     */
+    public Rolote.ResultadoCompra finalizarCompraComida(Adepto adepto, Rolote rolote, Map<Produto, Integer> carrinho) {
+        long inicio = System.nanoTime();
+        long total = rolote.calcularTotal(carrinho);
+        Rolote.ResultadoCompra resultado = rolote.finalizarCompra(adepto, carrinho);
+        boolean guardada = false;
+        try {
+            if (resultado == Rolote.ResultadoCompra.CONCLUIDA) {
+                this.persistenciaMedida.registarCompraComida(adepto, rolote, carrinho, total);
+            }
+            guardada = true;
+        } finally {
+            if (!guardada) {
+                rolote.anularCompra(adepto, carrinho, total);
+            }
+            this.metricas.registar(Metricas.Operacao.COMPRA_COMIDA, inicio, guardada && resultado == Rolote.ResultadoCompra.CONCLUIDA);
+        }
+        return resultado;
+    }
+
+    // --- MÉTODOS DE RESTAURO (arranque a partir do disco) ---
+
+    /**
+     * Volta a registar um adepto restaurado do disco, mantendo o seu ID.
+     * O contador de IDs avança para que os próximos adeptos não repitam IDs, e as
+     * compras seguintes do adepto passam a ser guardadas na persistência do estádio.
+     * @param adepto O adepto restaurado.
+     */
+    void restaurarAdepto(Adepto adepto) {
+        adepto.setPersistencia(this.persistenciaMedida);
+        this.adeptos.add(adepto);
+        this.adeptosPorId.put(adepto.getId(), adepto);
+        this.adeptosPorDocumento.put(adepto.getDocumento(), adepto);
+        this.proximoIdAdepto.accumulateAndGet(adepto.getId() + 1, Math::max);
+    }
+
+    /**
+     * Volta a criar um jogo restaurado do disco, sem novo registo.
+     * Os jogos são numerados pela ordem de criação, por isso têm de ser restaurados por ordem.
+     * @return O jogo criado, ou null se o número não for o próximo do calendário.
      */
-    public Adepto criarNovoAdepto(String nome, int idade, String cc, String endereco, double carteira) {
-        // Formata o ID para ter 3 dígitos, com zeros à esquerda (ex: AD001, AD015, AD123)
-        String idAdepto = String.format("AD%03d", this.proximoIdAdepto);
-        this.proximoIdAdepto++; // Incrementa o contador para o próximo adepto
+    synchronized Jogo restaurarJogo(int numero, Equipa casa, Equipa visitante, LocalDateTime dataHora, String arbitro) {
+        if (numero != this.calendario.size() + 1) {
+            return null;
+        }
+        Jogo jogo = new Jogo(numero, casa, visitante, dataHora, arbitro);
+        this.calendario.add(jogo);
+        if (this.jogo == null) {
+            this.jogo = jogo;
+        }
+        return jogo;
+    }
+
+    /**
+     * Regista o resultado de um jogo que acabou de terminar (chamado pelo Jogo).
+     * @param jogo O jogo terminado.
+     */
+    void registarFimJogo(Jogo jogo) {
+        this.persistenciaMedida.registarFimJogo(jogo);
+    }
 
-        Adepto novoAdepto = new Adepto(idAdepto, nome, idade, cc, endereco, carteira);
-        this.adeptos.add(novoAdepto);
+    /**
+     * Volta a adicionar uma rolote restaurada do disco, sem mensagens nem novo registo.
+     * @param rolote A rolote restaurada.
+     */
+    void restaurarRolote(Rolote rolote) {
+        this.rolotes.add(rolote);
+    }
 
-        return novoAdepto;
+    /**
+     * Pára a thread da roda de expiração das reservas. Deve ser chamado quando o estádio
+     * deixa de ser usado; as reservas ainda ativas deixam de expirar.
+     * A persistência não é fechada aqui: fecha-a quem a configurou (ver setPersistencia).
+     */
+    public void fechar() {
+        this.rodaExpiracao.parar();
     }
 
     /**
@@ -169,32 +740,28 @@ public class Estadio {
     }
 
     /**
-     * Calcula e mostra as estatísticas do estádio para o intervalo do jogo.
+     * Calcula e mostra as estatísticas do estádio para o intervalo do jogo atual.
      */
     public void mostrarEstatisticasIntervalo() {
+        mostrarEstatisticasIntervalo(this.jogo);
+    }
+
+    /**
+     * Calcula e mostra as estatísticas do estádio para o intervalo de um jogo.
+     * @param jogo O jogo que está a decorrer.
+     */
+    public void mostrarEstatisticasIntervalo(Jogo jogo) {
         System.out.println("\n=== Intervalo (5 segundos) ===");
         System.out.println("\nEstatísticas Parciais:");
 
-        // Calcular Ocupação
-        int lugaresOcupados = 0;
-        int capacidadeTotal = 0;
-        for (Setor setor : this.setores) {
-            capacidadeTotal += setor.getCapacidade();
-            lugaresOcupados += (setor.getCapacidade() - setor.verificarDisponibilidade());
-        }
-        double percentagemOcupacao = (double) lugaresOcupados / capacidadeTotal * 100;
-        System.out.printf("- Ocupação: %.2f%% (%d/%d)\n", percentagemOcupacao, lugaresOcupados, capacidadeTotal);
+        EstatisticasEstadio estatisticas = getEstatisticas(jogo);
 
-        // Calcular Rolotes Abertas e Faturação
-        int rolotesAbertas = 0;
-        double faturacaoTotalRolotes = 0.0;
-        for (Rolote rolote : this.rolotes) {
-            if (rolote.isAberto()) {
-                rolotesAbertas++;
-            }
-            faturacaoTotalRolotes += rolote.getFaturamentoDiario();
-        }
-        System.out.println("- Rolotes abertas: " + rolotesAbertas);
-        System.out.printf("- Faturamento rolotes: %.2f€\n\n", faturacaoTotalRolotes);
+        // Ocupação
+        System.out.printf("- Ocupação: %.2f%% (%d/%d)\n", estatisticas.getPercentagemOcupacao(),
+                estatisticas.getLugaresOcupados(), estatisticas.getCapacidade());
+
+        // Rolotes Abertas e Faturação
+        System.out.println("- Rolotes abertas: " + estatisticas.getRolotesAbertas());
+        System.out.printf("- Faturamento rolotes: %s\n\n", Dinheiro.formatar(estatisticas.getFaturacaoRolotes()));
     }
 }
\ No newline at end of file
@@ -0,0 +1,139 @@
+package src.POO.teste_final;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Fotografia das estatísticas de um jogo do estádio num dado momento: ocupação por
+ * setor e receita da bilheteira desse jogo, faturação das rolotes e rolotes abertas.
+ *
+ * Os valores são lidos de contadores mantidos à medida que as vendas acontecem
+ * (lugares livres de cada mapa de lugares, receita acumulada, faturação de cada rolote),
+ * por isso tirar uma fotografia custa O(setores + rolotes) e nunca percorre lugares
+ * nem bilhetes. Depois de criada, a fotografia não muda.
+ */
+public class EstatisticasEstadio {
+
+    // --- TIPOS ---
+
+    /**
+     * A ocupação de um setor no momento da fotografia.
+     */
+    public static final class OcupacaoSetor {
+        private final String id;
+        private final int ocupados;
+        private final int capacidade;
+
+        OcupacaoSetor(String id, int ocupados, int capacidade) {
+            this.id = id;
+            this.ocupados = ocupados;
+            this.capacidade = capacidade;
+        }
+
+        public String getId() {
+            return id;
+        }
+
+        public int getOcupados() {
+            return ocupados;
+        }
+
+        public int getCapacidade() {
+            return capacidade;
+        }
+    }
+
+    // --- ATRIBUTOS ---
+
+    private final List<OcupacaoSetor> setores;  // Ocupação de cada setor, pela ordem do estádio.
+    private final int lugaresOcupados;          // Soma dos lugares ocupados de todos os setores.
+    private final int capacidade;               // Soma das capacidades de todos os setores.
+    private final long receitaBilheteira;       // Receita dos bilhetes vendidos para o jogo, em cêntimos.
+    private final long faturacaoRolotes;        // Faturação somada das rolotes, em cêntimos.
+    private final int rolotesAbertas;           // Número de rolotes abertas.
+    private final int totalRolotes;             // Número de rolotes do estádio.
+
+    // --- CONSTRUTOR ---
+
+    /**
+     * Tira a fotografia das estatísticas do estádio para um jogo.
+     * @param estadio O estádio.
+     * @param jogo O jogo (se for null, não há lugares ocupados nem receita de bilheteira).
+     */
+    EstatisticasEstadio(Estadio estadio, Jogo jogo) {
+        List<OcupacaoSetor> ocupacao = new ArrayList<>(estadio.getSetores().size());
+        int ocupadosTotal = 0;
+        int capacidadeTotal = 0;
+        for (Setor setor : estadio.getSetores()) {
+            // Lê o contador de lugares livres do mapa do setor neste jogo: O(1).
+            int ocupados = jogo == null ? 0 : jogo.getLugaresOcupados(setor);
+            ocupacao.add(new OcupacaoSetor(setor.getId(), ocupados, setor.getCapacidade()));
+            ocupadosTotal += ocupados;
+            capacidadeTotal += setor.getCapacidade();
+        }
+
+        long faturacao = 0;
+        int abertas = 0;
+        for (Rolote rolote : estadio.getRolotes()) {
+            faturacao = Dinheiro.somar(faturacao, rolote.getFaturamentoDiario());
+            if (rolote.isAberto()) {
+                abertas++;
+            }
+        }
+
+        this.setores = Collections.unmodifiableList(ocupacao);
+        this.lugaresOcupados = ocupadosTotal;
+        this.capacidade = capacidadeTotal;
+        this.receitaBilheteira = jogo == null ? 0 : jogo.calcularReceitaBilheteira();
+        this.faturacaoRolotes = faturacao;
+        this.rolotesAbertas = abertas;
+        this.totalRolotes = estadio.getRolotes().size();
+    }
+
+    // --- GETTERS ---
+
+    public List<OcupacaoSetor> getSetores() {
+        return setores;
+    }
+
+    public int getLugaresOcupados() {
+        return lugaresOcupados;
+    }
+
+    public int getCapacidade() {
+        return capacidade;
+    }
+
+    /**
+     * Devolve a percentagem de lugares ocupados no estádio.
+     * @return A ocupação, de 0 a 100.
+     */
+    public double getPercentagemOcupacao() {
+        return capacidade == 0 ? 0 : (double) lugaresOcupados / capacidade * 100;
+    }
+
+    public long getReceitaBilheteira() {
+        return receitaBilheteira;
+    }
+
+    public long getFaturacaoRolotes() {
+        return faturacaoRolotes;
+    }
+
+    /**
+     * Devolve a receita total do evento (bilhetes e rolotes).
+     * @return A receita total, em cêntimos.
+     */
+    public long getReceitaTotal() {
+        return Dinheiro.somar(receitaBilheteira, faturacaoRolotes);
+    }
+
+    public int getRolotesAbertas() {
+        return rolotesAbertas;
+    }
+
+    public int getTotalRolotes() {
+        return totalRolotes;
+    }
+}
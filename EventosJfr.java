@@ -0,0 +1,184 @@
+package src.POO.teste_final;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Eventos do JDK Flight Recorder (JFR) das vendas e da persistência.
+ * Numa gravação (ex: java -XX:StartFlightRecording=filename=estadio.jfr ...) mostram quanto
+ * tempo demorou cada etapa de uma venda: a reserva do lugar, o pagamento, a escrita no disco.
+ *
+ * Cada evento é usado assim: criar, begin(), fazer a operação e, só se shouldCommit() for
+ * true, preencher os campos e commit(). Sem gravação ativa, shouldCommit() é false e o
+ * objeto do evento nem chega a ser criado (o JIT elimina-o), por isso o custo é quase nulo.
+ * Os eventos mais frequentes não guardam a pilha de chamadas, para não pesar na gravação.
+ */
+public final class EventosJfr {
+
+    // --- CONSTANTES ---
+
+    private static final String CATEGORIA = "Estádio";
+
+    private EventosJfr() {
+    }
+
+    // --- TIPOS ---
+
+    @Name("estadio.CompraBilhete")
+    @Label("Compra de Bilhete")
+    @Description("Pagamento e emissão do bilhete de um lugar reservado (inclui a escrita na persistência).")
+    @Category({CATEGORIA, "Vendas"})
+    @StackTrace(false)
+    static final class CompraBilhete extends Event {
+        @Label("Jogo")
+        int jogo;
+
+        @Label("Setor")
+        String setor;
+
+        @Label("Fila")
+        int fila;
+
+        @Label("Coluna")
+        int coluna;
+
+        @Label("Adepto")
+        String adepto;
+
+        @Label("Preço (cêntimos)")
+        long preco;
+
+        @Label("Vendido")
+        @Description("false se o saldo não chegou ou a reserva expirou durante o pagamento.")
+        boolean vendido;
+    }
+
+    @Name("estadio.ReservaLugar")
+    @Label("Reserva de Lugar")
+    @Description("Reserva temporária de um lugar ou de um bloco de lugares juntos.")
+    @Category({CATEGORIA, "Vendas"})
+    @StackTrace(false)
+    static final class ReservaLugar extends Event {
+        @Label("Jogo")
+        int jogo;
+
+        @Label("Setor")
+        String setor;
+
+        @Label("Fila")
+        @Description("A fila do (primeiro) lugar reservado, ou -1 se não havia bloco livre.")
+        int fila;
+
+        @Label("Coluna")
+        @Description("A coluna do (primeiro) lugar reservado, ou -1 se não havia bloco livre.")
+        int coluna;
+
+        @Label("Lugares")
+        int lugares;
+
+        @Label("Reservado")
+        boolean reservado;
+    }
+
+    @Name("estadio.EscritaPersistencia")
+    @Label("Escrita na Persistência")
+    @Description("Escrita de um registo num ficheiro de texto ou no buffer do diário de transações.")
+    @Category({CATEGORIA, "Persistência"})
+    @StackTrace(false)
+    static final class EscritaPersistencia extends Event {
+        @Label("Destino")
+        @Description("ficheiros ou diario.")
+        String destino;
+
+        @Label("Registo")
+        String registo;
+
+        @Label("Adepto")
+        String adepto;
+
+        @Label("Setor")
+        String setor;
+
+        @Label("Bytes")
+        @DataAmount(DataAmount.BYTES)
+        long bytes;
+
+        /**
+         * Preenche os campos e grava o evento. Só deve ser chamado se shouldCommit() for true.
+         * @param idAdepto O ID do adepto, ou 0 se o registo não é de um adepto.
+         * @param setor O setor do bilhete, ou null.
+         */
+        void concluir(String destino, String registo, long idAdepto, String setor, long bytes) {
+            this.destino = destino;
+            this.registo = registo;
+            this.adepto = idAdepto == 0 ? null : Adepto.formatarCodigo(idAdepto);
+            this.setor = setor;
+            this.bytes = bytes;
+            commit();
+        }
+    }
+
+    @Name("estadio.SincronizacaoDiario")
+    @Label("Sincronização do Diário")
+    @Description("Escrita dos registos pendentes do diário no disco, seguida de force.")
+    @Category({CATEGORIA, "Persistência"})
+    static final class SincronizacaoDiario extends Event {
+        @Label("Registos")
+        long registos;
+
+        @Label("Bytes")
+        @Description("Os bytes que ainda estavam no buffer (os restantes foram escritos quando o buffer encheu).")
+        @DataAmount(DataAmount.BYTES)
+        long bytes;
+    }
+
+    @Name("estadio.VendaRolote")
+    @Label("Venda na Rolote")
+    @Description("Venda de um carrinho numa rolote: reserva do stock e pagamento.")
+    @Category({CATEGORIA, "Vendas"})
+    @StackTrace(false)
+    static final class VendaRolote extends Event {
+        @Label("Rolote")
+        String rolote;
+
+        @Label("Adepto")
+        String adepto;
+
+        @Label("Produtos")
+        @Description("O número de linhas do carrinho.")
+        int produtos;
+
+        @Label("Unidades")
+        int unidades;
+
+        @Label("Total (cêntimos)")
+        long total;
+
+        @Label("Resultado")
+        String resultado;
+    }
+
+    @Name("estadio.MinutoJogo")
+    @Label("Minuto de Jogo")
+    @Description("O trabalho feito num minuto da simulação do jogo (sem a espera do relógio).")
+    @Category({CATEGORIA, "Jogo"})
+    @StackTrace(false)
+    static final class MinutoJogo extends Event {
+        @Label("Jogo")
+        int jogo;
+
+        @Label("Minuto")
+        int minuto;
+
+        @Label("Golos da Casa")
+        int golosCasa;
+
+        @Label("Golos do Visitante")
+        int golosVisitante;
+    }
+}
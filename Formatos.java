@@ -0,0 +1,60 @@
+package src.POO.teste_final;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Formatos de data e hora usados pelo sistema.
+ * Os DateTimeFormatter são imutáveis e podem ser partilhados por todas as threads, por isso
+ * são criados uma única vez aqui em vez de em cada chamada. Para escrever muitas datas
+ * seguidas (ex: recibos de bilhetes), escreverDataHora acrescenta a data a um
+ * StringBuilder sem criar objetos.
+ */
+public final class Formatos {
+
+    // --- CONSTANTES ---
+
+    public static final DateTimeFormatter DATA = DateTimeFormatter.ofPattern("dd/MM/yyyy");
+    public static final DateTimeFormatter HORA = DateTimeFormatter.ofPattern("HH:mm");
+    public static final DateTimeFormatter DATA_HORA = DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm");
+    public static final DateTimeFormatter DATA_HORA_SEGUNDOS = DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm:ss");
+    public static final DateTimeFormatter CARIMBO_FICHEIRO = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");  // Para nomes de ficheiros.
+
+    // Classe utilitária: não é instanciada.
+    private Formatos() {
+    }
+
+    // --- ESCRITA ---
+
+    /**
+     * Acrescenta uma data e hora no formato de DATA_HORA (ex: "11/12/2024 14:30"), sem criar objetos.
+     * @param destino Onde escrever.
+     * @param dataHora A data e hora (anos de 0 a 9999).
+     * @return O destino, para encadear chamadas.
+     */
+    public static StringBuilder escreverDataHora(StringBuilder destino, LocalDateTime dataHora) {
+        escreverComZeros(destino, dataHora.getDayOfMonth(), 2).append('/');
+        escreverComZeros(destino, dataHora.getMonthValue(), 2).append('/');
+        escreverComZeros(destino, dataHora.getYear(), 4).append(' ');
+        escreverComZeros(destino, dataHora.getHour(), 2).append(':');
+        return escreverComZeros(destino, dataHora.getMinute(), 2);
+    }
+
+    /**
+     * Acrescenta um número não negativo com zeros à esquerda até ter o número de dígitos indicado.
+     * @param destino Onde escrever.
+     * @param valor O número (maior ou igual a zero).
+     * @param digitos O número mínimo de dígitos.
+     * @return O destino, para encadear chamadas.
+     */
+    public static StringBuilder escreverComZeros(StringBuilder destino, long valor, int digitos) {
+        long limite = 10;
+        for (int i = 1; i < digitos; i++) {
+            if (valor < limite) {
+                destino.append('0');
+            }
+            limite *= 10;
+        }
+        return destino.append(valor);
+    }
+}
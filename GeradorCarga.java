@@ -0,0 +1,557 @@
+package src.POO.teste_final;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.stream.Stream;
+
+/**
+ * Gerador de carga: simula a abertura das portas, com muitos adeptos a comprar bilhetes
+ * e comida ao mesmo tempo, e mede o ritmo de vendas do estádio.
+ *
+ * Cria um estádio próprio com N adeptos sintéticos e algumas rolotes, e reparte as operações
+ * por várias threads (do sistema ou virtuais), que arrancam todas ao mesmo tempo. Cada operação
+ * é a compra de um lugar ao acaso (reterLugar + venderReserva, como no menu) ou de um carrinho
+ * numa rolote (finalizarCompra). No fim, o relatório mostra:
+ * - o ritmo (operações por segundo) e as latências p50, p99 e p99.9;
+ * - as violações: lugares vendidos mais do que uma vez, stock vendido a mais, carteiras
+ *   negativas ou com débitos que não correspondem às compras;
+ * - a conciliação das receitas: o que saiu das carteiras tem de ser igual à receita da
+ *   bilheteira mais a faturação das rolotes.
+ *
+ * Pode ser usado a partir do código (setters + executar()) ou da linha de comandos (ver main).
+ */
+public class GeradorCarga {
+
+    // --- CONSTANTES ---
+
+    private static final int NUMERO_ROLOTES = 5;                // O máximo do estádio.
+    private static final String[] PRODUTOS = {"Água", "Cerveja", "Bifana", "Pipocas"};
+    private static final long[] PRECOS_PRODUTOS = {150, 300, 450, 250}; // Em cêntimos.
+    private static final int MAXIMO_LINHAS_CARRINHO = 3;
+    private static final int MAXIMO_QUANTIDADE_LINHA = 2;
+
+    // --- TIPOS ---
+
+    /**
+     * O resultado de uma operação do gerador.
+     */
+    public enum Resultado {
+        BILHETE_VENDIDO,
+        LUGAR_OCUPADO,          // O lugar escolhido já estava vendido ou reservado.
+        BILHETE_SEM_SALDO,      // O adepto não tinha saldo para o bilhete.
+        RESERVA_EXPIRADA,       // A reserva expirou durante o pagamento; o valor foi devolvido.
+        COMIDA_VENDIDA,
+        COMIDA_SEM_STOCK,
+        COMIDA_SEM_SALDO,
+        FALHA_PERSISTENCIA      // A venda não ficou guardada no disco e foi desfeita.
+    }
+
+    /**
+     * Os números de uma execução do gerador.
+     */
+    public static final class Relatorio {
+        private final long operacoes;
+        private final long duracaoNanos;
+        private final long[] contagens;             // Por Resultado.ordinal().
+        private final long[] latenciasOrdenadas;    // Em nanossegundos, de todas as operações.
+        private final long lugaresVendidosAMais;    // Bilhetes repetidos para o mesmo lugar, ou lugares ocupados sem bilhete.
+        private final long stockVendidoAMais;       // Unidades vendidas sem existirem, ou stock negativo.
+        private final long carteirasInvalidas;      // Carteiras negativas ou com débitos que não batem certo com as compras.
+        private final long receitaBilheteira;
+        private final long faturacaoRolotes;
+        private final long debitadoCarteiras;       // Soma do que saiu de todas as carteiras, em cêntimos.
+
+        private Relatorio(long operacoes, long duracaoNanos, long[] contagens, long[] latenciasOrdenadas,
+                          long lugaresVendidosAMais, long stockVendidoAMais, long carteirasInvalidas,
+                          long receitaBilheteira, long faturacaoRolotes, long debitadoCarteiras) {
+            this.operacoes = operacoes;
+            this.duracaoNanos = duracaoNanos;
+            this.contagens = contagens;
+            this.latenciasOrdenadas = latenciasOrdenadas;
+            this.lugaresVendidosAMais = lugaresVendidosAMais;
+            this.stockVendidoAMais = stockVendidoAMais;
+            this.carteirasInvalidas = carteirasInvalidas;
+            this.receitaBilheteira = receitaBilheteira;
+            this.faturacaoRolotes = faturacaoRolotes;
+            this.debitadoCarteiras = debitadoCarteiras;
+        }
+
+        public long getOperacoes() {
+            return operacoes;
+        }
+
+        public long getContagem(Resultado resultado) {
+            return contagens[resultado.ordinal()];
+        }
+
+        /**
+         * @return As operações concluídas por segundo (com qualquer resultado).
+         */
+        public double getOperacoesPorSegundo() {
+            return operacoes * 1e9 / Math.max(duracaoNanos, 1);
+        }
+
+        /**
+         * Devolve a latência abaixo da qual fica uma dada fração das operações.
+         * @param fracao A fração (ex: 0.99 para o p99).
+         * @return A latência, em nanossegundos.
+         */
+        public long getLatencia(double fracao) {
+            if (latenciasOrdenadas.length == 0) {
+                return 0;
+            }
+            int indice = (int) Math.ceil(fracao * latenciasOrdenadas.length) - 1;
+            return latenciasOrdenadas[Math.max(0, Math.min(indice, latenciasOrdenadas.length - 1))];
+        }
+
+        public long getLugaresVendidosAMais() {
+            return lugaresVendidosAMais;
+        }
+
+        public long getStockVendidoAMais() {
+            return stockVendidoAMais;
+        }
+
+        public long getCarteirasInvalidas() {
+            return carteirasInvalidas;
+        }
+
+        /**
+         * @return true se o que saiu das carteiras é exatamente a receita da bilheteira mais a das rolotes.
+         */
+        public boolean isReceitaConciliada() {
+            return debitadoCarteiras == receitaBilheteira + faturacaoRolotes;
+        }
+
+        /**
+         * @return true se não houve nenhuma violação e as receitas batem certo.
+         */
+        public boolean isConsistente() {
+            return lugaresVendidosAMais == 0 && stockVendidoAMais == 0 && carteirasInvalidas == 0 && isReceitaConciliada();
+        }
+
+        /**
+         * Mostra o relatório na consola.
+         */
+        public void mostrar() {
+            System.out.println("\n=== Relatório do Gerador de Carga ===");
+            System.out.printf("Operações: %d em %d ms (%.0f operações/s)\n",
+                    operacoes, duracaoNanos / 1_000_000, getOperacoesPorSegundo());
+            System.out.printf("Latência: p50 %.1f µs | p99 %.1f µs | p99.9 %.1f µs | máx %.1f µs\n",
+                    getLatencia(0.50) / 1e3, getLatencia(0.99) / 1e3, getLatencia(0.999) / 1e3, getLatencia(1.0) / 1e3);
+            System.out.println("\nResultados:");
+            for (Resultado resultado : Resultado.values()) {
+                System.out.printf("- %-17s %d\n", resultado, getContagem(resultado));
+            }
+            System.out.println("\nViolações:");
+            System.out.println("- Lugares vendidos a mais: " + lugaresVendidosAMais);
+            System.out.println("- Stock vendido a mais: " + stockVendidoAMais);
+            System.out.println("- Carteiras inválidas: " + carteirasInvalidas);
+            System.out.println("\nConciliação das receitas:");
+            System.out.println("- Receita da bilheteira: " + Dinheiro.formatar(receitaBilheteira));
+            System.out.println("- Faturação das rolotes: " + Dinheiro.formatar(faturacaoRolotes));
+            System.out.println("- Debitado das carteiras: " + Dinheiro.formatar(debitadoCarteiras));
+            System.out.println(isConsistente() ? "Resultado: CONSISTENTE" : "Resultado: INCONSISTENTE");
+        }
+    }
+
+    /**
+     * Uma das threads do gerador: faz a sua parte das operações e guarda as suas
+     * próprias contagens e latências, para não partilhar contadores com as outras.
+     */
+    private final class Trabalhador implements Runnable {
+        private final SplittableRandom random;
+        private final CountDownLatch partida;
+        private final long[] latencias;
+        private final long[] contagens = new long[Resultado.values().length];
+
+        Trabalhador(SplittableRandom random, CountDownLatch partida, int operacoes) {
+            this.random = random;
+            this.partida = partida;
+            this.latencias = new long[operacoes];
+        }
+
+        @Override
+        public void run() {
+            try {
+                partida.await(); // Todos arrancam ao mesmo tempo, como na abertura das portas
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            for (int i = 0; i < latencias.length; i++) {
+                int indiceAdepto = random.nextInt(adeptos.length);
+                boolean comida = random.nextDouble() < proporcaoComida;
+                long inicio = System.nanoTime();
+                Resultado resultado;
+                try {
+                    resultado = comida ? comprarComida(indiceAdepto) : comprarLugar(indiceAdepto);
+                } catch (UncheckedIOException e) {
+                    resultado = Resultado.FALHA_PERSISTENCIA;
+                }
+                latencias[i] = System.nanoTime() - inicio;
+                contagens[resultado.ordinal()]++;
+            }
+        }
+
+        private Resultado comprarLugar(int indiceAdepto) {
+            Setor setor = setores.get(random.nextInt(setores.size()));
+            int lugar = random.nextInt(setor.getCapacidade());
+            Reserva reserva = estadio.reterLugar(jogo, setor, lugar / setor.getColunas(), lugar % setor.getColunas());
+            if (reserva == null) {
+                return Resultado.LUGAR_OCUPADO;
+            }
+            switch (estadio.venderReserva(adeptos[indiceAdepto], reserva).getResultado()) {
+                case VENDIDO:
+                    return Resultado.BILHETE_VENDIDO;
+                case SALDO_INSUFICIENTE:
+                    return Resultado.BILHETE_SEM_SALDO;
+                default:
+                    return Resultado.RESERVA_EXPIRADA;
+            }
+        }
+
+        private Resultado comprarComida(int indiceAdepto) {
+            int indiceRolote = random.nextInt(rolotes.length);
+            Rolote rolote = rolotes[indiceRolote];
+            Map<Produto, Integer> carrinho = new HashMap<>();
+            int linhas = 1 + random.nextInt(MAXIMO_LINHAS_CARRINHO);
+            for (int i = 0; i < linhas; i++) {
+                Produto produto = rolote.getProdutos().get(random.nextInt(PRODUTOS.length));
+                carrinho.merge(produto, 1 + random.nextInt(MAXIMO_QUANTIDADE_LINHA), Integer::sum);
+            }
+
+            long total = rolote.calcularTotal(carrinho);
+            Adepto adepto = adeptos[indiceAdepto];
+            switch (estadio.finalizarCompraComida(adepto, rolote, carrinho)) {
+                case CONCLUIDA:
+                    gastoComida.addAndGet(indiceAdepto, total);
+                    for (Map.Entry<Produto, Integer> linha : carrinho.entrySet()) {
+                        unidadesVendidas.addAndGet(indiceRolote * PRODUTOS.length + linha.getKey().getId(), linha.getValue());
+                    }
+                    return Resultado.COMIDA_VENDIDA;
+                case STOCK_INSUFICIENTE:
+                    return Resultado.COMIDA_SEM_STOCK;
+                default:
+                    return Resultado.COMIDA_SEM_SALDO;
+            }
+        }
+    }
+
+    // --- ATRIBUTOS ---
+
+    // Configuração (com valores por omissão)
+    private int numeroAdeptos = 50_000;
+    private long operacoes = 1_000_000;
+    private int threads = Runtime.getRuntime().availableProcessors();
+    private boolean threadsVirtuais = false;
+    private double proporcaoComida = 0.3;               // Fração das operações que são compras de comida.
+    private int filasPorSetor = 100;
+    private int colunasPorSetor = 100;
+    private long carteiraAdepto = Dinheiro.deEuros(100);
+    private int stockPorProduto = 20_000;
+    private long semente = 42;
+    private Persistencia persistencia = Persistencia.NENHUMA;
+
+    // Estado de uma execução
+    private Estadio estadio;
+    private Jogo jogo;
+    private List<Setor> setores;
+    private Adepto[] adeptos;
+    private Rolote[] rolotes;
+    private AtomicLongArray gastoComida;        // Por adepto, em cêntimos.
+    private AtomicLongArray unidadesVendidas;   // Por produto (rolote * PRODUTOS.length + produto).
+
+    // --- SETTERS ---
+
+    public void setNumeroAdeptos(int numeroAdeptos) {
+        this.numeroAdeptos = exigirPositivo(numeroAdeptos, "número de adeptos");
+    }
+
+    public void setOperacoes(long operacoes) {
+        this.operacoes = exigirPositivo(operacoes, "número de operações");
+    }
+
+    /**
+     * Define quantas threads fazem operações ao mesmo tempo.
+     * @param threads O número de threads (maior que zero).
+     * @param virtuais true para usar virtual threads em vez de threads do sistema.
+     */
+    public void setThreads(int threads, boolean virtuais) {
+        this.threads = exigirPositivo(threads, "número de threads");
+        this.threadsVirtuais = virtuais;
+    }
+
+    public void setProporcaoComida(double proporcaoComida) {
+        if (!(proporcaoComida >= 0 && proporcaoComida <= 1)) {
+            throw new IllegalArgumentException("A proporção de comida deve estar entre 0 e 1.");
+        }
+        this.proporcaoComida = proporcaoComida;
+    }
+
+    public void setLugaresPorSetor(int filas, int colunas) {
+        this.filasPorSetor = exigirPositivo(filas, "número de filas");
+        this.colunasPorSetor = exigirPositivo(colunas, "número de colunas");
+    }
+
+    public void setCarteiraAdepto(long carteiraAdepto) {
+        this.carteiraAdepto = exigirPositivo(carteiraAdepto, "valor da carteira");
+    }
+
+    public void setStockPorProduto(int stockPorProduto) {
+        this.stockPorProduto = exigirPositivo(stockPorProduto, "stock por produto");
+    }
+
+    public void setSemente(long semente) {
+        this.semente = semente;
+    }
+
+    /**
+     * Define onde são guardadas as vendas durante a carga (por omissão, em lado nenhum).
+     * @param persistencia A persistência; é fechada no fim da execução.
+     */
+    public void setPersistencia(Persistencia persistencia) {
+        this.persistencia = persistencia;
+    }
+
+    // --- EXECUÇÃO ---
+
+    /**
+     * Prepara o estádio, executa a carga e verifica o estado final.
+     * @return O relatório da execução.
+     * @throws InterruptedException Se a thread for interrompida enquanto espera pelas outras.
+     */
+    public Relatorio executar() throws InterruptedException {
+        try {
+            preparar();
+
+            // Reparte as operações pelas threads; as primeiras ficam com o resto da divisão.
+            SplittableRandom random = new SplittableRandom(semente);
+            CountDownLatch partida = new CountDownLatch(1);
+            List<Trabalhador> trabalhadores = new ArrayList<>(threads);
+            for (int i = 0; i < threads; i++) {
+                long parte = operacoes / threads + (i < operacoes % threads ? 1 : 0);
+                trabalhadores.add(new Trabalhador(random.split(), partida, Math.toIntExact(parte)));
+            }
+
+            ExecutorService executor = threadsVirtuais
+                    ? Executors.newVirtualThreadPerTaskExecutor()
+                    : Executors.newFixedThreadPool(threads);
+            for (Trabalhador trabalhador : trabalhadores) {
+                executor.execute(trabalhador);
+            }
+            long inicio = System.nanoTime();
+            partida.countDown();
+            executor.shutdown();
+            executor.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+            long duracao = System.nanoTime() - inicio;
+
+            persistencia.fechar();
+            return verificar(trabalhadores, duracao);
+        } finally {
+            if (estadio != null) {
+                estadio.fechar();
+            }
+        }
+    }
+
+    // Cria o estádio, o jogo, os adeptos e as rolotes da carga.
+    private void preparar() {
+        estadio = new Estadio("Estádio de Carga", "-", filasPorSetor, colunasPorSetor);
+        estadio.setPersistencia(persistencia);
+        Equipa casa = new Equipa("Casa", "-", 1900, "-");
+        casa.adicionarJogador("Jogador da Casa");
+        Equipa visitante = new Equipa("Visitante", "-", 1900, "-");
+        visitante.adicionarJogador("Jogador Visitante");
+        jogo = estadio.criarJogo(casa, visitante, LocalDateTime.now(), "-");
+        setores = estadio.getSetores();
+
+        adeptos = new Adepto[numeroAdeptos];
+        for (int i = 0; i < numeroAdeptos; i++) {
+            adeptos[i] = estadio.criarNovoAdepto("Adepto " + (i + 1), 30, String.format("%08d", i), "-", carteiraAdepto);
+        }
+
+        rolotes = new Rolote[NUMERO_ROLOTES];
+        for (int r = 0; r < NUMERO_ROLOTES; r++) {
+            rolotes[r] = new Rolote(r + 1, "Rolote " + (r + 1));
+            for (int p = 0; p < PRODUTOS.length; p++) {
+                rolotes[r].adicionaProduto(new Produto(p, PRODUTOS[p], PRECOS_PRODUTOS[p], stockPorProduto));
+            }
+            rolotes[r].abrirRolote();
+            estadio.adicionarRolote(rolotes[r]);
+        }
+
+        gastoComida = new AtomicLongArray(numeroAdeptos);
+        unidadesVendidas = new AtomicLongArray(NUMERO_ROLOTES * PRODUTOS.length);
+    }
+
+    // Junta os números das threads e confronta o estado final do estádio com as vendas feitas.
+    private Relatorio verificar(List<Trabalhador> trabalhadores, long duracao) {
+        long[] contagens = new long[Resultado.values().length];
+        long[] latencias = new long[Math.toIntExact(operacoes)];
+        int posicao = 0;
+        for (Trabalhador trabalhador : trabalhadores) {
+            for (int i = 0; i < contagens.length; i++) {
+                contagens[i] += trabalhador.contagens[i];
+            }
+            System.arraycopy(trabalhador.latencias, 0, latencias, posicao, trabalhador.latencias.length);
+            posicao += trabalhador.latencias.length;
+        }
+        Arrays.sort(latencias);
+
+        // Lugares: cada lugar no máximo um bilhete, e cada lugar ocupado tem o seu bilhete.
+        Set<Long> lugaresVendidos = new HashSet<>();
+        long bilhetes = 0;
+        long receitaBilhetes = 0;
+        long carteirasInvalidas = 0;
+        long debitado = 0;
+        for (int i = 0; i < adeptos.length; i++) {
+            Adepto adepto = adeptos[i];
+            long gastoBilhetes = 0;
+            for (Bilhete bilhete : adepto.getBilhetes()) {
+                lugaresVendidos.add(bilhete.getId());
+                gastoBilhetes += bilhete.getPreco();
+                bilhetes++;
+            }
+            receitaBilhetes += gastoBilhetes;
+            long debitoAdepto = adepto.getCarteiraInicial() - adepto.getCarteira();
+            debitado += debitoAdepto;
+            if (adepto.getCarteira() < 0 || debitoAdepto != gastoBilhetes + gastoComida.get(i)) {
+                carteirasInvalidas++;
+            }
+        }
+        long lugaresOcupados = 0;
+        for (Setor setor : setores) {
+            lugaresOcupados += jogo.getLugaresOcupados(setor);
+        }
+        long lugaresVendidosAMais = (bilhetes - lugaresVendidos.size()) + Math.abs(lugaresOcupados - lugaresVendidos.size());
+        if (receitaBilhetes != estadio.getReceitaBilheteira()) {
+            carteirasInvalidas++; // Bilhetes pagos que não entraram na receita (ou o contrário)
+        }
+
+        // Stock: o que saiu de cada produto é o que foi vendido, e nunca mais do que havia.
+        long stockVendidoAMais = 0;
+        long faturacaoRolotes = 0;
+        for (int r = 0; r < rolotes.length; r++) {
+            faturacaoRolotes += rolotes[r].getFaturamentoDiario();
+            for (Produto produto : rolotes[r].getProdutos()) {
+                long vendidas = unidadesVendidas.get(r * PRODUTOS.length + produto.getId());
+                long saida = stockPorProduto - produto.getQuantidadeStock();
+                if (produto.getQuantidadeStock() < 0 || saida != vendidas) {
+                    stockVendidoAMais += Math.max(Math.abs(saida - vendidas), 1);
+                }
+            }
+        }
+
+        return new Relatorio(operacoes, duracao, contagens, latencias, lugaresVendidosAMais, stockVendidoAMais,
+                carteirasInvalidas, estadio.getReceitaBilheteira(), faturacaoRolotes, debitado);
+    }
+
+    // --- LINHA DE COMANDOS ---
+
+    /**
+     * Executa o gerador a partir da linha de comandos.
+     * @param args Opções (todas opcionais):
+     *             --adeptos=N        adeptos sintéticos (50000)
+     *             --operacoes=N      operações no total (1000000)
+     *             --threads=N        threads em simultâneo (uma por processador)
+     *             --virtuais         usa virtual threads
+     *             --comida=F         fração das operações que são compras de comida (0.3)
+     *             --lugares=FxC      filas e colunas de cada setor (100x100)
+     *             --carteira=E       euros na carteira de cada adepto (100)
+     *             --stock=N          stock inicial de cada produto de cada rolote (20000)
+     *             --semente=N        semente das escolhas aleatórias (42)
+     *             --persistencia=X   memoria (por omissão), diario ou assincrono
+     *                                (diário numa pasta temporária, apagada no fim)
+     */
+    public static void main(String[] args) throws InterruptedException, IOException {
+        GeradorCarga gerador = new GeradorCarga();
+        Path diretorioDiario = null;
+        int threads = gerador.threads;
+        boolean virtuais = false;
+        for (String opcao : args) {
+            int igual = opcao.indexOf('=');
+            String nome = igual < 0 ? opcao : opcao.substring(0, igual);
+            String valor = igual < 0 ? "" : opcao.substring(igual + 1);
+            switch (nome) {
+                case "--adeptos" -> gerador.setNumeroAdeptos(Integer.parseInt(valor));
+                case "--operacoes" -> gerador.setOperacoes(Long.parseLong(valor));
+                case "--threads" -> threads = Integer.parseInt(valor);
+                case "--virtuais" -> virtuais = true;
+                case "--comida" -> gerador.setProporcaoComida(Double.parseDouble(valor));
+                case "--lugares" -> {
+                    String[] dimensoes = valor.split("x");
+                    gerador.setLugaresPorSetor(Integer.parseInt(dimensoes[0]), Integer.parseInt(dimensoes[1]));
+                }
+                case "--carteira" -> gerador.setCarteiraAdepto(Dinheiro.deEuros(Double.parseDouble(valor)));
+                case "--stock" -> gerador.setStockPorProduto(Integer.parseInt(valor));
+                case "--semente" -> gerador.setSemente(Long.parseLong(valor));
+                case "--persistencia" -> {
+                    switch (valor) {
+                        case "memoria" -> gerador.setPersistencia(Persistencia.NENHUMA);
+                        case "diario" -> {
+                            diretorioDiario = Files.createTempDirectory("carga-diario");
+                            gerador.setPersistencia(new DiarioTransacoes(diretorioDiario, Duration.ofMillis(10)));
+                        }
+                        case "assincrono" -> {
+                            diretorioDiario = Files.createTempDirectory("carga-diario");
+                            gerador.setPersistencia(new PersistenciaAssincrona(new DiarioTransacoes(diretorioDiario, null),
+                                    PersistenciaAssincrona.ModoDurabilidade.SEM_ESPERA, 8192, 512));
+                        }
+                        default -> throw new IllegalArgumentException("Persistência desconhecida: '" + valor
+                                + "' (use memoria, diario ou assincrono).");
+                    }
+                }
+                default -> throw new IllegalArgumentException("Opção desconhecida: " + opcao);
+            }
+        }
+        gerador.setThreads(threads, virtuais);
+
+        System.out.printf("A gerar %d operações com %d adeptos em %d thread(s)%s...\n",
+                gerador.operacoes, gerador.numeroAdeptos, threads, virtuais ? " virtuais" : "");
+        Relatorio relatorio = gerador.executar();
+        relatorio.mostrar();
+
+        if (diretorioDiario != null) {
+            try (Stream<Path> caminhos = Files.walk(diretorioDiario)) {
+                for (Path caminho : caminhos.sorted(Comparator.reverseOrder()).toList()) {
+                    Files.delete(caminho);
+                }
+            }
+        }
+    }
+
+    // --- MÉTODOS AUXILIARES ---
+
+    private static int exigirPositivo(int valor, String descricao) {
+        if (valor <= 0) {
+            throw new IllegalArgumentException("O " + descricao + " deve ser maior que zero.");
+        }
+        return valor;
+    }
+
+    private static long exigirPositivo(long valor, String descricao) {
+        if (valor <= 0) {
+            throw new IllegalArgumentException("O " + descricao + " deve ser maior que zero.");
+        }
+        return valor;
+    }
+}
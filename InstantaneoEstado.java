@@ -0,0 +1,560 @@
+package src.POO.teste_final;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Instantâneo (snapshot) do estado persistido do estádio: adeptos e carteiras,
+ * bilhetes vendidos, rolotes com stock e faturação e o calendário de jogos (com o
+ * resultado dos que já terminaram).
+ *
+ * O instantâneo é construído apenas a partir dos registos do diário de transações,
+ * aplicados pela ordem em que foram escritos, e guarda a sequência do último
+ * registo aplicado. Assim, para recuperar o estádio basta carregar o instantâneo e
+ * aplicar os registos do diário com sequência superior, sem reler o histórico todo.
+ */
+public class InstantaneoEstado {
+
+    // --- CONSTANTES ---
+
+    private static final int MAGIA = 0x45534E50;   // "ESNP"
+    private static final short VERSAO = 4;
+    private static final short VERSAO_SEM_JOGOS = 3;  // Ainda é lida: não tem o calendário.
+
+    // --- ESTRUTURAS GUARDADAS ---
+
+    private static final class AdeptoGuardado {
+        long id;
+        String nome, documento, endereco;
+        int idade;
+        long carteiraInicial, carteira;         // Em cêntimos.
+        final Map<Long, BilheteGuardado> bilhetes = new LinkedHashMap<>();
+    }
+
+    private static final class BilheteGuardado {
+        long id;                    // Já inclui o jogo, o setor, a fila e a coluna.
+        long preco;                 // Em cêntimos.
+        long dataSegundos;
+        int dataNanos;
+    }
+
+    private static final class RoloteGuardada {
+        int id;
+        String nome;
+        boolean aberto;
+        long faturamento;           // Em cêntimos.
+        final List<ProdutoGuardado> produtos = new ArrayList<>();
+    }
+
+    private static final class JogoGuardado {
+        int numero;
+        boolean criado;             // false se só se conhece o resultado (jogo criado antes de haver diário).
+        EquipaGuardada casa, visitante;
+        long dataSegundos;
+        int dataNanos;
+        String arbitro;
+        boolean terminado;
+        int golosCasa, golosVisitante;
+    }
+
+    private static final class EquipaGuardada {
+        String nome, cidade, treinador;
+        int fundacao;
+        final List<String> plantel = new ArrayList<>();
+    }
+
+    private static final class ProdutoGuardado {
+        int id, stock;
+        String nome;
+        long preco;                 // Em cêntimos.
+    }
+
+    // --- ATRIBUTOS ---
+
+    private final Map<Long, AdeptoGuardado> adeptos = new LinkedHashMap<>();
+    private final Map<Integer, RoloteGuardada> rolotes = new LinkedHashMap<>();
+    private final Map<Integer, JogoGuardado> jogos = new TreeMap<>();   // Pelo número, que é a ordem de criação.
+    private long ultimaSequencia;       // Sequência do último registo do diário já aplicado.
+
+    // --- GETTERS ---
+
+    public long getUltimaSequencia() {
+        return ultimaSequencia;
+    }
+
+    public int getNumeroAdeptos() {
+        return adeptos.size();
+    }
+
+    // --- APLICAÇÃO DE REGISTOS ---
+
+    /**
+     * Aplica um registo do diário ao instantâneo.
+     * Registos com sequência já coberta pelo instantâneo são ignorados, por isso é
+     * seguro voltar a aplicar um segmento do diário que já tinha sido incluído.
+     *
+     * @param sequencia A sequência do registo.
+     * @param tipo O tipo do registo (DiarioTransacoes.TIPO_*).
+     * @param dados O conteúdo do registo.
+     * @throws IOException Se o registo estiver mal formado ou for de um tipo desconhecido.
+     */
+    public void aplicar(long sequencia, byte tipo, DataInputStream dados) throws IOException {
+        if (sequencia <= ultimaSequencia) {
+            return;
+        }
+        switch (tipo) {
+            case DiarioTransacoes.TIPO_ADEPTO -> {
+                AdeptoGuardado adepto = new AdeptoGuardado();
+                adepto.id = dados.readLong();
+                adepto.nome = dados.readUTF();
+                adepto.idade = dados.readInt();
+                adepto.documento = dados.readUTF();
+                adepto.endereco = dados.readUTF();
+                adepto.carteiraInicial = dados.readLong();
+                adepto.carteira = adepto.carteiraInicial;
+                adeptos.put(adepto.id, adepto);
+            }
+            case DiarioTransacoes.TIPO_BILHETE -> {
+                AdeptoGuardado adepto = procurarAdepto(dados.readLong());
+                BilheteGuardado bilhete = lerBilhete(dados);
+                adepto.bilhetes.put(bilhete.id, bilhete);
+                adepto.carteira -= bilhete.preco;
+            }
+            case DiarioTransacoes.TIPO_ANULACAO_BILHETE -> {
+                AdeptoGuardado adepto = procurarAdepto(dados.readLong());
+                BilheteGuardado bilhete = adepto.bilhetes.remove(dados.readLong());
+                if (bilhete != null) {
+                    adepto.carteira += bilhete.preco;
+                }
+            }
+            case DiarioTransacoes.TIPO_ROLOTE -> {
+                RoloteGuardada rolote = lerRolote(dados);
+                rolotes.put(rolote.id, rolote);
+            }
+            case DiarioTransacoes.TIPO_COMPRA_COMIDA -> {
+                AdeptoGuardado adepto = procurarAdepto(dados.readLong());
+                RoloteGuardada rolote = rolotes.get(dados.readInt());
+                if (rolote == null) {
+                    throw new IOException("Compra de comida numa rolote desconhecida (registo " + sequencia + ").");
+                }
+                int linhas = dados.readInt();
+                for (int i = 0; i < linhas; i++) {
+                    int idProduto = dados.readInt();
+                    int quantidade = dados.readInt();
+                    for (ProdutoGuardado produto : rolote.produtos) {
+                        if (produto.id == idProduto) {
+                            produto.stock -= quantidade;
+                            rolote.faturamento += Dinheiro.multiplicar(produto.preco, quantidade);
+                            break;
+                        }
+                    }
+                }
+                adepto.carteira -= dados.readLong();
+            }
+            case DiarioTransacoes.TIPO_JOGO -> lerCriacaoJogo(dados, procurarOuCriarJogo(dados.readInt()));
+            case DiarioTransacoes.TIPO_FIM_JOGO -> lerResultado(dados, procurarOuCriarJogo(dados.readInt()));
+            default -> throw new IOException("Tipo de registo desconhecido: " + tipo + " (registo " + sequencia + ").");
+        }
+        ultimaSequencia = sequencia;
+    }
+
+    // --- RESTAURO ---
+
+    /**
+     * Reconstrói o estádio a partir do instantâneo: o calendário (antes dos bilhetes, para que
+     * cada bilhete encontre o seu jogo), adeptos com as suas carteiras, bilhetes (e a ocupação
+     * dos respetivos lugares) e rolotes com stock e faturação.
+     * O estádio deve ter os setores e os jogos criados fora do diário (ex: o jogo base do
+     * Main) já criados, e ainda nenhum adepto. Nada do que é restaurado volta a ser guardado
+     * (os métodos de restauro do estádio não escrevem), mas as compras seguintes dos adeptos são.
+     *
+     * @param estadio O estádio a reconstruir.
+     */
+    public void restaurarEm(Estadio estadio) {
+        for (JogoGuardado guardado : jogos.values()) {
+            restaurarJogo(estadio, guardado);
+        }
+
+        for (RoloteGuardada guardada : rolotes.values()) {
+            Rolote rolote = new Rolote(guardada.id, guardada.nome);
+            for (ProdutoGuardado produto : guardada.produtos) {
+                rolote.adicionaProduto(new Produto(produto.id, produto.nome, produto.preco, produto.stock));
+            }
+            rolote.restaurarEstado(guardada.aberto, guardada.faturamento);
+            estadio.restaurarRolote(rolote);
+        }
+
+        for (AdeptoGuardado guardado : adeptos.values()) {
+            Adepto adepto = new Adepto(guardado.id, guardado.nome, guardado.idade, guardado.documento,
+                    guardado.endereco, guardado.carteiraInicial, Persistencia.NENHUMA);
+            adepto.restaurarCarteira(guardado.carteira);
+            estadio.restaurarAdepto(adepto);
+
+            for (BilheteGuardado guardadoBilhete : guardado.bilhetes.values()) {
+                int indiceSetor = Bilhete.setorDe(guardadoBilhete.id);
+                if (indiceSetor >= estadio.getSetores().size()) {
+                    System.err.println("ERRO: O bilhete " + guardadoBilhete.id + " refere um setor inexistente.");
+                    continue;
+                }
+                Setor setor = estadio.getSetores().get(indiceSetor);
+                LocalDateTime dataCompra = LocalDateTime.ofEpochSecond(
+                        guardadoBilhete.dataSegundos, guardadoBilhete.dataNanos, ZoneOffset.UTC);
+                Bilhete bilhete = new Bilhete(guardadoBilhete.id, setor, guardadoBilhete.preco, dataCompra);
+                Jogo jogo = estadio.procurarJogo(bilhete.getNumeroJogo());
+                if (jogo != null) {
+                    jogo.getMapa(setor).ocuparLugar(bilhete.getFila(), bilhete.getColuna());
+                } else {
+                    // O bilhete foi pago: fica com o adepto, mas o jogo já não existe no calendário.
+                    System.err.println("ERRO: O bilhete " + bilhete.getCodigo() + " refere um jogo inexistente.");
+                }
+                adepto.restaurarBilhete(bilhete);
+                estadio.adicionarBilheteVendido(bilhete);
+            }
+        }
+    }
+
+    // Cria o jogo no calendário (se ainda não existir) e repõe o resultado, se já tinha terminado.
+    private static void restaurarJogo(Estadio estadio, JogoGuardado guardado) {
+        Jogo jogo = estadio.procurarJogo(guardado.numero);
+        if (jogo == null) {
+            if (!guardado.criado) {
+                System.err.println("ERRO: O jogo " + guardado.numero + " terminou, mas não existe no calendário.");
+                return;
+            }
+            jogo = estadio.restaurarJogo(guardado.numero, criarEquipa(guardado.casa), criarEquipa(guardado.visitante),
+                    LocalDateTime.ofEpochSecond(guardado.dataSegundos, guardado.dataNanos, ZoneOffset.UTC), guardado.arbitro);
+            if (jogo == null) {
+                System.err.println("ERRO: O jogo " + guardado.numero + " não pode ser restaurado fora de ordem no calendário.");
+                return;
+            }
+        }
+        if (guardado.terminado) {
+            jogo.restaurarResultado(guardado.golosCasa, guardado.golosVisitante);
+        }
+    }
+
+    private static Equipa criarEquipa(EquipaGuardada guardada) {
+        Equipa equipa = new Equipa(guardada.nome, guardada.cidade, guardada.fundacao, guardada.treinador);
+        for (String jogador : guardada.plantel) {
+            equipa.adicionarJogador(jogador);
+        }
+        return equipa;
+    }
+
+    // --- LEITURA E ESCRITA DO FICHEIRO ---
+
+    /**
+     * Grava o instantâneo de forma atómica: escreve um ficheiro temporário, força-o
+     * para o disco e só depois o coloca no lugar do anterior.
+     * @param ficheiro O caminho do instantâneo.
+     * @throws IOException Se a escrita falhar (o instantâneo anterior fica intacto).
+     */
+    public void guardar(Path ficheiro) throws IOException {
+        Path temporario = ficheiro.resolveSibling(ficheiro.getFileName() + ".tmp");
+        CRC32 crc = new CRC32();
+        try (OutputStream saidaFicheiro = Files.newOutputStream(temporario,
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE, StandardOpenOption.SYNC);
+             DataOutputStream saida = new DataOutputStream(new BufferedOutputStream(new CheckedOutputStream(saidaFicheiro, crc), 64 * 1024))) {
+            saida.writeInt(MAGIA);
+            saida.writeShort(VERSAO);
+            saida.writeLong(ultimaSequencia);
+
+            saida.writeInt(adeptos.size());
+            for (AdeptoGuardado adepto : adeptos.values()) {
+                saida.writeLong(adepto.id);
+                saida.writeUTF(adepto.nome);
+                saida.writeInt(adepto.idade);
+                saida.writeUTF(adepto.documento);
+                saida.writeUTF(adepto.endereco);
+                saida.writeLong(adepto.carteiraInicial);
+                saida.writeLong(adepto.carteira);
+                saida.writeInt(adepto.bilhetes.size());
+                for (BilheteGuardado bilhete : adepto.bilhetes.values()) {
+                    escreverBilhete(saida, bilhete);
+                }
+            }
+
+            saida.writeInt(rolotes.size());
+            for (RoloteGuardada rolote : rolotes.values()) {
+                escreverRolote(saida, rolote);
+            }
+
+            saida.writeInt(jogos.size());
+            for (JogoGuardado jogo : jogos.values()) {
+                saida.writeInt(jogo.numero);
+                saida.writeBoolean(jogo.criado);
+                if (jogo.criado) {
+                    escreverCriacaoJogo(saida, jogo);
+                }
+                saida.writeBoolean(jogo.terminado);
+                saida.writeInt(jogo.golosCasa);
+                saida.writeInt(jogo.golosVisitante);
+            }
+
+            saida.flush();
+            // O CRC cobre tudo o que foi escrito até aqui; é escrito diretamente no ficheiro.
+            new DataOutputStream(saidaFicheiro).writeInt((int) crc.getValue());
+        }
+        Files.move(temporario, ficheiro, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Carrega um instantâneo gravado com guardar().
+     * @param ficheiro O caminho do instantâneo.
+     * @return O instantâneo carregado.
+     * @throws IOException Se o ficheiro não existir, estiver incompleto ou corrompido.
+     */
+    public static InstantaneoEstado carregar(Path ficheiro) throws IOException {
+        InstantaneoEstado estado = new InstantaneoEstado();
+        CRC32 crc = new CRC32();
+        try (BufferedInputStream entradaFicheiro = new BufferedInputStream(Files.newInputStream(ficheiro), 64 * 1024)) {
+            DataInputStream entrada = new DataInputStream(new CheckedInputStream(entradaFicheiro, crc));
+            if (entrada.readInt() != MAGIA) {
+                throw new IOException("O ficheiro " + ficheiro + " não é um instantâneo do estádio.");
+            }
+            short versao = entrada.readShort();
+            if (versao != VERSAO && versao != VERSAO_SEM_JOGOS) {
+                throw new IOException("Versão do instantâneo não suportada: " + versao);
+            }
+            long ultimaSequencia = entrada.readLong();
+
+            int numeroAdeptos = entrada.readInt();
+            for (int i = 0; i < numeroAdeptos; i++) {
+                AdeptoGuardado adepto = new AdeptoGuardado();
+                adepto.id = entrada.readLong();
+                adepto.nome = entrada.readUTF();
+                adepto.idade = entrada.readInt();
+                adepto.documento = entrada.readUTF();
+                adepto.endereco = entrada.readUTF();
+                adepto.carteiraInicial = entrada.readLong();
+                adepto.carteira = entrada.readLong();
+                int numeroBilhetes = entrada.readInt();
+                for (int j = 0; j < numeroBilhetes; j++) {
+                    BilheteGuardado bilhete = lerBilhete(entrada);
+                    adepto.bilhetes.put(bilhete.id, bilhete);
+                }
+                estado.adeptos.put(adepto.id, adepto);
+            }
+
+            int numeroRolotes = entrada.readInt();
+            for (int i = 0; i < numeroRolotes; i++) {
+                RoloteGuardada rolote = lerRolote(entrada);
+                estado.rolotes.put(rolote.id, rolote);
+            }
+
+            if (versao != VERSAO_SEM_JOGOS) {
+                int numeroJogos = entrada.readInt();
+                for (int i = 0; i < numeroJogos; i++) {
+                    JogoGuardado jogo = new JogoGuardado();
+                    jogo.numero = entrada.readInt();
+                    jogo.criado = entrada.readBoolean();
+                    if (jogo.criado) {
+                        lerCriacaoJogo(entrada, jogo);
+                    }
+                    jogo.terminado = entrada.readBoolean();
+                    jogo.golosCasa = entrada.readInt();
+                    jogo.golosVisitante = entrada.readInt();
+                    estado.jogos.put(jogo.numero, jogo);
+                }
+            }
+
+            int crcCalculado = (int) crc.getValue();
+            int crcGuardado = new DataInputStream(entradaFicheiro).readInt();
+            if (crcCalculado != crcGuardado) {
+                throw new IOException("O instantâneo " + ficheiro + " está corrompido.");
+            }
+            estado.ultimaSequencia = ultimaSequencia;
+        }
+        return estado;
+    }
+
+    // --- FORMATO DOS REGISTOS (partilhado com o DiarioTransacoes) ---
+
+    static void escreverBilhete(DataOutputStream saida, Bilhete bilhete) throws IOException {
+        BilheteGuardado guardado = new BilheteGuardado();
+        guardado.id = bilhete.getId();
+        guardado.preco = bilhete.getPreco();
+        guardado.dataSegundos = bilhete.getDataCompra().toEpochSecond(ZoneOffset.UTC);
+        guardado.dataNanos = bilhete.getDataCompra().getNano();
+        escreverBilhete(saida, guardado);
+    }
+
+    static void escreverRolote(DataOutputStream saida, Rolote rolote) throws IOException {
+        RoloteGuardada guardada = new RoloteGuardada();
+        guardada.id = rolote.getId();
+        guardada.nome = rolote.getNome();
+        guardada.aberto = rolote.isAberto();
+        guardada.faturamento = rolote.getFaturamentoDiario();
+        for (Produto produto : rolote.getProdutos()) {
+            ProdutoGuardado guardado = new ProdutoGuardado();
+            guardado.id = produto.getId();
+            guardado.nome = produto.getNome();
+            guardado.preco = produto.getPreco();
+            guardado.stock = produto.getQuantidadeStock();
+            guardada.produtos.add(guardado);
+        }
+        escreverRolote(saida, guardada);
+    }
+
+    static void escreverJogo(DataOutputStream saida, Jogo jogo) throws IOException {
+        JogoGuardado guardado = new JogoGuardado();
+        guardado.numero = jogo.getNumero();
+        guardado.casa = guardarEquipa(jogo.getEquipaCasa());
+        guardado.visitante = guardarEquipa(jogo.getEquipaVisitante());
+        guardado.dataSegundos = jogo.getDataHora().toEpochSecond(ZoneOffset.UTC);
+        guardado.dataNanos = jogo.getDataHora().getNano();
+        guardado.arbitro = jogo.getArbitro();
+        saida.writeInt(guardado.numero);
+        escreverCriacaoJogo(saida, guardado);
+    }
+
+    static void escreverResultado(DataOutputStream saida, Jogo jogo) throws IOException {
+        saida.writeInt(jogo.getNumero());
+        saida.writeInt(jogo.getGolosCasa());
+        saida.writeInt(jogo.getGolosVisitante());
+    }
+
+    // O número do jogo já foi lido.
+    private static void lerResultado(DataInputStream entrada, JogoGuardado jogo) throws IOException {
+        jogo.golosCasa = entrada.readInt();
+        jogo.golosVisitante = entrada.readInt();
+        jogo.terminado = true;
+    }
+
+    private static void escreverCriacaoJogo(DataOutputStream saida, JogoGuardado jogo) throws IOException {
+        saida.writeLong(jogo.dataSegundos);
+        saida.writeInt(jogo.dataNanos);
+        saida.writeUTF(jogo.arbitro);
+        escreverEquipa(saida, jogo.casa);
+        escreverEquipa(saida, jogo.visitante);
+    }
+
+    // O número do jogo já foi lido.
+    private static void lerCriacaoJogo(DataInputStream entrada, JogoGuardado jogo) throws IOException {
+        jogo.criado = true;
+        jogo.dataSegundos = entrada.readLong();
+        jogo.dataNanos = entrada.readInt();
+        jogo.arbitro = entrada.readUTF();
+        jogo.casa = lerEquipa(entrada);
+        jogo.visitante = lerEquipa(entrada);
+    }
+
+    private static EquipaGuardada guardarEquipa(Equipa equipa) {
+        EquipaGuardada guardada = new EquipaGuardada();
+        guardada.nome = equipa.getNome();
+        guardada.cidade = equipa.getCidade();
+        guardada.fundacao = equipa.getDataFundacao();
+        guardada.treinador = equipa.getTreinador();
+        guardada.plantel.addAll(equipa.getPlantel());
+        return guardada;
+    }
+
+    private static void escreverEquipa(DataOutputStream saida, EquipaGuardada equipa) throws IOException {
+        saida.writeUTF(equipa.nome);
+        saida.writeUTF(equipa.cidade);
+        saida.writeInt(equipa.fundacao);
+        saida.writeUTF(equipa.treinador);
+        saida.writeInt(equipa.plantel.size());
+        for (String jogador : equipa.plantel) {
+            saida.writeUTF(jogador);
+        }
+    }
+
+    private static EquipaGuardada lerEquipa(DataInputStream entrada) throws IOException {
+        EquipaGuardada equipa = new EquipaGuardada();
+        equipa.nome = entrada.readUTF();
+        equipa.cidade = entrada.readUTF();
+        equipa.fundacao = entrada.readInt();
+        equipa.treinador = entrada.readUTF();
+        int jogadores = entrada.readInt();
+        for (int i = 0; i < jogadores; i++) {
+            equipa.plantel.add(entrada.readUTF());
+        }
+        return equipa;
+    }
+
+    private static void escreverBilhete(DataOutputStream saida, BilheteGuardado bilhete) throws IOException {
+        saida.writeLong(bilhete.id);
+        saida.writeLong(bilhete.preco);
+        saida.writeLong(bilhete.dataSegundos);
+        saida.writeInt(bilhete.dataNanos);
+    }
+
+    private static BilheteGuardado lerBilhete(DataInputStream entrada) throws IOException {
+        BilheteGuardado bilhete = new BilheteGuardado();
+        bilhete.id = entrada.readLong();
+        bilhete.preco = entrada.readLong();
+        bilhete.dataSegundos = entrada.readLong();
+        bilhete.dataNanos = entrada.readInt();
+        return bilhete;
+    }
+
+    private static void escreverRolote(DataOutputStream saida, RoloteGuardada rolote) throws IOException {
+        saida.writeInt(rolote.id);
+        saida.writeUTF(rolote.nome);
+        saida.writeBoolean(rolote.aberto);
+        saida.writeLong(rolote.faturamento);
+        saida.writeInt(rolote.produtos.size());
+        for (ProdutoGuardado produto : rolote.produtos) {
+            saida.writeInt(produto.id);
+            saida.writeUTF(produto.nome);
+            saida.writeLong(produto.preco);
+            saida.writeInt(produto.stock);
+        }
+    }
+
+    private static RoloteGuardada lerRolote(DataInputStream entrada) throws IOException {
+        RoloteGuardada rolote = new RoloteGuardada();
+        rolote.id = entrada.readInt();
+        rolote.nome = entrada.readUTF();
+        rolote.aberto = entrada.readBoolean();
+        rolote.faturamento = entrada.readLong();
+        int numeroProdutos = entrada.readInt();
+        for (int i = 0; i < numeroProdutos; i++) {
+            ProdutoGuardado produto = new ProdutoGuardado();
+            produto.id = entrada.readInt();
+            produto.nome = entrada.readUTF();
+            produto.preco = entrada.readLong();
+            produto.stock = entrada.readInt();
+            rolote.produtos.add(produto);
+        }
+        return rolote;
+    }
+
+    // --- MÉTODOS AUXILIARES ---
+
+    // O resultado de um jogo pode ser conhecido sem a criação (jogo criado antes de haver diário).
+    private JogoGuardado procurarOuCriarJogo(int numero) {
+        return jogos.computeIfAbsent(numero, chave -> {
+            JogoGuardado jogo = new JogoGuardado();
+            jogo.numero = chave;
+            return jogo;
+        });
+    }
+
+    private AdeptoGuardado procurarAdepto(long id) throws IOException {
+        AdeptoGuardado adepto = adeptos.get(id);
+        if (adepto == null) {
+            throw new IOException("Registo refere um adepto desconhecido: " + Adepto.formatarCodigo(id));
+        }
+        return adepto;
+    }
+}
@@ -1,10 +1,14 @@
 package src.POO.teste_final;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * Modela o jogo de futebol.
@@ -13,19 +17,33 @@ import java.util.Random;
  */
 public class Jogo {
 
+    // --- CONSTANTES ---
+
+    // Regras da simulação (partilhadas com o SimuladorMonteCarlo).
+    static final int DURACAO_JOGO = 90;                 // Minutos de jogo.
+    static final int INTERVALO_OPORTUNIDADES = 10;      // De quantos em quantos minutos cada equipa pode marcar.
+    static final double PROBABILIDADE_GOLO = 0.10;      // Probabilidade de golo de cada equipa em cada oportunidade.
+
+    private static final Duration DURACAO_MINUTO = Duration.ofSeconds(1);    // Um minuto de jogo, em tempo real.
+    private static final Duration DURACAO_INTERVALO = Duration.ofSeconds(2); // A pausa do intervalo, em tempo real.
+
     // --- ATRIBUTOS ---
 
+    private int numero;                     // Número do jogo no estádio (entra no ID dos bilhetes).
     private Equipa equipaCasa;
     private Equipa equipaVisitante;
     private LocalDateTime dataHora;
     private String arbitro;
-    private List<Bilhete> bilhetesVendidos; // Para calcular a receita do jogo
+    private List<Bilhete> bilhetesVendidos; // Os bilhetes vendidos para este jogo
+    private final Map<Setor, MapaLugares> mapas = new ConcurrentHashMap<>(); // Ocupação de cada setor neste jogo (criada na primeira venda).
+    private final LongAdder receitaBilheteira = new LongAdder(); // Receita acumulada à medida que os bilhetes são vendidos, em cêntimos
 
     // Atributos para controlar o estado do jogo
     private int golosCasa;
     private int golosVisitante;
     private List<String> marcadores; // Lista para registar quem marcou os golos
-    private boolean jogoTerminado;
+    private volatile boolean jogoTerminado;
+    private RelogioJogo relogio;     // Dita o ritmo da simulação (tempo real, acelerado ou instantâneo).
 
     // --- CONSTRUTOR ---
 
@@ -37,21 +55,39 @@ public class Jogo {
      * @param dataHora A data e hora agendadas para o jogo.
      */
     public Jogo(Equipa equipaCasa, Equipa equipaVisitante, LocalDateTime dataHora, String arbitro) {
+        this(1, equipaCasa, equipaVisitante, dataHora, arbitro);
+    }
+
+    /**
+     * Cria uma nova instância de Jogo com um número atribuído pelo estádio.
+     *
+     * @param numero O número do jogo (1 a Bilhete.MAXIMO_JOGO).
+     * @param equipaCasa A equipa da casa.
+     * @param equipaVisitante A equipa visitante.
+     * @param dataHora A data e hora agendadas para o jogo.
+     */
+    public Jogo(int numero, Equipa equipaCasa, Equipa equipaVisitante, LocalDateTime dataHora, String arbitro) {
+        this.numero = numero;
         this.equipaCasa = equipaCasa;
         this.equipaVisitante = equipaVisitante;
         this.dataHora = dataHora;
         this.arbitro = arbitro;
 
         // Inicializa o estado do jogo
-        this.bilhetesVendidos = new ArrayList<>();
+        this.bilhetesVendidos = Collections.synchronizedList(new ArrayList<>());
         this.golosCasa = 0;
         this.golosVisitante = 0;
         this.marcadores = new ArrayList<>();
         this.jogoTerminado = false;
+        this.relogio = RelogioJogo.tempoReal();
     }
 
     // --- GETTERS ---
 
+    public int getNumero() {
+        return numero;
+    }
+
     public Equipa getEquipaCasa() {
         return equipaCasa;
     }
@@ -64,10 +100,59 @@ public class Jogo {
         return dataHora;
     }
 
+    public String getArbitro() {
+        return arbitro;
+    }
+
+    public int getGolosCasa() {
+        return golosCasa;
+    }
+
+    public int getGolosVisitante() {
+        return golosVisitante;
+    }
+
     public List<Bilhete> getBilhetesVendidos() {
         return bilhetesVendidos;
     }
 
+    /**
+     * Devolve o mapa de lugares de um setor neste jogo, criando-o (com todos os
+     * lugares livres) na primeira vez que é pedido.
+     * @param setor O setor do estádio.
+     * @return A ocupação do setor neste jogo.
+     */
+    public MapaLugares getMapa(Setor setor) {
+        return this.mapas.computeIfAbsent(setor, s -> new MapaLugares(this, s));
+    }
+
+    /**
+     * Devolve quantos lugares de um setor estão ocupados neste jogo, sem criar o mapa
+     * do setor se ainda não houver nenhum (nesse caso, não há lugares ocupados).
+     * @param setor O setor do estádio.
+     * @return Os lugares ocupados (vendidos ou retidos).
+     */
+    public int getLugaresOcupados(Setor setor) {
+        MapaLugares mapa = this.mapas.get(setor);
+        return mapa == null ? 0 : mapa.getLugaresOcupados();
+    }
+
+    public boolean isTerminado() {
+        return jogoTerminado;
+    }
+
+    public RelogioJogo getRelogio() {
+        return relogio;
+    }
+
+    /**
+     * Define o relógio usado na simulação do jogo.
+     * @param relogio O relógio (ex: RelogioJogo.instantaneo() para testes e simulações em massa).
+     */
+    public void setRelogio(RelogioJogo relogio) {
+        this.relogio = relogio;
+    }
+
     /**
      * Devolve o resultado final do jogo numa string formatada.
      * @return Uma string como "Sporting 0 - 3 Benfica".
@@ -89,56 +174,64 @@ public class Jogo {
      */
     public void adicionarBilheteVendido(Bilhete bilhete) {
         this.bilhetesVendidos.add(bilhete);
+        this.receitaBilheteira.add(bilhete.getPreco());
     }
 
     /**
-     * Calcula a receita total gerada pela venda de bilhetes para este jogo.
-     * @return O valor total da receita da bilheteira.
+     * Retira um bilhete anulado da lista de bilhetes vendidos e da receita deste jogo.
+     * @param bilhete O bilhete anulado.
      */
-    public double calcularReceitaBilheteira() {
-        double receitaTotal = 0.0;
-        for (Bilhete bilhete : this.bilhetesVendidos) {
-            receitaTotal += bilhete.getPreco();
+    public void removerBilheteVendido(Bilhete bilhete) {
+        if (this.bilhetesVendidos.remove(bilhete)) {
+            this.receitaBilheteira.add(-bilhete.getPreco());
         }
-        return receitaTotal;
+    }
+
+    /**
+     * Devolve a receita total gerada pela venda de bilhetes para este jogo.
+     * A receita é somada à medida que os bilhetes são vendidos, por isso não percorre os bilhetes.
+     * @return O valor total da receita da bilheteira, em cêntimos.
+     */
+    public long calcularReceitaBilheteira() {
+        return this.receitaBilheteira.sum();
     }
 
     /**
      * Inicia e simula o decorrer do jogo.
-     * 1 segundo na vida real = 1 minuto no jogo.
+     * Em tempo real, 1 segundo na vida real = 1 minuto no jogo; o relógio do jogo pode
+     * acelerar ou eliminar as pausas (ver RelogioJogo).
      * A cada 10 minutos de jogo, há 10% de probabilidade de golo para cada equipa.
      */
     public void iniciarJogo(Estadio estadio) {
-        DateTimeFormatter formatadorData = DateTimeFormatter.ofPattern("dd/MM/yyyy");
-        DateTimeFormatter formatadorHora = DateTimeFormatter.ofPattern("HH:mm");
-
         System.out.println("\n=== A Iniciar Jogo ===");
         System.out.println(this.equipaCasa.getNome() + " VS " + this.equipaVisitante.getNome());
-        System.out.println("Data: " + this.dataHora.format(formatadorData));
-        System.out.println("Hora: " + this.dataHora.format(formatadorHora));
+        System.out.println("Data: " + this.dataHora.format(Formatos.DATA));
+        System.out.println("Hora: " + this.dataHora.format(Formatos.HORA));
         System.out.println("Árbitro: " + this.arbitro);
 
         Random random = new Random();
         System.out.println("\nPrimeira parte:");
 
         // Loop que simula os 90 minutos do jogo
-        for (int minuto = 1; minuto <= 90; minuto++) {
+        for (int minuto = 1; minuto <= DURACAO_JOGO; minuto++) {
             try {
-                // Pausa de 1 segundo para simular a passagem de 1 minuto
-                Thread.sleep(1000);
+                // Deixa passar 1 minuto de jogo (1 segundo em tempo real)
+                this.relogio.aguardar(DURACAO_MINUTO);
             } catch (InterruptedException e) {
                 // Em caso de erro na thread, interrompe o jogo.
                 System.err.println("A simulação do jogo foi interrompida.");
                 Thread.currentThread().interrupt(); // Boa prática para restaurar o estado de interrupção
                 return;
             }
+            EventosJfr.MinutoJogo evento = new EventosJfr.MinutoJogo();
+            evento.begin();
 
             boolean eventoOcorreu = false;
 
             // A cada 10 minutos, verifica a probabilidade de golo
-            if (minuto % 10 == 0) {
+            if (minuto % INTERVALO_OPORTUNIDADES == 0) {
                 // Probabilidade de golo para a equipa da casa (10%)
-                if (random.nextDouble() < 0.10) {
+                if (random.nextDouble() < PROBABILIDADE_GOLO) {
                     this.golosCasa++;
                     String marcador = equipaCasa.getPlantel().get(random.nextInt(equipaCasa.getPlantel().size()));
                     System.out.printf("%d' GOLO! %s marca! (%s)\n", minuto, this.equipaCasa.getNome(), getResultadoTemporario());
@@ -147,7 +240,7 @@ public class Jogo {
                 }
 
                 // Probabilidade de golo para a equipa visitante (10%)
-                if (random.nextDouble() < 0.10) {
+                if (random.nextDouble() < PROBABILIDADE_GOLO) {
                     this.golosVisitante++;
                     String marcador = equipaVisitante.getPlantel().get(random.nextInt(equipaVisitante.getPlantel().size()));
                     System.out.printf("%d' GOLO! %s marca! (%s)\n", minuto, this.equipaVisitante.getNome(), getResultadoTemporario());
@@ -162,16 +255,16 @@ public class Jogo {
                 eventoOcorreu = true;
             } else if (minuto == 45) {
                 System.out.println("45'");
-                estadio.mostrarEstatisticasIntervalo();
+                estadio.mostrarEstatisticasIntervalo(this);
                 try {
-                    Thread.sleep(2000); // Pausa de 2 segundos para o intervalo
+                    this.relogio.aguardar(DURACAO_INTERVALO); // Pausa de 2 segundos (em tempo real) para o intervalo
                 } catch (InterruptedException e) { Thread.currentThread().interrupt(); return; }
                 System.out.println("Segunda parte:");
                 eventoOcorreu = true;
             } else if (minuto == 46) {
                 System.out.println("46' recomeço");
                 eventoOcorreu = true;
-            } else if (minuto == 90) {
+            } else if (minuto == DURACAO_JOGO) {
                 System.out.println("90' Fim de jogo");
                 eventoOcorreu = true;
             }
@@ -180,10 +273,29 @@ public class Jogo {
             if (!eventoOcorreu) {
                 System.out.println(minuto + "'");
             }
+
+            if (evento.shouldCommit()) {
+                evento.jogo = this.numero;
+                evento.minuto = minuto;
+                evento.golosCasa = this.golosCasa;
+                evento.golosVisitante = this.golosVisitante;
+                evento.commit();
+            }
         }
 
         this.jogoTerminado = true;
+        estadio.registarFimJogo(this);
+    }
 
+    /**
+     * Repõe o resultado de um jogo que já tinha terminado, ao restaurar o estádio a partir do disco.
+     * @param golosCasa Os golos da equipa da casa.
+     * @param golosVisitante Os golos da equipa visitante.
+     */
+    void restaurarResultado(int golosCasa, int golosVisitante) {
+        this.golosCasa = golosCasa;
+        this.golosVisitante = golosVisitante;
+        this.jogoTerminado = true;
     }
 
     // Método auxiliar para obter o placar durante o jogo
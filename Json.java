@@ -0,0 +1,275 @@
+package src.POO.teste_final;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Leitura e escrita de JSON, o suficiente para a API HTTP do estádio (ver ServidorHttp).
+ * A leitura devolve os tipos comuns do Java: Map (objeto, pela ordem das chaves),
+ * List (array), String, Long (números inteiros), Double (números com parte decimal ou
+ * expoente), Boolean e null. A escrita é feita com um StringBuilder, com escape() para
+ * os textos.
+ */
+public final class Json {
+
+    // --- ATRIBUTOS ---
+
+    private final String texto;     // O documento a ler.
+    private int posicao;            // O próximo carácter a ler.
+
+    // --- CONSTRUTOR ---
+
+    private Json(String texto) {
+        this.texto = texto;
+    }
+
+    // --- LEITURA ---
+
+    /**
+     * Lê um documento JSON completo.
+     * @param texto O documento.
+     * @return O valor lido (Map, List, String, Long, Double, Boolean ou null).
+     * @throws IllegalArgumentException Se o documento não for JSON válido.
+     */
+    public static Object ler(String texto) {
+        Json leitor = new Json(texto);
+        Object valor = leitor.lerValor();
+        leitor.saltarEspacos();
+        if (leitor.posicao != texto.length()) {
+            throw leitor.erro("Conteúdo a mais depois do valor");
+        }
+        return valor;
+    }
+
+    /**
+     * Lê um documento JSON que tem de ser um objeto.
+     * @param texto O documento.
+     * @return O objeto, como um mapa chave -> valor.
+     * @throws IllegalArgumentException Se o documento não for um objeto JSON válido.
+     */
+    @SuppressWarnings("unchecked")
+    public static Map<String, Object> lerObjeto(String texto) {
+        Object valor = ler(texto);
+        if (!(valor instanceof Map)) {
+            throw new IllegalArgumentException("JSON inválido: era esperado um objeto.");
+        }
+        return (Map<String, Object>) valor;
+    }
+
+    private Object lerValor() {
+        saltarEspacos();
+        if (posicao >= texto.length()) {
+            throw erro("Fim inesperado do documento");
+        }
+        char c = texto.charAt(posicao);
+        switch (c) {
+            case '{':
+                return lerObjetoInterno();
+            case '[':
+                return lerArray();
+            case '"':
+                return lerTexto();
+            case 't':
+                return lerPalavra("true", Boolean.TRUE);
+            case 'f':
+                return lerPalavra("false", Boolean.FALSE);
+            case 'n':
+                return lerPalavra("null", null);
+            default:
+                if (c == '-' || (c >= '0' && c <= '9')) {
+                    return lerNumero();
+                }
+                throw erro("Carácter inesperado '" + c + "'");
+        }
+    }
+
+    private Map<String, Object> lerObjetoInterno() {
+        Map<String, Object> objeto = new LinkedHashMap<>();
+        posicao++; // '{'
+        saltarEspacos();
+        if (consumir('}')) {
+            return objeto;
+        }
+        do {
+            saltarEspacos();
+            if (posicao >= texto.length() || texto.charAt(posicao) != '"') {
+                throw erro("Era esperada uma chave entre aspas");
+            }
+            String chave = lerTexto();
+            saltarEspacos();
+            if (!consumir(':')) {
+                throw erro("Era esperado ':'");
+            }
+            objeto.put(chave, lerValor());
+            saltarEspacos();
+        } while (consumir(','));
+        if (!consumir('}')) {
+            throw erro("Era esperado ',' ou '}'");
+        }
+        return objeto;
+    }
+
+    private List<Object> lerArray() {
+        List<Object> lista = new ArrayList<>();
+        posicao++; // '['
+        saltarEspacos();
+        if (consumir(']')) {
+            return lista;
+        }
+        do {
+            lista.add(lerValor());
+            saltarEspacos();
+        } while (consumir(','));
+        if (!consumir(']')) {
+            throw erro("Era esperado ',' ou ']'");
+        }
+        return lista;
+    }
+
+    private String lerTexto() {
+        posicao++; // '"'
+        StringBuilder valor = null;     // Só é criado se o texto tiver escapes.
+        int inicio = posicao;
+        while (posicao < texto.length()) {
+            char c = texto.charAt(posicao);
+            if (c == '"') {
+                String resultado = valor == null ? texto.substring(inicio, posicao)
+                        : valor.append(texto, inicio, posicao).toString();
+                posicao++;
+                return resultado;
+            }
+            if (c == '\\') {
+                if (valor == null) {
+                    valor = new StringBuilder();
+                }
+                valor.append(texto, inicio, posicao);
+                valor.append(lerEscape());
+                inicio = posicao;
+                continue;
+            }
+            if (c < 0x20) {
+                throw erro("Carácter de controlo dentro de um texto");
+            }
+            posicao++;
+        }
+        throw erro("Texto sem aspas finais");
+    }
+
+    private char lerEscape() {
+        posicao++; // '\\'
+        if (posicao >= texto.length()) {
+            throw erro("Escape incompleto");
+        }
+        char c = texto.charAt(posicao++);
+        switch (c) {
+            case '"': return '"';
+            case '\\': return '\\';
+            case '/': return '/';
+            case 'b': return '\b';
+            case 'f': return '\f';
+            case 'n': return '\n';
+            case 'r': return '\r';
+            case 't': return '\t';
+            case 'u':
+                if (posicao + 4 > texto.length()) {
+                    throw erro("Escape \\u incompleto");
+                }
+                try {
+                    char unicode = (char) Integer.parseInt(texto.substring(posicao, posicao + 4), 16);
+                    posicao += 4;
+                    return unicode;
+                } catch (NumberFormatException e) {
+                    throw erro("Escape \\u inválido");
+                }
+            default:
+                throw erro("Escape inválido '\\" + c + "'");
+        }
+    }
+
+    private Object lerNumero() {
+        int inicio = posicao;
+        boolean decimal = false;
+        if (texto.charAt(posicao) == '-') {
+            posicao++;
+        }
+        while (posicao < texto.length()) {
+            char c = texto.charAt(posicao);
+            if (c == '.' || c == 'e' || c == 'E' || c == '+' || (c == '-' && posicao > inicio)) {
+                decimal = true;
+            } else if (c < '0' || c > '9') {
+                break;
+            }
+            posicao++;
+        }
+        String numero = texto.substring(inicio, posicao);
+        try {
+            return decimal ? (Object) Double.parseDouble(numero) : (Object) Long.parseLong(numero);
+        } catch (NumberFormatException e) {
+            throw erro("Número inválido '" + numero + "'");
+        }
+    }
+
+    private Object lerPalavra(String palavra, Object valor) {
+        if (!texto.startsWith(palavra, posicao)) {
+            throw erro("Valor desconhecido");
+        }
+        posicao += palavra.length();
+        return valor;
+    }
+
+    private void saltarEspacos() {
+        while (posicao < texto.length()) {
+            char c = texto.charAt(posicao);
+            if (c != ' ' && c != '\t' && c != '\n' && c != '\r') {
+                return;
+            }
+            posicao++;
+        }
+    }
+
+    private boolean consumir(char esperado) {
+        if (posicao < texto.length() && texto.charAt(posicao) == esperado) {
+            posicao++;
+            return true;
+        }
+        return false;
+    }
+
+    private IllegalArgumentException erro(String mensagem) {
+        return new IllegalArgumentException("JSON inválido: " + mensagem + " (posição " + posicao + ").");
+    }
+
+    // --- ESCRITA ---
+
+    /**
+     * Acrescenta um texto entre aspas, com os caracteres especiais escapados.
+     * @param destino Onde escrever.
+     * @param valor O texto (null é escrito como null).
+     * @return O destino, para encadear chamadas.
+     */
+    public static StringBuilder escape(StringBuilder destino, String valor) {
+        if (valor == null) {
+            return destino.append("null");
+        }
+        destino.append('"');
+        for (int i = 0; i < valor.length(); i++) {
+            char c = valor.charAt(i);
+            switch (c) {
+                case '"': destino.append("\\\""); break;
+                case '\\': destino.append("\\\\"); break;
+                case '\n': destino.append("\\n"); break;
+                case '\r': destino.append("\\r"); break;
+                case '\t': destino.append("\\t"); break;
+                default:
+                    if (c < 0x20) {
+                        destino.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        destino.append(c);
+                    }
+            }
+        }
+        return destino.append('"');
+    }
+}
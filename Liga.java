@@ -0,0 +1,630 @@
+package src.POO.teste_final;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Um campeonato entre várias equipas, a duas voltas: cada equipa recebe e visita
+ * todas as outras uma vez. O calendário é gerado pelo método do círculo, por isso
+ * em cada jornada cada equipa joga no máximo uma vez.
+ *
+ * Os jogos são simulados com as regras do Jogo (ver SimuladorMonteCarlo), sem esperas:
+ * - simularEpoca() simula todos os jogos de uma época em paralelo e devolve a classificação.
+ * - simularEpocas() repete a época muitas vezes, também em paralelo, e devolve a
+ *   probabilidade de cada equipa acabar em cada posição (incluindo a de ser campeã).
+ *
+ * Tal como no SimuladorMonteCarlo, os geradores aleatórios são divididos com split()
+ * pela ordem de divisão do trabalho, e não nas threads: a mesma semente dá sempre o
+ * mesmo resultado, com qualquer número de threads.
+ */
+public class Liga {
+
+    // --- CONSTANTES ---
+
+    public static final int PONTOS_VITORIA = 3;
+    public static final int PONTOS_EMPATE = 1;
+
+    // Oportunidades de golo de cada equipa por jogo, como no Jogo.
+    private static final int OPORTUNIDADES = Jogo.DURACAO_JOGO / Jogo.INTERVALO_OPORTUNIDADES;
+    // Abaixo destes tamanhos, um bloco de jogos ou de épocas não é dividido.
+    private static final int JOGOS_POR_BLOCO = 64;
+    private static final int EPOCAS_POR_BLOCO = 16;
+
+    // --- ATRIBUTOS ---
+
+    private final String nome;
+    private final List<Equipa> equipas;         // As equipas, pela ordem em que foram inscritas.
+    private final List<Partida> calendario;     // Todos os jogos da época, por jornada.
+    private final int[] casaDe;                 // Índice da equipa da casa de cada jogo do calendário.
+    private final int[] visitanteDe;            // Índice da equipa visitante de cada jogo do calendário.
+    private final ForkJoinPool pool;            // Onde correm as simulações.
+
+    // --- CONSTRUTORES ---
+
+    /**
+     * Cria uma liga que usa o ForkJoinPool comum e gera o seu calendário.
+     * @param nome O nome da liga (ex: "Liga Portugal").
+     * @param equipas As equipas participantes (pelo menos duas).
+     */
+    public Liga(String nome, List<Equipa> equipas) {
+        this(nome, equipas, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Cria uma liga que usa o ForkJoinPool indicado e gera o seu calendário.
+     * @param nome O nome da liga.
+     * @param equipas As equipas participantes (pelo menos duas).
+     * @param pool O pool onde correm as simulações.
+     */
+    public Liga(String nome, List<Equipa> equipas, ForkJoinPool pool) {
+        if (equipas.size() < 2) {
+            throw new IllegalArgumentException("Uma liga precisa de pelo menos duas equipas.");
+        }
+        this.nome = nome;
+        this.equipas = Collections.unmodifiableList(new ArrayList<>(equipas));
+        this.pool = pool;
+
+        List<int[]> jogos = gerarCalendario(equipas.size());
+        List<Partida> partidas = new ArrayList<>(jogos.size());
+        this.casaDe = new int[jogos.size()];
+        this.visitanteDe = new int[jogos.size()];
+        for (int i = 0; i < jogos.size(); i++) {
+            int[] jogo = jogos.get(i);
+            casaDe[i] = jogo[1];
+            visitanteDe[i] = jogo[2];
+            partidas.add(new Partida(jogo[0], this.equipas.get(jogo[1]), this.equipas.get(jogo[2])));
+        }
+        this.calendario = Collections.unmodifiableList(partidas);
+    }
+
+    /**
+     * Gera o calendário a duas voltas pelo método do círculo: a primeira equipa fica fixa
+     * e as restantes rodam uma posição por jornada. Com um número ímpar de equipas, junta-se
+     * uma equipa fictícia e quem a defronta folga nessa jornada.
+     * @return Os jogos, como {jornada, casa, visitante}, ordenados por jornada.
+     */
+    private static List<int[]> gerarCalendario(int numeroEquipas) {
+        int n = numeroEquipas % 2 == 0 ? numeroEquipas : numeroEquipas + 1;
+        int folga = numeroEquipas % 2 == 0 ? -1 : numeroEquipas;
+        int jornadasPorVolta = n - 1;
+
+        int[] roda = new int[n];
+        for (int i = 0; i < n; i++) {
+            roda[i] = i;
+        }
+
+        List<int[]> primeiraVolta = new ArrayList<>();
+        for (int jornada = 1; jornada <= jornadasPorVolta; jornada++) {
+            for (int i = 0; i < n / 2; i++) {
+                int a = roda[i];
+                int b = roda[n - 1 - i];
+                if (a == folga || b == folga) {
+                    continue;
+                }
+                // Alterna casa e fora para a equipa fixa; nos outros pares, alterna por posição.
+                boolean trocar = i == 0 ? jornada % 2 == 0 : i % 2 == 1;
+                primeiraVolta.add(trocar ? new int[] {jornada, b, a} : new int[] {jornada, a, b});
+            }
+            // Roda todas as posições menos a primeira.
+            int ultima = roda[n - 1];
+            System.arraycopy(roda, 1, roda, 2, n - 2);
+            roda[1] = ultima;
+        }
+
+        // A segunda volta repete a primeira com as casas trocadas.
+        List<int[]> jogos = new ArrayList<>(primeiraVolta.size() * 2);
+        jogos.addAll(primeiraVolta);
+        for (int[] jogo : primeiraVolta) {
+            jogos.add(new int[] {jogo[0] + jornadasPorVolta, jogo[2], jogo[1]});
+        }
+        return jogos;
+    }
+
+    // --- GETTERS ---
+
+    public String getNome() {
+        return nome;
+    }
+
+    public List<Equipa> getEquipas() {
+        return equipas;
+    }
+
+    /**
+     * Devolve todos os jogos da época, ordenados por jornada.
+     * @return O calendário (não modificável).
+     */
+    public List<Partida> getCalendario() {
+        return calendario;
+    }
+
+    public int getNumeroJornadas() {
+        return calendario.get(calendario.size() - 1).getJornada();
+    }
+
+    // --- SIMULAÇÃO ---
+
+    /**
+     * Simula uma época completa, com os jogos divididos pelos processadores.
+     * @param semente A semente do gerador aleatório: a mesma semente dá a mesma época.
+     * @return Os resultados de todos os jogos e a classificação final.
+     */
+    public Epoca simularEpoca(long semente) {
+        int[] golosCasa = new int[calendario.size()];
+        int[] golosVisitante = new int[calendario.size()];
+        pool.invoke(new BlocoJogos(0, calendario.size(), new SplittableRandom(semente), golosCasa, golosVisitante));
+
+        Tabela tabela = new Tabela(equipas.size());
+        tabela.registar(casaDe, visitanteDe, golosCasa, golosVisitante);
+        return new Epoca(this, golosCasa, golosVisitante, tabela);
+    }
+
+    /**
+     * Simula uma época completa, com uma semente aleatória.
+     * @return Os resultados de todos os jogos e a classificação final.
+     */
+    public Epoca simularEpoca() {
+        return simularEpoca(new SplittableRandom().nextLong());
+    }
+
+    /**
+     * Simula a época muitas vezes e conta em que posição acaba cada equipa.
+     * As épocas são divididas pelos processadores; cada bloco simula as suas
+     * épocas em sequência, reutilizando os mesmos arrays.
+     * @param numeroEpocas Quantas épocas simular (maior que zero).
+     * @param semente A semente do gerador aleatório: a mesma semente dá o mesmo resultado.
+     * @return As probabilidades de cada equipa acabar em cada posição.
+     */
+    public Previsao simularEpocas(long numeroEpocas, long semente) {
+        if (numeroEpocas <= 0) {
+            throw new IllegalArgumentException("O número de épocas deve ser positivo.");
+        }
+        long[] posicoes = pool.invoke(new BlocoEpocas(this, 0, numeroEpocas, new SplittableRandom(semente)));
+        return new Previsao(this, numeroEpocas, posicoes);
+    }
+
+    /**
+     * Simula a época muitas vezes, com uma semente aleatória.
+     * @param numeroEpocas Quantas épocas simular (maior que zero).
+     * @return As probabilidades de cada equipa acabar em cada posição.
+     */
+    public Previsao simularEpocas(long numeroEpocas) {
+        return simularEpocas(numeroEpocas, new SplittableRandom().nextLong());
+    }
+
+    // Os golos de uma equipa num jogo, com as regras do Jogo.
+    private static int simularGolos(SplittableRandom aleatorio) {
+        int golos = 0;
+        for (int oportunidade = 0; oportunidade < OPORTUNIDADES; oportunidade++) {
+            if (aleatorio.nextDouble() < Jogo.PROBABILIDADE_GOLO) {
+                golos++;
+            }
+        }
+        return golos;
+    }
+
+    // Simula os jogos [inicio, fim) do calendário com um só gerador.
+    private static void simularJogos(SplittableRandom aleatorio, int inicio, int fim,
+                                     int[] golosCasa, int[] golosVisitante) {
+        for (int i = inicio; i < fim; i++) {
+            golosCasa[i] = simularGolos(aleatorio);
+            golosVisitante[i] = simularGolos(aleatorio);
+        }
+    }
+
+    // Um bloco de jogos [inicio, fim) de uma época. Escreve os golos nos arrays partilhados,
+    // cada bloco na sua parte, por isso não há escritas concorrentes na mesma posição.
+    private static final class BlocoJogos extends RecursiveAction {
+        private final int inicio;
+        private final int fim;
+        private final SplittableRandom aleatorio;
+        private final int[] golosCasa;
+        private final int[] golosVisitante;
+
+        BlocoJogos(int inicio, int fim, SplittableRandom aleatorio, int[] golosCasa, int[] golosVisitante) {
+            this.inicio = inicio;
+            this.fim = fim;
+            this.aleatorio = aleatorio;
+            this.golosCasa = golosCasa;
+            this.golosVisitante = golosVisitante;
+        }
+
+        @Override
+        protected void compute() {
+            if (fim - inicio <= JOGOS_POR_BLOCO) {
+                simularJogos(aleatorio, inicio, fim, golosCasa, golosVisitante);
+                return;
+            }
+            int meio = inicio + (fim - inicio) / 2;
+            invokeAll(new BlocoJogos(inicio, meio, aleatorio.split(), golosCasa, golosVisitante),
+                      new BlocoJogos(meio, fim, aleatorio.split(), golosCasa, golosVisitante));
+        }
+    }
+
+    // Um bloco de épocas [inicio, fim). Devolve as contagens de posições:
+    // [equipa * numeroEquipas + posicao] = épocas em que a equipa acabou nessa posição.
+    private static final class BlocoEpocas extends RecursiveTask<long[]> {
+        private final Liga liga;
+        private final long inicio;
+        private final long fim;
+        private final SplittableRandom aleatorio;
+
+        BlocoEpocas(Liga liga, long inicio, long fim, SplittableRandom aleatorio) {
+            this.liga = liga;
+            this.inicio = inicio;
+            this.fim = fim;
+            this.aleatorio = aleatorio;
+        }
+
+        @Override
+        protected long[] compute() {
+            if (fim - inicio <= EPOCAS_POR_BLOCO) {
+                return simularBloco();
+            }
+            long meio = inicio + (fim - inicio) / 2;
+            BlocoEpocas esquerda = new BlocoEpocas(liga, inicio, meio, aleatorio.split());
+            BlocoEpocas direita = new BlocoEpocas(liga, meio, fim, aleatorio.split());
+            esquerda.fork();
+            long[] posicoes = direita.compute();
+            long[] outras = esquerda.join();
+            for (int i = 0; i < posicoes.length; i++) {
+                posicoes[i] += outras[i];
+            }
+            return posicoes;
+        }
+
+        private long[] simularBloco() {
+            int numeroEquipas = liga.equipas.size();
+            int numeroJogos = liga.casaDe.length;
+            long[] posicoes = new long[numeroEquipas * numeroEquipas];
+            int[] golosCasa = new int[numeroJogos];
+            int[] golosVisitante = new int[numeroJogos];
+            Tabela tabela = new Tabela(numeroEquipas);
+
+            for (long epoca = inicio; epoca < fim; epoca++) {
+                simularJogos(aleatorio, 0, numeroJogos, golosCasa, golosVisitante);
+                tabela.limpar();
+                tabela.registar(liga.casaDe, liga.visitanteDe, golosCasa, golosVisitante);
+                int[] ordem = tabela.getOrdem();
+                for (int posicao = 0; posicao < numeroEquipas; posicao++) {
+                    posicoes[ordem[posicao] * numeroEquipas + posicao]++;
+                }
+            }
+            return posicoes;
+        }
+    }
+
+    // Os totais de cada equipa numa época, em arrays indexados pela equipa, e a ordem da classificação.
+    private static final class Tabela {
+        final int[] vitorias;
+        final int[] empates;
+        final int[] derrotas;
+        final int[] golosMarcados;
+        final int[] golosSofridos;
+        final int[] pontos;
+        private final int[] ordem;
+
+        Tabela(int numeroEquipas) {
+            vitorias = new int[numeroEquipas];
+            empates = new int[numeroEquipas];
+            derrotas = new int[numeroEquipas];
+            golosMarcados = new int[numeroEquipas];
+            golosSofridos = new int[numeroEquipas];
+            pontos = new int[numeroEquipas];
+            ordem = new int[numeroEquipas];
+        }
+
+        void limpar() {
+            Arrays.fill(vitorias, 0);
+            Arrays.fill(empates, 0);
+            Arrays.fill(derrotas, 0);
+            Arrays.fill(golosMarcados, 0);
+            Arrays.fill(golosSofridos, 0);
+            Arrays.fill(pontos, 0);
+        }
+
+        void registar(int[] casaDe, int[] visitanteDe, int[] golosCasa, int[] golosVisitante) {
+            for (int i = 0; i < casaDe.length; i++) {
+                int casa = casaDe[i];
+                int visitante = visitanteDe[i];
+                int gc = golosCasa[i];
+                int gv = golosVisitante[i];
+                golosMarcados[casa] += gc;
+                golosSofridos[casa] += gv;
+                golosMarcados[visitante] += gv;
+                golosSofridos[visitante] += gc;
+                if (gc > gv) {
+                    vitorias[casa]++;
+                    derrotas[visitante]++;
+                    pontos[casa] += PONTOS_VITORIA;
+                } else if (gc < gv) {
+                    vitorias[visitante]++;
+                    derrotas[casa]++;
+                    pontos[visitante] += PONTOS_VITORIA;
+                } else {
+                    empates[casa]++;
+                    empates[visitante]++;
+                    pontos[casa] += PONTOS_EMPATE;
+                    pontos[visitante] += PONTOS_EMPATE;
+                }
+            }
+        }
+
+        /**
+         * Ordena as equipas pelos critérios de desempate: pontos, diferença de golos,
+         * golos marcados e, por fim, a ordem de inscrição. Ordenação por inserção sobre
+         * um array reutilizado: com umas dezenas de equipas é rápida e não cria objetos.
+         * @return Os índices das equipas, do primeiro ao último classificado.
+         */
+        int[] getOrdem() {
+            for (int i = 0; i < ordem.length; i++) {
+                int equipa = i;
+                int j = i - 1;
+                while (j >= 0 && frente(equipa, ordem[j])) {
+                    ordem[j + 1] = ordem[j];
+                    j--;
+                }
+                ordem[j + 1] = equipa;
+            }
+            return ordem;
+        }
+
+        // Verifica se a equipa a fica à frente da equipa b (b foi inscrita antes de a).
+        private boolean frente(int a, int b) {
+            if (pontos[a] != pontos[b]) {
+                return pontos[a] > pontos[b];
+            }
+            int diferencaA = golosMarcados[a] - golosSofridos[a];
+            int diferencaB = golosMarcados[b] - golosSofridos[b];
+            if (diferencaA != diferencaB) {
+                return diferencaA > diferencaB;
+            }
+            return golosMarcados[a] > golosMarcados[b];
+        }
+    }
+
+    // --- TIPOS ---
+
+    /**
+     * Um jogo do calendário.
+     */
+    public static final class Partida {
+        private final int jornada;
+        private final Equipa casa;
+        private final Equipa visitante;
+
+        Partida(int jornada, Equipa casa, Equipa visitante) {
+            this.jornada = jornada;
+            this.casa = casa;
+            this.visitante = visitante;
+        }
+
+        public int getJornada() {
+            return jornada;
+        }
+
+        public Equipa getCasa() {
+            return casa;
+        }
+
+        public Equipa getVisitante() {
+            return visitante;
+        }
+    }
+
+    /**
+     * A linha de uma equipa na classificação.
+     */
+    public static final class Linha {
+        private final int posicao;
+        private final Equipa equipa;
+        private final int vitorias;
+        private final int empates;
+        private final int derrotas;
+        private final int golosMarcados;
+        private final int golosSofridos;
+        private final int pontos;
+
+        Linha(int posicao, Equipa equipa, Tabela tabela, int indice) {
+            this.posicao = posicao;
+            this.equipa = equipa;
+            this.vitorias = tabela.vitorias[indice];
+            this.empates = tabela.empates[indice];
+            this.derrotas = tabela.derrotas[indice];
+            this.golosMarcados = tabela.golosMarcados[indice];
+            this.golosSofridos = tabela.golosSofridos[indice];
+            this.pontos = tabela.pontos[indice];
+        }
+
+        public int getPosicao() {
+            return posicao;
+        }
+
+        public Equipa getEquipa() {
+            return equipa;
+        }
+
+        public int getJogos() {
+            return vitorias + empates + derrotas;
+        }
+
+        public int getVitorias() {
+            return vitorias;
+        }
+
+        public int getEmpates() {
+            return empates;
+        }
+
+        public int getDerrotas() {
+            return derrotas;
+        }
+
+        public int getGolosMarcados() {
+            return golosMarcados;
+        }
+
+        public int getGolosSofridos() {
+            return golosSofridos;
+        }
+
+        public int getDiferencaGolos() {
+            return golosMarcados - golosSofridos;
+        }
+
+        public int getPontos() {
+            return pontos;
+        }
+    }
+
+    /**
+     * Uma época simulada: o resultado de cada jogo do calendário e a classificação final.
+     */
+    public static final class Epoca {
+        private final Liga liga;
+        private final int[] golosCasa;
+        private final int[] golosVisitante;
+        private final List<Linha> classificacao;
+
+        private Epoca(Liga liga, int[] golosCasa, int[] golosVisitante, Tabela tabela) {
+            this.liga = liga;
+            this.golosCasa = golosCasa;
+            this.golosVisitante = golosVisitante;
+            int[] ordem = tabela.getOrdem();
+            List<Linha> linhas = new ArrayList<>(ordem.length);
+            for (int posicao = 0; posicao < ordem.length; posicao++) {
+                linhas.add(new Linha(posicao + 1, liga.equipas.get(ordem[posicao]), tabela, ordem[posicao]));
+            }
+            this.classificacao = Collections.unmodifiableList(linhas);
+        }
+
+        /**
+         * Devolve a classificação final, do primeiro ao último.
+         * @return As linhas da classificação (não modificável).
+         */
+        public List<Linha> getClassificacao() {
+            return classificacao;
+        }
+
+        public Equipa getCampeao() {
+            return classificacao.get(0).getEquipa();
+        }
+
+        /**
+         * Devolve os golos marcados pela equipa da casa num jogo do calendário.
+         * @param jogo A posição do jogo em getCalendario().
+         */
+        public int getGolosCasa(int jogo) {
+            return golosCasa[jogo];
+        }
+
+        /**
+         * Devolve os golos marcados pela equipa visitante num jogo do calendário.
+         * @param jogo A posição do jogo em getCalendario().
+         */
+        public int getGolosVisitante(int jogo) {
+            return golosVisitante[jogo];
+        }
+
+        /**
+         * Imprime a classificação final da época.
+         */
+        public void mostrarClassificacao() {
+            System.out.printf("\n=== Classificação: %s ===\n", liga.nome);
+            System.out.printf("%3s  %-20s %3s %3s %3s %3s %4s %4s %4s\n",
+                    "#", "Equipa", "J", "V", "E", "D", "GM", "GS", "Pts");
+            for (Linha linha : classificacao) {
+                System.out.printf("%3d  %-20s %3d %3d %3d %3d %4d %4d %4d\n",
+                        linha.getPosicao(), linha.getEquipa().getNome(), linha.getJogos(),
+                        linha.getVitorias(), linha.getEmpates(), linha.getDerrotas(),
+                        linha.getGolosMarcados(), linha.getGolosSofridos(), linha.getPontos());
+            }
+        }
+    }
+
+    /**
+     * O resultado de muitas épocas simuladas: em quantas acabou cada equipa em cada posição.
+     */
+    public static final class Previsao {
+        private final Liga liga;
+        private final long numeroEpocas;
+        private final long[] posicoes;      // [equipa * numeroEquipas + posicao]
+
+        private Previsao(Liga liga, long numeroEpocas, long[] posicoes) {
+            this.liga = liga;
+            this.numeroEpocas = numeroEpocas;
+            this.posicoes = posicoes;
+        }
+
+        public long getNumeroEpocas() {
+            return numeroEpocas;
+        }
+
+        /**
+         * Devolve a probabilidade de uma equipa acabar a época numa dada posição.
+         * @param equipa A equipa (tem de pertencer à liga).
+         * @param posicao A posição, a começar em 1.
+         * @return A probabilidade, de 0 a 1.
+         */
+        public double getProbabilidadePosicao(Equipa equipa, int posicao) {
+            int indice = indiceDe(equipa);
+            int numeroEquipas = liga.equipas.size();
+            if (posicao < 1 || posicao > numeroEquipas) {
+                throw new IllegalArgumentException("Posição inválida: " + posicao);
+            }
+            return (double) posicoes[indice * numeroEquipas + posicao - 1] / numeroEpocas;
+        }
+
+        /**
+         * Devolve a probabilidade de uma equipa ser campeã.
+         * @param equipa A equipa (tem de pertencer à liga).
+         * @return A probabilidade, de 0 a 1.
+         */
+        public double getProbabilidadeTitulo(Equipa equipa) {
+            return getProbabilidadePosicao(equipa, 1);
+        }
+
+        /**
+         * Devolve a posição média de uma equipa nas épocas simuladas.
+         * @param equipa A equipa (tem de pertencer à liga).
+         * @return A posição média, a começar em 1.
+         */
+        public double getPosicaoMedia(Equipa equipa) {
+            int indice = indiceDe(equipa);
+            int numeroEquipas = liga.equipas.size();
+            double soma = 0;
+            for (int posicao = 0; posicao < numeroEquipas; posicao++) {
+                soma += (double) posicoes[indice * numeroEquipas + posicao] * (posicao + 1);
+            }
+            return soma / numeroEpocas;
+        }
+
+        private int indiceDe(Equipa equipa) {
+            int indice = liga.equipas.indexOf(equipa);
+            if (indice < 0) {
+                throw new IllegalArgumentException("A equipa " + equipa.getNome() + " não pertence à liga.");
+            }
+            return indice;
+        }
+
+        /**
+         * Imprime a probabilidade de título e a posição média de cada equipa,
+         * da mais para a menos provável campeã.
+         */
+        public void mostrarResumo() {
+            List<Equipa> porTitulo = new ArrayList<>(liga.equipas);
+            porTitulo.sort((a, b) -> Double.compare(getProbabilidadeTitulo(b), getProbabilidadeTitulo(a)));
+            System.out.printf("\n=== Previsão: %s (%d épocas) ===\n", liga.nome, numeroEpocas);
+            for (Equipa equipa : porTitulo) {
+                System.out.printf("- %-20s título: %6.2f%%  posição média: %5.2f\n",
+                        equipa.getNome(), getProbabilidadeTitulo(equipa) * 100, getPosicaoMedia(equipa));
+            }
+        }
+    }
+}
@@ -1,26 +1,142 @@
 package src.POO.teste_final;
 
+import java.io.BufferedReader;
 import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.time.Duration;
 import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Comparator;
+import java.util.List;
 
 public class Main {
 
-    public static void main(String[] args) {
-        // 1. Configurar o ambiente (limpeza ao sair)
-        configurarAmbiente();
+    // Pasta onde são guardados os dados dos adeptos (e o diário de transações).
+    private static final Path DIRETORIO_ADEPTOS = Paths.get("adeptos");
 
+    /**
+     * Ponto de entrada do programa.
+     * @param args Opções da linha de comandos:
+     *             --diario      guarda adeptos, bilhetes e rolotes num diário binário
+     *                           (pasta adeptos/diario) em vez de um ficheiro de texto por bilhete.
+     *             --retomar     implica --diario; no arranque, recupera o estado deixado pela
+     *                           execução anterior e, ao sair, mantém o diário no disco.
+     *             --assincrono  faz a escrita numa thread dedicada, fora do caminho da venda.
+     *             --esperar-escrita  com --assincrono, cada venda espera que o seu lote
+     *                           esteja no disco (por omissão, não espera).
+     *             --relogio=X   ritmo da simulação do jogo: real (por omissão), instantaneo
+     *                           ou um fator de aceleração (ex: --relogio=60).
+     *             --previsao=N  antes do menu, simula o jogo N vezes e mostra as probabilidades.
+     *             --liga[=N]    antes do menu, simula uma época de uma liga de 20 equipas e mostra a
+     *                           classificação; com N, simula também N épocas e mostra a previsão.
+     *             --lote[=F]    em vez do menu, executa os comandos do ficheiro F (ou do stdin)
+     *                           sem interação (ver ModoLote); o jogo corre com o relógio instantâneo,
+     *                           a menos que seja indicado outro com --relogio.
+     *             --http[=P]    liga também a API HTTP/JSON (ver ServidorHttp) na porta P
+     *                           (8080 por omissão), só para este computador. Com o menu, a API
+     *                           para quando o menu termina; com --lote, continua a atender pedidos
+     *                           depois do lote (ex: para carregar as rolotes) até o programa ser terminado.
+     *             --metricas=F  ao sair, guarda as métricas de desempenho (ver Metricas) no ficheiro F.
+     */
+    public static void main(String[] args) {
         System.out.println("\nBem-vindo ao Sistema de Gestão do Estádio!");
-        // 2. Criar os dados base do sistema (o estádio e o jogo)
+        // 1. Criar os dados base do sistema (o estádio e o jogo)
         Estadio estadio = criarDadosBase();
 
-        // 3. Entregar o controlo ao gestor de menus
+        // 2. Configurar a persistência e o ambiente (limpeza ao sair)
+        boolean retomar = Arrays.asList(args).contains("--retomar");
+        configurarPersistencia(estadio, args, retomar);
+        ServidorHttp servidor = iniciarServidorHttp(estadio, args);
+        configurarAmbiente(estadio, retomar, servidor, opcaoMetricas(args));
+        String lote = opcaoLote(args);
+        if (lote != null) {
+            estadio.getJogo().setRelogio(RelogioJogo.instantaneo());
+        }
+        configurarRelogio(estadio, args);
+        mostrarPrevisao(estadio, args);
+        mostrarLiga(estadio, args);
+
+        // 3. Entregar o controlo ao modo de lote ou ao gestor de menus
+        if (lote != null) {
+            executarLote(estadio, lote);
+            if (servidor != null) {
+                System.out.println("[INFO] A API HTTP continua disponível (Ctrl+C para terminar).");
+            }
+            return;
+        }
         MenuController menu = new MenuController(estadio);
         menu.iniciar(); // O programa principal agora corre dentro do controlador
+        if (servidor != null) {
+            servidor.parar();
+        }
+    }
+
+    /**
+     * Com a opção --http[=porta], liga a API HTTP do estádio.
+     * @return O servidor ligado, ou null se a opção não foi usada ou a porta não está disponível.
+     */
+    private static ServidorHttp iniciarServidorHttp(Estadio estadio, String[] args) {
+        for (String opcao : args) {
+            if (opcao.equals("--http") || opcao.startsWith("--http=")) {
+                try {
+                    int porta = opcao.equals("--http") ? 8080 : Integer.parseInt(opcao.substring("--http=".length()));
+                    ServidorHttp servidor = new ServidorHttp(estadio, porta);
+                    servidor.iniciar();
+                    System.out.println("[INFO] API HTTP disponível em http://localhost:" + servidor.getPorta() + "/");
+                    return servidor;
+                } catch (IOException | IllegalArgumentException e) {
+                    System.err.println("ERRO: Não foi possível ligar a API HTTP (" + opcao + "): " + e.getMessage());
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Lê a opção --lote.
+     * @return O ficheiro de comandos, "" para ler do stdin, ou null se a opção não foi usada.
+     */
+    private static String opcaoLote(String[] args) {
+        for (String opcao : args) {
+            if (opcao.equals("--lote")) {
+                return "";
+            }
+            if (opcao.startsWith("--lote=")) {
+                return opcao.substring("--lote=".length());
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return O ficheiro indicado em --metricas=F, ou null se a opção não foi usada.
+     */
+    private static Path opcaoMetricas(String[] args) {
+        for (String opcao : args) {
+            if (opcao.startsWith("--metricas=")) {
+                return Paths.get(opcao.substring("--metricas=".length()));
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Executa os comandos do ficheiro indicado (ou do stdin) com o ModoLote.
+     */
+    private static void executarLote(Estadio estadio, String ficheiro) {
+        ModoLote modoLote = new ModoLote(estadio);
+        try (BufferedReader entrada = ficheiro.isEmpty()
+                ? new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8), 1 << 16)
+                : Files.newBufferedReader(Paths.get(ficheiro), StandardCharsets.UTF_8)) {
+            modoLote.executar(entrada);
+        } catch (IOException e) {
+            System.err.println("ERRO: Falha ao ler os comandos do lote: " + e.getMessage());
+        }
     }
 
     /**
@@ -38,15 +154,8 @@ public class Main {
         // --- Detalhes dos Setores ---
         System.out.println("\nSetores criados:");
         for (Setor setor : estadio.getSetores()) {
-            System.out.printf("- Setor %s: %d lugares (%.0f€)\n",
-                    setor.getId(), setor.getCapacidade(), setor.getPrecoBase());
-        }
-
-        // --- Visualização dos Setores ---
-        System.out.println("\nVisualização inicial dos setores:");
-        System.out.println("(Legenda: [ ] = Livre, [X] = Ocupado)");
-        for (Setor setor : estadio.getSetores()) {
-            setor.mostrarLugares();
+            System.out.printf("- Setor %s: %d lugares (%s)\n",
+                    setor.getId(), setor.getCapacidade(), Dinheiro.formatar(setor.getPrecoBase()));
         }
 
         // --- Criação do Jogo ---
@@ -68,16 +177,21 @@ public class Main {
         imprimirDetalhesEquipa(visitante, "Equipa Visitante");
 
         LocalDateTime dataDoJogo = LocalDateTime.of(2025, 9, 11, 20, 45);
-        DateTimeFormatter formatadorData = DateTimeFormatter.ofPattern("dd/MM/yyyy");
-        DateTimeFormatter formatadorHora = DateTimeFormatter.ofPattern("HH:mm");
-        System.out.println("\nData do jogo: " + dataDoJogo.format(formatadorData));
-        System.out.println("Hora: " + dataDoJogo.format(formatadorHora));
+        System.out.println("\nData do jogo: " + dataDoJogo.format(Formatos.DATA));
+        System.out.println("Hora: " + dataDoJogo.format(Formatos.HORA));
 
         String arbitro = "João Pinheiro";
-        estadio.criarJogo(casa, visitante, dataDoJogo, arbitro);
+        Jogo jogo = estadio.criarJogo(casa, visitante, dataDoJogo, arbitro);
 
         System.out.println("\nJogo criado com sucesso: " + casa.getNome() + " vs " + visitante.getNome());
 
+        // --- Visualização dos Setores (a ocupação é de cada jogo) ---
+        System.out.println("\nVisualização inicial dos setores:");
+        System.out.println("(Legenda: [ ] = Livre, [X] = Ocupado)");
+        for (Setor setor : estadio.getSetores()) {
+            jogo.getMapa(setor).mostrarLugares();
+        }
+
         return estadio;
     }
 
@@ -98,11 +212,160 @@ public class Main {
     }
 
     /**
-     * Configura o ambiente, nomeadamente o hook de limpeza.
+     * Escolhe a persistência do estádio a partir das opções da linha de comandos.
+     * Por omissão, cada adepto e cada bilhete são guardados em ficheiros de texto.
+     * Ao retomar, o estado guardado no diário é reposto no estádio antes de o diário ser reaberto.
+     */
+    private static void configurarPersistencia(Estadio estadio, String[] args, boolean retomar) {
+        List<String> opcoes = Arrays.asList(args);
+        boolean assincrono = opcoes.contains("--assincrono");
+
+        Persistencia persistencia = estadio.getPersistencia();
+        if (retomar || opcoes.contains("--diario")) {
+            Path diretorioDiario = DIRETORIO_ADEPTOS.resolve("diario");
+            if (retomar) {
+                recuperarEstado(estadio, diretorioDiario);
+            } else {
+                limparDiretorio(diretorioDiario); // Um diário antigo não pode misturar-se com esta execução
+            }
+            // Com escrita assíncrona, é a thread de escrita que sincroniza no fim de cada lote.
+            persistencia = new DiarioTransacoes(diretorioDiario, assincrono ? null : Duration.ofMillis(10));
+            System.out.println("\n[INFO] Os dados serão guardados no diário '" + diretorioDiario + "'.");
+        }
+        if (assincrono) {
+            PersistenciaAssincrona.ModoDurabilidade modo = opcoes.contains("--esperar-escrita")
+                    ? PersistenciaAssincrona.ModoDurabilidade.ESPERAR_ESCRITA
+                    : PersistenciaAssincrona.ModoDurabilidade.SEM_ESPERA;
+            persistencia = new PersistenciaAssincrona(persistencia, modo, 8192, 512);
+            System.out.println("[INFO] Escrita assíncrona ativa (modo " + modo + ").");
+        }
+        estadio.setPersistencia(persistencia);
+    }
+
+    /**
+     * Escolhe o ritmo da simulação do jogo a partir da opção --relogio.
+     */
+    private static void configurarRelogio(Estadio estadio, String[] args) {
+        for (String opcao : args) {
+            if (opcao.startsWith("--relogio=")) {
+                try {
+                    estadio.getJogo().setRelogio(RelogioJogo.deDescricao(opcao.substring("--relogio=".length())));
+                    System.out.println("[INFO] Relógio do jogo: " + opcao.substring("--relogio=".length()) + ".");
+                } catch (IllegalArgumentException e) {
+                    System.err.println("ERRO: " + e.getMessage() + " A usar o tempo real.");
+                }
+            }
+        }
+    }
+
+    /**
+     * Com a opção --previsao=N, simula o jogo agendado N vezes (Monte Carlo) e mostra o resumo.
+     */
+    private static void mostrarPrevisao(Estadio estadio, String[] args) {
+        for (String opcao : args) {
+            if (opcao.startsWith("--previsao=")) {
+                try {
+                    long simulacoes = Long.parseLong(opcao.substring("--previsao=".length()));
+                    Jogo jogo = estadio.getJogo();
+                    long inicio = System.nanoTime();
+                    new SimuladorMonteCarlo(jogo.getEquipaCasa(), jogo.getEquipaVisitante()).simular(simulacoes).mostrarResumo();
+                    System.out.printf("(calculado em %d ms)\n", (System.nanoTime() - inicio) / 1_000_000);
+                } catch (IllegalArgumentException e) {
+                    System.err.println("ERRO: Opção inválida " + opcao + ": " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    /**
+     * Com a opção --liga[=N], simula uma época de uma liga de 20 equipas (as do jogo agendado
+     * e mais 18) e mostra a classificação; com N, simula também N épocas e mostra a previsão.
+     */
+    private static void mostrarLiga(Estadio estadio, String[] args) {
+        for (String opcao : args) {
+            if (opcao.equals("--liga") || opcao.startsWith("--liga=")) {
+                try {
+                    long epocas = opcao.equals("--liga") ? 0 : Long.parseLong(opcao.substring("--liga=".length()));
+                    Jogo jogo = estadio.getJogo();
+                    List<Equipa> equipas = new ArrayList<>();
+                    equipas.add(jogo.getEquipaCasa());
+                    equipas.add(jogo.getEquipaVisitante());
+                    for (int i = equipas.size() + 1; i <= 20; i++) {
+                        Equipa equipa = new Equipa("Equipa " + i, "-", 1900, "-");
+                        equipa.adicionarJogador("Jogador " + i);
+                        equipas.add(equipa);
+                    }
+                    Liga liga = new Liga("Liga", equipas);
+
+                    long inicio = System.nanoTime();
+                    Liga.Epoca epoca = liga.simularEpoca();
+                    long duracao = System.nanoTime() - inicio;
+                    epoca.mostrarClassificacao();
+                    System.out.printf("(%d jogos em %d jornadas, calculados em %.3f ms)\n",
+                            liga.getCalendario().size(), liga.getNumeroJornadas(), duracao / 1e6);
+
+                    if (epocas > 0) {
+                        inicio = System.nanoTime();
+                        liga.simularEpocas(epocas).mostrarResumo();
+                        System.out.printf("(calculado em %d ms)\n", (System.nanoTime() - inicio) / 1_000_000);
+                    }
+                } catch (IllegalArgumentException e) {
+                    System.err.println("ERRO: Opção inválida " + opcao + ": " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    /**
+     * Repõe no estádio os adeptos, bilhetes e rolotes guardados no diário da execução anterior.
+     * Se o diário existir mas não puder ser lido, o programa termina (código 1): continuar com
+     * o estádio vazio e escrever no mesmo diário misturaria os novos adeptos (com IDs repetidos)
+     * com o histórico que não foi lido.
+     */
+    private static void recuperarEstado(Estadio estadio, Path diretorioDiario) {
+        if (!DiarioTransacoes.existe(diretorioDiario)) {
+            System.out.println("\n[INFO] Não há estado anterior para recuperar; o estádio começa vazio.");
+            return;
+        }
+        try {
+            long inicio = System.nanoTime();
+            InstantaneoEstado estado = DiarioTransacoes.recuperar(diretorioDiario);
+            estado.restaurarEm(estadio);
+            System.out.printf("\n[INFO] Estado recuperado em %d ms: %d adepto(s), %d bilhete(s) vendido(s), %d rolote(s).\n",
+                    (System.nanoTime() - inicio) / 1_000_000, estadio.getAdeptos().size(),
+                    estadio.getBilhetesVendidos().size(), estadio.getRolotes().size());
+        } catch (IOException | RuntimeException e) {
+            System.err.println("ERRO: Falha ao recuperar o estado do diário: " + e.getMessage());
+            System.err.println("O programa vai terminar sem alterar o diário '" + diretorioDiario
+                    + "'. Corrija-o, ou apague-o para começar do zero.");
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Configura o ambiente, nomeadamente o hook de encerramento, que para a API HTTP
+     * (se estiver ligada), fecha a persistência (garantindo que tudo foi escrito), guarda
+     * as métricas (se foi pedido) e depois limpa os ficheiros. Ao retomar, os ficheiros
+     * ficam no disco para a próxima execução.
      */
-    private static void configurarAmbiente() {
-        Path diretorioAdeptos = Paths.get("adeptos");
-        Thread ganchoDeEncerramento = new Thread(() -> limparDiretorio(diretorioAdeptos));
+    private static void configurarAmbiente(Estadio estadio, boolean retomar, ServidorHttp servidor, Path ficheiroMetricas) {
+        Thread ganchoDeEncerramento = new Thread(() -> {
+            if (servidor != null) {
+                servidor.parar(); // Nenhuma venda pode chegar depois de a persistência fechar
+            }
+            estadio.getPersistencia().fechar();
+            estadio.fechar();
+            if (ficheiroMetricas != null) {
+                try {
+                    estadio.getMetricas().guardar(ficheiroMetricas);
+                } catch (IOException e) {
+                    System.err.println("ERRO: Falha ao guardar as métricas: " + e.getMessage());
+                }
+            }
+            if (!retomar) {
+                limparDiretorio(DIRETORIO_ADEPTOS);
+            }
+        });
         Runtime.getRuntime().addShutdownHook(ganchoDeEncerramento);
     }
 
@@ -0,0 +1,410 @@
+package src.POO.teste_final;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A ocupação dos lugares de um setor num jogo.
+ * O Setor só descreve a grelha (dimensões e preço) e é partilhado por todos os jogos do
+ * estádio; cada jogo tem o seu MapaLugares por setor, com um bit por lugar. Um estádio de
+ * 50 000 lugares ocupa assim cerca de 6 KB por jogo, e os bits de retenção só são criados
+ * quando o primeiro lugar do mapa é retido.
+ *
+ * A ocupação dos lugares é segura para várias bilheteiras em simultâneo: cada
+ * lugar é reclamado com uma operação atómica (CAS) sobre a palavra que o contém.
+ * Um lugar pode ainda estar retido (reservado temporariamente durante o pagamento):
+ * nesse caso está ocupado, mas volta a ficar livre se a reserva expirar.
+ */
+public class MapaLugares {
+
+    // --- CONSTANTES ---
+
+    // Cada palavra (long) guarda o estado de 64 lugares, um bit por lugar.
+    private static final int BITS_POR_PALAVRA = Setor.BITS_POR_PALAVRA;
+
+    // Acima deste número de lugares, o mapa visual é substituído por um resumo.
+    private static final int LIMITE_VISUALIZACAO = 400;
+
+    // --- ATRIBUTOS ---
+
+    private final Jogo jogo;                    // O jogo a que a ocupação se refere.
+    private final Setor setor;                  // A grelha do setor (partilhada por todos os jogos).
+    private final AtomicLongArray lugares;      // Bits de ocupação: 1 = ocupado, 0 = livre.
+    private volatile AtomicLongArray retidos;   // Bits de retenção (1 = reserva ainda não confirmada); criados na primeira retenção.
+    private final AtomicInteger lugaresLivres;  // Contador de lugares livres, mantido a cada ocupação.
+
+    // --- CONSTRUTOR ---
+
+    /**
+     * Cria o mapa de um setor com todos os lugares livres.
+     * Os mapas são criados pelo Jogo, através de Jogo.getMapa(); não devem ser criados diretamente.
+     * @param jogo O jogo a que o mapa se refere.
+     * @param setor O setor a que o mapa se refere.
+     */
+    MapaLugares(Jogo jogo, Setor setor) {
+        this.jogo = jogo;
+        this.setor = setor;
+        this.lugares = new AtomicLongArray(setor.getNumeroPalavras());
+        this.lugaresLivres = new AtomicInteger(setor.getCapacidade());
+    }
+
+    // --- GETTERS ---
+
+    public Jogo getJogo() {
+        return jogo;
+    }
+
+    public Setor getSetor() {
+        return setor;
+    }
+
+    /**
+     * Devolve o número total de lugares disponíveis no setor.
+     * O valor é mantido por um contador, por isso não é preciso percorrer a grelha.
+     * @return O número de lugares livres (não ocupados).
+     */
+    public int verificarDisponibilidade() {
+        return lugaresLivres.get();
+    }
+
+    /**
+     * Devolve o número de lugares ocupados (vendidos ou retidos).
+     * @return Os lugares ocupados.
+     */
+    public int getLugaresOcupados() {
+        return setor.getCapacidade() - lugaresLivres.get();
+    }
+
+    // --- MÉTODOS ---
+
+    /**
+     * Exibe uma representação visual da grelha de lugares do setor.
+     * Para setores muito grandes, mostra apenas um resumo da ocupação.
+     */
+    public void mostrarLugares() {
+        int filas = setor.getFilas();
+        int colunas = setor.getColunas();
+        System.out.println("\nEstado atual do Setor " + setor.getId() + ":");
+        if (setor.getCapacidade() > LIMITE_VISUALIZACAO) {
+            System.out.printf("(%d filas x %d lugares: %d livres, %d ocupados)\n",
+                    filas, colunas, verificarDisponibilidade(), getLugaresOcupados());
+            return;
+        }
+        System.out.println("(Legenda: [ ] = Livre, [X] = Ocupado, [R] = Reservado)");
+        StringBuilder linha = new StringBuilder(colunas * 4);
+        for (int i = 0; i < filas; i++) {
+            linha.setLength(0);
+            for (int j = 0; j < colunas; j++) {
+                if (isLugarRetido(i, j)) {
+                    linha.append("[R] ");
+                } else {
+                    linha.append(isLugarOcupado(i, j) ? "[X] " : "[ ] ");
+                }
+            }
+            System.out.println(linha);
+        }
+    }
+
+    /**
+     * Ocupa um lugar específico na grelha do setor.
+     * Não indica se o lugar já estava ocupado; para vendas deve usar-se tentarOcuparLugar().
+     * @param fila A fila do lugar (0 a filas - 1).
+     * @param coluna A coluna do lugar (0 a colunas - 1).
+     */
+    public void ocuparLugar(int fila, int coluna) {
+        tentarOcuparLugar(fila, coluna);
+    }
+
+    /**
+     * Tenta ocupar um lugar de forma atómica.
+     * Se duas bilheteiras tentarem vender o mesmo lugar ao mesmo tempo, apenas uma
+     * consegue: a verificação e a ocupação são feitas numa única operação CAS.
+     *
+     * @param fila A fila do lugar (0 a filas - 1).
+     * @param coluna A coluna do lugar (0 a colunas - 1).
+     * @return true se o lugar foi ocupado por esta chamada, false se já estava ocupado ou é inválido.
+     */
+    public boolean tentarOcuparLugar(int fila, int coluna) {
+        if (!setor.coordenadasValidas(fila, coluna)) {
+            return false;
+        }
+        int indice = setor.indicePalavra(fila, coluna);
+        long bit = 1L << (coluna % BITS_POR_PALAVRA);
+        while (true) {
+            long atual = this.lugares.get(indice);
+            if ((atual & bit) != 0) {
+                return false; // Outra venda chegou primeiro
+            }
+            if (this.lugares.compareAndSet(indice, atual, atual | bit)) {
+                this.lugaresLivres.decrementAndGet();
+                return true;
+            }
+            // A palavra mudou (outro lugar da mesma palavra foi vendido): tenta de novo.
+        }
+    }
+
+    /**
+     * Liberta um lugar ocupado, por exemplo quando o pagamento de um lugar já reclamado falha.
+     * @param fila A fila do lugar (0 a filas - 1).
+     * @param coluna A coluna do lugar (0 a colunas - 1).
+     * @return true se o lugar estava ocupado e foi libertado, false caso contrário.
+     */
+    public boolean libertarLugar(int fila, int coluna) {
+        if (!setor.coordenadasValidas(fila, coluna)) {
+            return false;
+        }
+        int indice = setor.indicePalavra(fila, coluna);
+        long bit = 1L << (coluna % BITS_POR_PALAVRA);
+        while (true) {
+            long atual = this.lugares.get(indice);
+            if ((atual & bit) == 0) {
+                return false;
+            }
+            if (this.lugares.compareAndSet(indice, atual, atual & ~bit)) {
+                this.lugaresLivres.incrementAndGet();
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Verifica se um lugar específico já está ocupado.
+     * @param fila A fila do lugar (0 a filas - 1).
+     * @param coluna A coluna do lugar (0 a colunas - 1).
+     * @return true se o lugar estiver ocupado, false caso contrário.
+     */
+    public boolean isLugarOcupado(int fila, int coluna) {
+        if (setor.coordenadasValidas(fila, coluna)) {
+            long bit = 1L << (coluna % BITS_POR_PALAVRA);
+            return (this.lugares.get(setor.indicePalavra(fila, coluna)) & bit) != 0;
+        }
+        return true; // Considera ocupado se as coordenadas forem inválidas
+    }
+
+    /**
+     * Procura e reserva um bloco de lugares lado a lado na mesma fila.
+     * Os melhores lugares são os das filas da frente (fila 0 é a mais próxima do relvado)
+     * e, dentro de cada fila, os mais à esquerda.
+     * A pesquisa trabalha palavra a palavra (64 lugares de cada vez) e o bloco é
+     * reclamado por inteiro ou não é reclamado de todo: se outra venda ocupar um dos
+     * lugares entretanto, a parte já reclamada é devolvida e a pesquisa recomeça.
+     *
+     * @param quantidade O número de lugares seguidos pretendidos.
+     * @return Um array {fila, colunaInicial} do bloco reservado, ou null se não existir nenhum bloco livre.
+     */
+    public int[] reservarBlocoContiguo(int quantidade) {
+        if (quantidade <= 0 || quantidade > setor.getColunas()) {
+            return null;
+        }
+        while (true) {
+            long bloco = procurarBlocoContiguo(quantidade);
+            if (bloco < 0) {
+                return null; // Não há nenhum bloco livre com este tamanho
+            }
+            int fila = (int) (bloco >>> 32);
+            int colunaInicial = (int) bloco;
+            if (reclamarBloco(fila, colunaInicial, quantidade)) {
+                return new int[] {fila, colunaInicial};
+            }
+            // Perdemos a corrida para outra venda: procura o próximo melhor bloco.
+        }
+    }
+
+    /**
+     * Verifica se um lugar está retido por uma reserva ainda não confirmada.
+     * @param fila A fila do lugar (0 a filas - 1).
+     * @param coluna A coluna do lugar (0 a colunas - 1).
+     * @return true se o lugar estiver reservado, false caso contrário.
+     */
+    public boolean isLugarRetido(int fila, int coluna) {
+        AtomicLongArray retidos = this.retidos;
+        if (retidos != null && setor.coordenadasValidas(fila, coluna)) {
+            long bit = 1L << (coluna % BITS_POR_PALAVRA);
+            return (retidos.get(setor.indicePalavra(fila, coluna)) & bit) != 0;
+        }
+        return false;
+    }
+
+    /**
+     * Retém um lugar de forma atómica, sem o vender.
+     * O lugar fica indisponível para as outras vendas até a reserva ser confirmada,
+     * cancelada ou expirar. Normalmente é usado através de Estadio.reterLugar(),
+     * que agenda a expiração.
+     *
+     * @param fila A fila do lugar (0 a filas - 1).
+     * @param coluna A coluna do lugar (0 a colunas - 1).
+     * @return A reserva criada, ou null se o lugar já estava ocupado ou é inválido.
+     */
+    public Reserva reterLugar(int fila, int coluna) {
+        if (!tentarOcuparLugar(fila, coluna)) {
+            return null;
+        }
+        marcarRetido(fila, coluna);
+        return new Reserva(this, fila, coluna);
+    }
+
+    /**
+     * Retém um bloco de lugares juntos, escolhidos como em reservarBlocoContiguo().
+     * @param quantidade O número de lugares seguidos pretendidos.
+     * @return As reservas dos lugares do bloco (da esquerda para a direita), ou null se não houver bloco livre.
+     */
+    public List<Reserva> reterBlocoContiguo(int quantidade) {
+        int[] bloco = reservarBlocoContiguo(quantidade);
+        if (bloco == null) {
+            return null;
+        }
+        List<Reserva> reservas = new ArrayList<>(quantidade);
+        for (int i = 0; i < quantidade; i++) {
+            marcarRetido(bloco[0], bloco[1] + i);
+            reservas.add(new Reserva(this, bloco[0], bloco[1] + i));
+        }
+        return reservas;
+    }
+
+    /**
+     * Termina a retenção de um lugar. Chamado pela Reserva quando é confirmada
+     * (o lugar continua ocupado) ou cancelada/expirada (o lugar é libertado).
+     */
+    void terminarRetencao(int fila, int coluna, boolean libertar) {
+        AtomicLongArray retidos = getRetidos();
+        int indice = setor.indicePalavra(fila, coluna);
+        long bit = 1L << (coluna % BITS_POR_PALAVRA);
+        while (true) {
+            long atual = retidos.get(indice);
+            if (retidos.compareAndSet(indice, atual, atual & ~bit)) {
+                break;
+            }
+        }
+        if (libertar) {
+            libertarLugar(fila, coluna);
+        }
+    }
+
+    // --- MÉTODOS AUXILIARES ---
+
+    // Devolve os bits de retenção, criando-os na primeira vez (a maioria dos jogos futuros nunca retém lugares).
+    private AtomicLongArray getRetidos() {
+        AtomicLongArray retidos = this.retidos;
+        if (retidos == null) {
+            synchronized (this) {
+                retidos = this.retidos;
+                if (retidos == null) {
+                    retidos = new AtomicLongArray(setor.getNumeroPalavras());
+                    this.retidos = retidos;
+                }
+            }
+        }
+        return retidos;
+    }
+
+    // Marca um lugar (já reclamado) como retido.
+    private void marcarRetido(int fila, int coluna) {
+        AtomicLongArray retidos = getRetidos();
+        int indice = setor.indicePalavra(fila, coluna);
+        long bit = 1L << (coluna % BITS_POR_PALAVRA);
+        while (true) {
+            long atual = retidos.get(indice);
+            if (retidos.compareAndSet(indice, atual, atual | bit)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Procura o primeiro bloco livre com o tamanho pedido, sem o reclamar.
+     * Dentro de cada palavra percorre apenas as sequências de lugares livres
+     * (não os lugares um a um), e uma sequência que chega ao fim da palavra
+     * continua na palavra seguinte da mesma fila.
+     * @return (fila << 32 | colunaInicial), ou -1 se não existir.
+     */
+    private long procurarBlocoContiguo(int quantidade) {
+        int palavrasPorFila = setor.getPalavrasPorFila();
+        for (int fila = 0; fila < setor.getFilas(); fila++) {
+            int sequencia = 0;          // Lugares livres seguidos que chegam ao fim da palavra anterior
+            int inicioSequencia = 0;
+            for (int p = 0; p < palavrasPorFila; p++) {
+                long livres = ~this.lugares.get(fila * palavrasPorFila + p) & setor.mascaraPalavra(p);
+                int base = p * BITS_POR_PALAVRA;
+                boolean continua = false;
+                while (livres != 0) {
+                    int inicio = Long.numberOfTrailingZeros(livres);
+                    int comprimento = Long.numberOfTrailingZeros(~(livres >>> inicio));
+                    int total = comprimento;
+                    int coluna = base + inicio;
+                    if (inicio == 0 && sequencia > 0) {
+                        // Junta-se à sequência que vinha da palavra anterior
+                        total += sequencia;
+                        coluna = inicioSequencia;
+                    }
+                    if (total >= quantidade) {
+                        return ((long) fila << 32) | coluna;
+                    }
+                    int fim = inicio + comprimento;
+                    if (fim == BITS_POR_PALAVRA) {
+                        sequencia = total;
+                        inicioSequencia = coluna;
+                        continua = true;
+                        break;
+                    }
+                    livres &= -1L << fim; // Descarta a sequência já analisada
+                }
+                if (!continua) {
+                    sequencia = 0;
+                }
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Reclama atomicamente os lugares [colunaInicial, colunaInicial + quantidade) de uma fila.
+     * Cada palavra envolvida é reclamada com um CAS; se alguma já tiver um dos lugares
+     * ocupado, as palavras anteriores são devolvidas e o método devolve false.
+     */
+    private boolean reclamarBloco(int fila, int colunaInicial, int quantidade) {
+        int palavrasPorFila = setor.getPalavrasPorFila();
+        int colunaFinal = colunaInicial + quantidade; // Exclusiva
+        int primeiraPalavra = colunaInicial / BITS_POR_PALAVRA;
+        int ultimaPalavra = (colunaFinal - 1) / BITS_POR_PALAVRA;
+
+        for (int p = primeiraPalavra; p <= ultimaPalavra; p++) {
+            long mascara = mascaraIntervalo(p, colunaInicial, colunaFinal);
+            int indice = fila * palavrasPorFila + p;
+            boolean reclamada = false;
+            while (!reclamada) {
+                long atual = this.lugares.get(indice);
+                if ((atual & mascara) != 0) {
+                    // Um dos lugares já foi vendido: desfaz as palavras já reclamadas.
+                    for (int q = primeiraPalavra; q < p; q++) {
+                        libertarMascara(fila * palavrasPorFila + q, mascaraIntervalo(q, colunaInicial, colunaFinal));
+                    }
+                    return false;
+                }
+                reclamada = this.lugares.compareAndSet(indice, atual, atual | mascara);
+            }
+        }
+        this.lugaresLivres.addAndGet(-quantidade);
+        return true;
+    }
+
+    // Limpa os bits indicados de uma palavra (usado para desfazer uma reserva parcial).
+    private void libertarMascara(int indice, long mascara) {
+        while (true) {
+            long atual = this.lugares.get(indice);
+            if (this.lugares.compareAndSet(indice, atual, atual & ~mascara)) {
+                return;
+            }
+        }
+    }
+
+    // Bits da palavra p (dentro de uma fila) que pertencem ao intervalo de colunas [inicio, fim).
+    private static long mascaraIntervalo(int p, int inicio, int fim) {
+        int base = p * BITS_POR_PALAVRA;
+        int de = Math.max(inicio - base, 0);
+        int ate = Math.min(fim - base, BITS_POR_PALAVRA); // Exclusivo
+        long ateMascara = ate == BITS_POR_PALAVRA ? -1L : (1L << ate) - 1;
+        return ateMascara & (-1L << de);
+    }
+}
@@ -1,11 +1,16 @@
 package src.POO.teste_final;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
 import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
 import java.util.*;
 
 public class MenuController {
 
+    // --- CONSTANTES ---
+    private static final int TAMANHO_BLOCO_RELATORIO = 64 * 1024;  // Caracteres mostrados de cada vez nas listagens longas.
+
     // --- ATRIBUTOS ---
     private Estadio estadio;
     private Scanner leitor;
@@ -24,15 +29,19 @@ public class MenuController {
     public void iniciar() {
         // Fluxo de inicialização interativo, executado apenas uma vez.
         System.out.println("\n--- Configuração Inicial do Evento ---");
-        System.out.println("\n--- Criação da Primeira Rolote ---");
-        processoCriarRolote();
-
-        System.out.println("\n--- Criação do Primeiro Adepto e Compra de Bilhete(s) ---");
-        Adepto primeiroAdepto = processoCriarAdepto();
-        if (primeiroAdepto != null) {
-            System.out.println("\nAdepto " + primeiroAdepto.getId() + " criado com sucesso!");
-            System.out.println("Avançando para a compra de bilhete(s)...");
-            processoCompraBilhete(primeiroAdepto);
+        try {
+            System.out.println("\n--- Criação da Primeira Rolote ---");
+            processoCriarRolote();
+
+            System.out.println("\n--- Criação do Primeiro Adepto e Compra de Bilhete(s) ---");
+            Adepto primeiroAdepto = processoCriarAdepto();
+            if (primeiroAdepto != null) {
+                System.out.println("\nAdepto " + primeiroAdepto.getCodigo() + " criado com sucesso!");
+                System.out.println("Avançando para a compra de bilhete(s)...");
+                processoCompraBilhete(primeiroAdepto);
+            }
+        } catch (UncheckedIOException e) {
+            mostrarFalhaPersistencia(e);
         }
 
         // Após a configuração inicial, o programa entra no menu principal.
@@ -53,6 +62,7 @@ public class MenuController {
             System.out.println("    4. Comprar mais bilhetes");
             System.out.println("    5. Ver Estatísticas do Estádio");
             System.out.println("    6. Iniciar Jogo");
+            System.out.println("    7. Ver Métricas de Desempenho");
             System.out.println("    0. Sair do Programa");
             System.out.print("Sua escolha: ");
 
@@ -66,7 +76,9 @@ public class MenuController {
                         break;
                     case 2:
                         Adepto novoAdepto = processoCriarAdepto();
-                        System.out.println("Adepto " + novoAdepto.getId() + " criado com sucesso!");
+                        if (novoAdepto != null) {
+                            System.out.println("Adepto " + novoAdepto.getCodigo() + " criado com sucesso!");
+                        }
                         break;
                     case 3:
                         processoComprarComida();
@@ -86,6 +98,9 @@ public class MenuController {
                         }
                         sair = true; // Termina o programa após o jogo
                         break;
+                    case 7:
+                        processoVerMetricas();
+                        break;
                     case 0:
                         sair = true;
                         break;
@@ -95,11 +110,18 @@ public class MenuController {
             } catch (InputMismatchException e) {
                 System.out.println("ERRO: Entrada inválida. Por favor, insira um número.");
                 leitor.next(); // Limpa o buffer do scanner
+            } catch (UncheckedIOException e) {
+                mostrarFalhaPersistencia(e);
             }
         }
         System.out.println("\nObrigado por usar o Sistema de Gestão do Estádio!");
     }
 
+    // Uma operação cujos dados não puderam ser guardados já foi desfeita por quem a fez.
+    private void mostrarFalhaPersistencia(UncheckedIOException e) {
+        System.out.println("ERRO: " + e.getMessage() + " A operação foi cancelada.");
+    }
+
     /**
      * Gera e exibe o relatório final completo do evento após o término do jogo.
      */
@@ -119,35 +141,32 @@ public class MenuController {
 
         // --- 1. Bilheteira ---
         System.out.println("--- 1. Bilheteira ---");
-        int capacidadeTotal = estadio.getCapacidadeMaxima();
-        int lugaresOcupados = estadio.getBilhetesVendidos().size();
+        // Uma única fotografia dos contadores do estádio, para que os números do relatório batam certo entre si.
+        EstatisticasEstadio estatisticas = estadio.getEstatisticas();
 
         System.out.println("- Ocupação por setor:");
-        for (Setor setor : estadio.getSetores()) {
-            int ocupadosSetor = setor.getCapacidade() - setor.verificarDisponibilidade();
-            System.out.printf("  * Setor %s: %d/%d\n", setor.getId(), ocupadosSetor, setor.getCapacidade());
+        for (EstatisticasEstadio.OcupacaoSetor setor : estatisticas.getSetores()) {
+            System.out.printf("  * Setor %s: %d/%d\n", setor.getId(), setor.getOcupados(), setor.getCapacidade());
         }
-        System.out.printf("- Lugares Ocupados: %d/%d\n", lugaresOcupados, capacidadeTotal);
-        double receitaBilheteira = jogo.calcularReceitaBilheteira();
-        System.out.printf("- Receita da Bilheteira: %.2f€\n", receitaBilheteira);
+        System.out.printf("- Lugares Ocupados: %d/%d\n", estatisticas.getLugaresOcupados(), estatisticas.getCapacidade());
+        long receitaBilheteira = jogo.calcularReceitaBilheteira();
+        System.out.printf("- Receita da Bilheteira: %s\n", Dinheiro.formatar(receitaBilheteira));
 
         // --- 2. Rolotes ---
         System.out.println("\n--- 2. Rolotes ---");
-        double faturacaoTotalRolotes = 0.0;
         if (estadio.getRolotes().isEmpty()) {
             System.out.println("Nenhuma rolote operou durante o evento.");
         } else {
             for (Rolote rolote : estadio.getRolotes()) {
-                System.out.printf("- Faturação da Rolote '%s': %.2f€\n", rolote.getNome(), rolote.getFaturamentoDiario());
-                faturacaoTotalRolotes += rolote.getFaturamentoDiario();
+                System.out.printf("- Faturação da Rolote '%s': %s\n", rolote.getNome(), Dinheiro.formatar(rolote.getFaturamentoDiario()));
             }
         }
-        System.out.printf("- Faturação Total das Rolotes: %.2f€\n", faturacaoTotalRolotes);
+        System.out.printf("- Faturação Total das Rolotes: %s\n", Dinheiro.formatar(estatisticas.getFaturacaoRolotes()));
 
         // --- 3. Receita Total ---
         System.out.println("\n--- 3. Receita Total do Evento ---");
-        double receitaTotal = receitaBilheteira + faturacaoTotalRolotes;
-        System.out.printf("Receita Total (Bilhetes + Rolotes): %.2f€\n", receitaTotal);
+        long receitaTotal = Dinheiro.somar(receitaBilheteira, estatisticas.getFaturacaoRolotes());
+        System.out.printf("Receita Total (Bilhetes + Rolotes): %s\n", Dinheiro.formatar(receitaTotal));
         System.out.println("\nTodos os dados foram salvos durante a execução.");
         System.out.println("===============================================");
     }
@@ -222,7 +241,8 @@ public class MenuController {
             } while (stock < 0);
             leitor.nextLine();
 
-            novaRolote.adicionaProduto(new Produto(i + 1, nomeProduto, preco, stock));
+            // O preço é lido em euros e guardado em cêntimos.
+            novaRolote.adicionaProduto(new Produto(i + 1, nomeProduto, Dinheiro.deEuros(preco), stock));
         }
         novaRolote.abrirRolote();
         estadio.adicionarRolote(novaRolote);
@@ -268,10 +288,12 @@ public class MenuController {
             System.out.print("Cartão de Cidadão (CC - 8 dígitos numéricos): ");
             cc = leitor.nextLine().trim();
             // A expressão regular "\\d{8}" verifica se a string contém exatamente 8 dígitos.
-            if (cc.matches("\\d{8}")) {
-                ccValido = true;
-            } else {
+            if (!cc.matches("\\d{8}")) {
                 System.out.println("ERRO: O CC deve conter exatamente 8 dígitos numéricos. Tente novamente.");
+            } else if (estadio.existeDocumento(cc)) {
+                System.out.println("ERRO: Já existe um adepto registado com este CC. Tente novamente.");
+            } else {
+                ccValido = true;
             }
         } while (!ccValido);
 
@@ -300,16 +322,21 @@ public class MenuController {
         } while (!carteiraValida);
         leitor.nextLine();
 
-        return estadio.criarNovoAdepto(nome, idade, cc, endereco, carteira);
+        return estadio.criarNovoAdepto(nome, idade, cc, endereco, Dinheiro.deEuros(carteira));
     }
 
     /**
      * Guia o utilizador na compra de um bilhete para um adepto específico.
      */
     private void processoCompraBilhete(Adepto adepto) {
-        System.out.println("\n--- Comprar Bilhete(s) para adepto " + adepto.getId() + " ---");
-        System.out.printf("Saldo atual da carteira: %.2f€\n", adepto.getCarteira());
+        System.out.println("\n--- Comprar Bilhete(s) para adepto " + adepto.getCodigo() + " ---");
+        System.out.printf("Saldo atual da carteira: %s\n", Dinheiro.formatar(adepto.getCarteira()));
 
+        Jogo jogo = escolherJogo();
+        if (jogo == null) {
+            System.out.println("ERRO: Não há nenhum jogo por realizar.");
+            return;
+        }
 
         // 1. PERGUNTAR QUANTOS BILHETES
         int bilhetesAComprar = 0;
@@ -327,78 +354,60 @@ public class MenuController {
         } while (bilhetesAComprar < 0);
         leitor.nextLine(); // Limpa o buffer
 
-        // 2. LOOP PARA COMPRAR CADA BILHETE
-        for (int i = 1; i <= bilhetesAComprar; i++) {
-            System.out.printf("\n--- A comprar bilhete %d de %d ---\n", i, bilhetesAComprar);
-
-            System.out.println("Setores disponíveis:");
-            for (Setor setor : estadio.getSetores()) {
-                System.out.printf("Setor %s: %.2f€ [%d/%d lugares disponíveis]\n",
-                        setor.getId(), setor.getPrecoBase(), setor.verificarDisponibilidade(), setor.getCapacidade());
-            }
-
-            Setor setorEscolhido = null;
-            while (setorEscolhido == null) {
-                System.out.print("Selecione um setor (A, B, C, D): ");
-                String idSetor = leitor.nextLine().trim().toUpperCase();
-                for (Setor setor : estadio.getSetores()) {
-                    if (setor.getId().equals(idSetor)) {
-                        setorEscolhido = setor;
-                        break;
+        // 2. OFERECER LUGARES JUNTOS PARA COMPRAS DE GRUPO
+        if (bilhetesAComprar > 1) {
+            System.out.print("Deseja " + bilhetesAComprar + " lugares juntos, escolhidos automaticamente? (S/N): ");
+            String resposta = leitor.nextLine().trim();
+            if (resposta.equalsIgnoreCase("S")) {
+                Boolean resultado = processoCompraBlocoAutomatico(adepto, jogo, bilhetesAComprar);
+                if (resultado == null) {
+                    System.out.println("Vamos escolher os lugares um a um.");
+                } else {
+                    if (resultado) {
+                        System.out.println("\nSeja bem-vindo ao " + estadio.getNome());
                     }
+                    return;
                 }
-                if (setorEscolhido == null) System.out.println("ERRO: Setor inválido.");
             }
+        }
+
+        // 3. LOOP PARA COMPRAR CADA BILHETE
+        for (int i = 1; i <= bilhetesAComprar; i++) {
+            System.out.printf("\n--- A comprar bilhete %d de %d ---\n", i, bilhetesAComprar);
 
-            setorEscolhido.mostrarLugares();
+            Setor setorEscolhido = escolherSetor(jogo);
+            jogo.getMapa(setorEscolhido).mostrarLugares();
 
             boolean lugarComprado = false;
             while (!lugarComprado) {
-                // 3. PEDIR APENAS O NÚMERO DO LUGAR
+                // 4. PEDIR APENAS O NÚMERO DO LUGAR
                 int numLugar = -1;
+                int capacidadeSetor = setorEscolhido.getCapacidade();
                 do {
                     try {
-                        System.out.print("Selecione o número do lugar (1-25): ");
+                        System.out.print("Selecione o número do lugar (1-" + capacidadeSetor + "): ");
                         numLugar = leitor.nextInt();
                     } catch (InputMismatchException e) {
                         leitor.next();
                     }
-                } while (numLugar < 1 || numLugar > 25);
+                } while (numLugar < 1 || numLugar > capacidadeSetor);
                 leitor.nextLine(); // Limpa o buffer
 
-                // Converter número do lugar (1-25) em coordenadas de matriz (0-4, 0-4)
-                int fila = (numLugar - 1) / 5;
-                int coluna = (numLugar - 1) % 5;
+                // Converter número do lugar (1-capacidade) em coordenadas de matriz (fila, coluna)
+                int fila = (numLugar - 1) / setorEscolhido.getColunas();
+                int coluna = (numLugar - 1) % setorEscolhido.getColunas();
 
-                if (setorEscolhido.isLugarOcupado(fila, coluna)) {
+                // Reserva o lugar de forma atómica antes de cobrar, para que duas
+                // bilheteiras nunca vendam o mesmo lugar.
+                Reserva reserva = estadio.reterLugar(jogo, setorEscolhido, fila, coluna);
+                if (reserva == null) {
                     System.out.println("ERRO: Esse lugar já está ocupado. Por favor, escolha outro.");
+                } else if (venderLugarReservado(adepto, reserva)) {
+                    lugarComprado = true; // Avança para o próximo bilhete (se houver)
                 } else {
-                    // Lugar válido e livre, processar compra
-                    String idBilhete = setorEscolhido.getId() + numLugar;
-                    String descricaoLugar = String.format("%d (Fila %d, Posição %d)", numLugar, fila + 1, coluna + 1);
-                    Bilhete novoBilhete = new Bilhete(idBilhete, setorEscolhido, descricaoLugar, setorEscolhido.getPrecoBase());
-
-                    double carteiraAnterior = adepto.getCarteira();
-
-                    if (adepto.comprarBilhete(novoBilhete)) {
-                        // Se a compra foi bem-sucedida, o adepto já tem o saldo atualizado.
-                        setorEscolhido.ocuparLugar(fila, coluna);
-                        estadio.adicionarBilheteVendido(novoBilhete);
-
-                        System.out.println("\n=== Confirmação do bilhete ===");
-                        System.out.println(novoBilhete.toString()); // Usa o toString() que já formata os detalhes
-
-                        System.out.println("\nProcessando pagamento...");
-                        System.out.printf("Carteira anterior: %.2f€\n", carteiraAnterior);
-                        System.out.printf("Pagamento efetuado: -%.2f€\n", novoBilhete.getPreco());
-                        System.out.printf("Carteira atual: %.2f€\n", adepto.getCarteira());
-
-                        lugarComprado = true; // Avança para o próximo bilhete (se houver)
-                    } else {
-                        // Não tinha dinheiro, a compra falhou
-                        System.out.println("A compra falhou.");
-                        return;
-                    }
+                    // A compra falhou (o lugar já foi devolvido)
+                    System.out.println("A compra falhou.");
+                    return;
                 }
             }
         }
@@ -406,6 +415,143 @@ public class MenuController {
         // A mensagem "Menu" será impressa pelo loop principal quando este método terminar.
     }
 
+    /**
+     * Compra um bloco de lugares juntos num setor, escolhidos automaticamente
+     * (os melhores lugares livres, das filas da frente para trás).
+     * O bloco é reservado por inteiro antes de qualquer pagamento e os lugares
+     * ficam retidos até cada bilhete ser pago.
+     *
+     * @param adepto O adepto que compra os bilhetes.
+     * @param jogo O jogo para o qual são os bilhetes.
+     * @param quantidade O número de lugares juntos pretendidos.
+     * @return true se todos foram comprados, false se o pagamento falhou a meio,
+     *         ou null se o setor não tem lugares juntos suficientes (nada foi reservado).
+     */
+    private Boolean processoCompraBlocoAutomatico(Adepto adepto, Jogo jogo, int quantidade) {
+        Setor setorEscolhido = escolherSetor(jogo);
+        List<Reserva> reservas = estadio.reterBlocoContiguo(jogo, setorEscolhido, quantidade);
+        if (reservas == null) {
+            System.out.printf("Não existem %d lugares juntos disponíveis no Setor %s.\n", quantidade, setorEscolhido.getId());
+            return null;
+        }
+
+        Reserva primeira = reservas.get(0);
+        System.out.printf("Lugares reservados: Setor %s, Fila %d, Posições %d a %d\n",
+                setorEscolhido.getId(), primeira.getFila() + 1, primeira.getColuna() + 1, primeira.getColuna() + quantidade);
+
+        for (int i = 0; i < quantidade; i++) {
+            System.out.printf("\n--- A comprar bilhete %d de %d ---\n", i + 1, quantidade);
+            if (!venderLugarReservado(adepto, reservas.get(i))) {
+                // Devolve os lugares do bloco que ainda não foram pagos
+                for (int j = i + 1; j < quantidade; j++) {
+                    reservas.get(j).cancelar();
+                }
+                System.out.println("A compra falhou. Os restantes lugares do bloco foram libertados.");
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Escolhe o jogo para o qual se vendem bilhetes, entre os que ainda não terminaram.
+     * Se só houver um (o caso habitual), usa-o sem perguntar; caso contrário, mostra os
+     * jogos e pede um.
+     * @return O jogo escolhido, ou null se não houver jogos por realizar.
+     */
+    private Jogo escolherJogo() {
+        List<Jogo> porRealizar = new ArrayList<>();
+        for (Jogo jogo : estadio.getCalendario()) {
+            if (!jogo.isTerminado()) {
+                porRealizar.add(jogo);
+            }
+        }
+        if (porRealizar.size() <= 1) {
+            return porRealizar.isEmpty() ? null : porRealizar.get(0);
+        }
+        System.out.println("Jogos disponíveis:");
+        for (Jogo jogo : porRealizar) {
+            System.out.printf("%d. %s vs %s (%s)\n", jogo.getNumero(), jogo.getEquipaCasa().getNome(),
+                    jogo.getEquipaVisitante().getNome(), jogo.getDataHora().format(Formatos.DATA_HORA));
+        }
+
+        Jogo jogoEscolhido = null;
+        while (jogoEscolhido == null) {
+            System.out.print("Selecione o número do jogo: ");
+            try {
+                jogoEscolhido = estadio.procurarJogo(Integer.parseInt(leitor.nextLine().trim()));
+            } catch (NumberFormatException e) {
+                // Tratado abaixo, como um número fora do intervalo
+            }
+            if (!porRealizar.contains(jogoEscolhido)) {
+                jogoEscolhido = null;   // Não existe, ou já terminou
+            }
+            if (jogoEscolhido == null) System.out.println("ERRO: Jogo inválido.");
+        }
+        return jogoEscolhido;
+    }
+
+    /**
+     * Mostra os setores, com os lugares livres no jogo indicado, e pede ao utilizador que escolha um.
+     * @param jogo O jogo para o qual são os bilhetes.
+     * @return O setor escolhido.
+     */
+    private Setor escolherSetor(Jogo jogo) {
+        System.out.println("Setores disponíveis:");
+        for (Setor setor : estadio.getSetores()) {
+            System.out.printf("Setor %s: %s [%d/%d lugares disponíveis]\n",
+                    setor.getId(), Dinheiro.formatar(setor.getPrecoBase()),
+                    setor.getCapacidade() - jogo.getLugaresOcupados(setor), setor.getCapacidade());
+        }
+
+        Setor setorEscolhido = null;
+        while (setorEscolhido == null) {
+            System.out.print("Selecione um setor (A, B, C, D): ");
+            String idSetor = leitor.nextLine().trim().toUpperCase();
+            for (Setor setor : estadio.getSetores()) {
+                if (setor.getId().equals(idSetor)) {
+                    setorEscolhido = setor;
+                    break;
+                }
+            }
+            if (setorEscolhido == null) System.out.println("ERRO: Setor inválido.");
+        }
+        return setorEscolhido;
+    }
+
+    /**
+     * Emite e cobra o bilhete de um lugar reservado e confirma a reserva.
+     * Se o pagamento falhar, a reserva é cancelada; se a reserva expirar enquanto
+     * o pagamento é validado, o bilhete é reembolsado.
+     *
+     * @return true se o bilhete foi pago e o lugar ficou vendido, false caso contrário.
+     */
+    private boolean venderLugarReservado(Adepto adepto, Reserva reserva) {
+        long carteiraAnterior = adepto.getCarteira();
+
+        Estadio.Venda venda = estadio.venderReserva(adepto, reserva);
+        switch (venda.getResultado()) {
+            case SALDO_INSUFICIENTE:
+                System.out.println("Erro: " + adepto.getNome() + " não tem saldo suficiente para comprar o bilhete.");
+                return false;
+            case RESERVA_EXPIRADA:
+                System.out.println("ERRO: A reserva do lugar expirou. O valor foi devolvido à carteira.");
+                return false;
+            default:
+                break;
+        }
+        Bilhete novoBilhete = venda.getBilhete();
+
+        System.out.println("\n=== Confirmação do bilhete ===");
+        System.out.println(novoBilhete.toString()); // Usa o toString() que já formata os detalhes
+
+        System.out.println("\nProcessando pagamento...");
+        System.out.printf("Carteira anterior: %s\n", Dinheiro.formatar(carteiraAnterior));
+        System.out.printf("Pagamento efetuado: -%s\n", Dinheiro.formatar(novoBilhete.getPreco()));
+        System.out.printf("Carteira atual: %s\n", Dinheiro.formatar(adepto.getCarteira()));
+        return true;
+    }
+
     /**
      * Permite que um adepto já existente compre bilhetes adicionais.
      * Começa por pedir o ID do adepto.
@@ -422,15 +568,8 @@ public class MenuController {
         System.out.print("Por favor, insira o seu ID de Adepto (ex: AD001): ");
         String idAdeptoInput = leitor.nextLine().trim();
 
-        Adepto adeptoEncontrado = null;
-        // Procura o adepto na lista do estádio
-        for (Adepto adepto : estadio.getAdeptos()) {
-            // Compara os IDs ignorando maiúsculas/minúsculas para ser mais amigável
-            if (adepto.getId().equalsIgnoreCase(idAdeptoInput)) {
-                adeptoEncontrado = adepto;
-                break; // Encontrou o adepto, pode parar de procurar
-            }
-        }
+        // Procura o adepto no índice do estádio (ignora maiúsculas/minúsculas para ser mais amigável)
+        Adepto adeptoEncontrado = estadio.procurarAdepto(idAdeptoInput);
 
         // Verifica se o adepto foi encontrado
         if (adeptoEncontrado != null) {
@@ -454,21 +593,15 @@ public class MenuController {
         }
         System.out.print("Por favor, insira o seu ID de Adepto (ex: AD001): ");
         String idAdeptoInput = leitor.nextLine().trim();
-        Adepto adeptoComprador = null;
-        for (Adepto adepto : estadio.getAdeptos()) {
-            if (adepto.getId().equalsIgnoreCase(idAdeptoInput)) {
-                adeptoComprador = adepto;
-                break;
-            }
-        }
+        Adepto adeptoComprador = estadio.procurarAdepto(idAdeptoInput);
         if (adeptoComprador == null) {
             System.out.println("ERRO: Adepto com o ID '" + idAdeptoInput + "' não foi encontrado.");
             return;
         }
 
         // Mostra o nome e o saldo do adepto antes de começar a compra.
-        System.out.printf("Bem-vindo, %s(%s) O seu saldo atual é de %.2f€\n",
-                adeptoComprador.getNome(), adeptoComprador.getId(), adeptoComprador.getCarteira());
+        System.out.printf("Bem-vindo, %s(%s) O seu saldo atual é de %s\n",
+                adeptoComprador.getNome(), adeptoComprador.getCodigo(), Dinheiro.formatar(adeptoComprador.getCarteira()));
 
         // Passo 2: Escolher a Rolote
         List<Rolote> rolotesAbertas = new ArrayList<>();
@@ -543,41 +676,36 @@ public class MenuController {
             return;
         }
 
-        // 4.1: Pré-verificação do stock de TODOS os itens no carrinho
-        boolean stockSuficienteParaTudo = true;
-        for (Map.Entry<Produto, Integer> itemCarrinho : carrinho.entrySet()) {
-            Produto produto = itemCarrinho.getKey();
-            Integer quantidadePedida = itemCarrinho.getValue();
-            if (produto.getQuantidadeStock() < quantidadePedida) {
-                System.out.printf("ERRO: Stock insuficiente para '%s'. Pedido: %d, Disponível: %d\n",
-                        produto.getNome(), quantidadePedida, produto.getQuantidadeStock());
-                stockSuficienteParaTudo = false;
-            }
-        }
+        long totalCompra = roloteEscolhida.calcularTotal(carrinho);
+        System.out.printf("\nTotal da sua compra: %s\n", Dinheiro.formatar(totalCompra));
 
-        // 4.2: Só avança para o pagamento se houver stock para tudo
-        if (stockSuficienteParaTudo) {
-            double totalCompra = 0;
-            for (Map.Entry<Produto, Integer> entry : carrinho.entrySet()) {
-                totalCompra += entry.getKey().getPreco() * entry.getValue();
-            }
-            System.out.printf("\nTotal da sua compra: %.2f€\n", totalCompra);
-
-            // Tenta processar o pagamento
-            if (adeptoComprador.comprarComida(totalCompra)) {
-                // Se o pagamento for bem-sucedido, atualiza o stock de cada produto
-                for (Map.Entry<Produto, Integer> entry : carrinho.entrySet()) {
-                    // Aqui já sabemos que a venda será bem-sucedida porque já verificámos o stock
-                    roloteEscolhida.vendeProduto(entry.getKey(), entry.getValue());
-                }
+        // 4.1: Reserva o stock de todo o carrinho, cobra o adepto e confirma, tudo ou nada.
+        // Outras caixas podem estar a vender ao mesmo tempo, por isso o stock só é verificado aqui.
+        Rolote.ResultadoCompra resultado = estadio.finalizarCompraComida(adeptoComprador, roloteEscolhida, carrinho);
+        switch (resultado) {
+            case CONCLUIDA:
+                System.out.println("Compra de comida efetuada com sucesso!");
+                System.out.println("Novo saldo na carteira: " + Dinheiro.formatar(adeptoComprador.getCarteira()));
                 System.out.println("Obrigado pela sua compra!");
-            } else {
-                // A mensagem de erro de saldo insuficiente já é mostrada pelo método do adepto
+                break;
+            case STOCK_INSUFICIENTE:
+                // Mostra o que falta, para o adepto poder ajustar o pedido.
+                for (Map.Entry<Produto, Integer> itemCarrinho : carrinho.entrySet()) {
+                    Produto produto = itemCarrinho.getKey();
+                    if (produto.getQuantidadeStock() < itemCarrinho.getValue()) {
+                        System.out.printf("ERRO: Stock insuficiente para '%s'. Pedido: %d, Disponível: %d\n",
+                                produto.getNome(), itemCarrinho.getValue(), produto.getQuantidadeStock());
+                    }
+                }
+                System.out.println("\nA sua compra não pode ser processada devido a falta de stock. A transação foi cancelada.");
+                break;
+            case SALDO_INSUFICIENTE:
+                System.out.println("Erro: " + adeptoComprador.getCodigo() + " não tem saldo suficiente para esta compra.");
                 System.out.println("A transação foi cancelada.");
-            }
-        } else {
-            // Se o stock não era suficiente, informa o utilizador e cancela tudo.
-            System.out.println("\nA sua compra não pode ser processada devido a falta de stock. A transação foi cancelada.");
+                break;
+            default:
+                System.out.println("Erro: A rolote '" + roloteEscolhida.getNome() + "' está fechada. A transação foi cancelada.");
+                break;
         }
     }
 
@@ -593,28 +721,26 @@ public class MenuController {
         System.out.println("Capacidade Máxima: " + estadio.getCapacidadeMaxima() + " lugares");
         Jogo jogo = estadio.getJogo();
         if (jogo != null) {
-            LocalDateTime dataDoJogo = LocalDateTime.of(2025, 9, 11, 20, 45);
-            DateTimeFormatter formatadorData = DateTimeFormatter.ofPattern("dd/MM/yyyy");
-            DateTimeFormatter formatadorHora = DateTimeFormatter.ofPattern("HH:mm");
+            LocalDateTime dataDoJogo = jogo.getDataHora();
             System.out.println("Jogo Agendado: " + jogo.getEquipaCasa().getNome() + " vs " + jogo.getEquipaVisitante().getNome());
-            System.out.println("\nData: " + dataDoJogo.format(formatadorData));
-            System.out.println("Hora: " + dataDoJogo.format(formatadorHora));
+            System.out.println("\nData: " + dataDoJogo.format(Formatos.DATA));
+            System.out.println("Hora: " + dataDoJogo.format(Formatos.HORA));
         }
 
         // 2. Ocupação dos Setores
         System.out.println("\n=== OCUPAÇÃO ===");
-        int totalLugaresOcupados = 0;
-        for (Setor setor : estadio.getSetores()) {
-            totalLugaresOcupados += (setor.getCapacidade() - setor.verificarDisponibilidade());
-        }
-        double percentagemOcupacao = (double) totalLugaresOcupados / estadio.getCapacidadeMaxima() * 100;
-        System.out.printf("Ocupação Geral: %.2f%% (%d/%d)\n", percentagemOcupacao, totalLugaresOcupados, estadio.getCapacidadeMaxima());
+        EstatisticasEstadio estatisticas = estadio.getEstatisticas();
+        System.out.printf("Ocupação Geral: %.2f%% (%d/%d)\n", estatisticas.getPercentagemOcupacao(),
+                estatisticas.getLugaresOcupados(), estatisticas.getCapacidade());
 
         System.out.println("\nDetalhes por Setor:");
-        for (Setor setor : estadio.getSetores()) {
-            int ocupadosSetor = setor.getCapacidade() - setor.verificarDisponibilidade();
-            System.out.printf("- Setor %s: %d/%d lugares ocupados.\n", setor.getId(), ocupadosSetor, setor.getCapacidade());
-            setor.mostrarLugares(); // Mostra o mapa visual de cada setor
+        List<EstatisticasEstadio.OcupacaoSetor> ocupacao = estatisticas.getSetores();
+        for (int i = 0; i < ocupacao.size(); i++) {
+            EstatisticasEstadio.OcupacaoSetor setor = ocupacao.get(i);
+            System.out.printf("- Setor %s: %d/%d lugares ocupados.\n", setor.getId(), setor.getOcupados(), setor.getCapacidade());
+            if (jogo != null) {
+                jogo.getMapa(estadio.getSetores().get(i)).mostrarLugares(); // Mostra o mapa visual de cada setor
+            }
             System.out.println();
         }
 
@@ -636,13 +762,13 @@ public class MenuController {
                     System.out.println("     (Sem produtos para mostrar)");
                 } else {
                     for (Produto produto : produtos) {
-                        System.out.printf("  * %s - %.2f€ (stock: %d)\n",
+                        System.out.printf("  * %s - %s (stock: %d)\n",
                                 produto.getNome(),
-                                produto.getPreco(),
+                                Dinheiro.formatar(produto.getPreco()),
                                 produto.getQuantidadeStock());
                     }
                 }
-                System.out.printf("  Faturação: %.2f€\n\n", rolote.getFaturamentoDiario());
+                System.out.printf("  Faturação: %s\n\n", Dinheiro.formatar(rolote.getFaturamentoDiario()));
             }
         }
 
@@ -651,25 +777,54 @@ public class MenuController {
         if (estadio.getAdeptos().isEmpty()) {
             System.out.println("Nenhum adepto registado no sistema.");
         } else {
-            for (Adepto adepto : estadio.getAdeptos()) {
-                System.out.printf("- Nome: %s\n", adepto.getNome());
-                System.out.printf("  ID: %s\n", adepto.getId());
-
-                List<Bilhete> bilhetes = adepto.getBilhetes();
-                System.out.printf("  Bilhetes comprados: %d\n", bilhetes.size());
-
-                // Ciclo para listar os detalhes de cada bilhete
-                if (!bilhetes.isEmpty()) {
+            List<Adepto> adeptos = estadio.getAdeptos();
+            // Com muitos adeptos e bilhetes, as linhas são escritas num único StringBuilder,
+            // reutilizado e mostrado aos blocos, em vez de criar várias Strings por bilhete.
+            StringBuilder texto = new StringBuilder(TAMANHO_BLOCO_RELATORIO);
+            // A lista pode receber registos de outras threads (ex: API HTTP): é percorrida com o seu trinco.
+            synchronized (adeptos) {
+                for (Adepto adepto : adeptos) {
+                    texto.append("- Nome: ").append(adepto.getNome()).append('\n');
+                    texto.append("  ID: ").append(adepto.getCodigo()).append('\n');
+
+                    List<Bilhete> bilhetes = adepto.getBilhetes();
+                    texto.append("  Bilhetes comprados: ").append(bilhetes.size()).append('\n');
+
+                    // Ciclo para listar os detalhes de cada bilhete
                     for (Bilhete bilhete : bilhetes) {
-                        System.out.printf("  * Setor %s, Lugar %s, Preço: %.2f€\n",
-                                bilhete.getSetor().getId(),
-                                bilhete.getLugar(),
-                                bilhete.getPreco());
+                        texto.append("  * Setor ").append(bilhete.getSetor().getId()).append(", Lugar ");
+                        bilhete.escreverLugar(texto).append(", Preço: ");
+                        Dinheiro.escrever(texto, bilhete.getPreco()).append('\n');
+                        if (texto.length() >= TAMANHO_BLOCO_RELATORIO) {
+                            System.out.append(texto);
+                            texto.setLength(0);
+                        }
                     }
+                    texto.append('\n'); // Adiciona uma linha em branco para separar os adeptos
                 }
-                System.out.println(); // Adiciona uma linha em branco para separar os adeptos
             }
+            System.out.append(texto);
         }
         System.out.println("\n--- FIM DO RELATÓRIO ---");
     }
+
+    /**
+     * Mostra as métricas de desempenho do estádio e, se o utilizador quiser, guarda-as num ficheiro.
+     */
+    private void processoVerMetricas() {
+        Metricas metricas = estadio.getMetricas();
+        metricas.mostrar();
+
+        System.out.print("\nDeseja guardar as métricas num ficheiro? (S/N): ");
+        if (!leitor.nextLine().trim().equalsIgnoreCase("S")) {
+            return;
+        }
+        String nomeFicheiro = "metricas-" + LocalDateTime.now().format(Formatos.CARIMBO_FICHEIRO) + ".txt";
+        try {
+            metricas.guardar(Path.of(nomeFicheiro));
+            System.out.println("Métricas guardadas em " + nomeFicheiro + ".");
+        } catch (IOException e) {
+            System.out.println("ERRO: Não foi possível guardar as métricas: " + e.getMessage());
+        }
+    }
 }
\ No newline at end of file
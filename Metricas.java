@@ -0,0 +1,345 @@
+package src.POO.teste_final;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Métricas de desempenho das operações mais frequentes do estádio: quantas vezes
+ * cada operação foi feita, quantas falharam e quanto tempo demoraram (histograma de latências).
+ *
+ * Registar uma medição não usa trincos: os contadores são LongAdder e os histogramas
+ * são arrays atómicos de tamanho fixo, com baldes logarítmicos (ver Histograma), por isso
+ * a memória usada não cresce com o número de operações.
+ */
+public class Metricas {
+
+    // --- TIPOS ---
+
+    /**
+     * As operações medidas.
+     */
+    public enum Operacao {
+        COMPRA_BILHETE("Compra de bilhete"),
+        COMPRA_COMIDA("Compra de comida"),
+        RESERVA_LUGARES("Procura e reserva de lugares"),
+        ESCRITA_PERSISTENCIA("Escrita na persistência"),
+        ESTATISTICAS("Estatísticas do estádio");
+
+        private final String descricao;
+
+        Operacao(String descricao) {
+            this.descricao = descricao;
+        }
+
+        public String getDescricao() {
+            return descricao;
+        }
+    }
+
+    /**
+     * Histograma de durações (em nanossegundos) com baldes logarítmicos.
+     * Cada potência de 2 é dividida em 8 baldes iguais, por isso o erro de cada valor
+     * é no máximo 12,5%, de 1 ns até ao máximo de um long, com 488 contadores fixos.
+     */
+    public static final class Histograma {
+        private static final int BITS_SUB_BALDES = 3;
+        private static final int SUB_BALDES = 1 << BITS_SUB_BALDES;
+        private static final int NUMERO_BALDES = (Long.SIZE - BITS_SUB_BALDES) * SUB_BALDES;
+
+        private final AtomicLongArray baldes = new AtomicLongArray(NUMERO_BALDES);
+        private final LongAdder contagem = new LongAdder();
+        private final LongAdder soma = new LongAdder();
+        private final AtomicLong maximo = new AtomicLong();
+
+        /**
+         * Regista uma duração.
+         * @param nanos A duração, em nanossegundos (os valores negativos contam como 0).
+         */
+        public void registar(long nanos) {
+            long valor = Math.max(nanos, 0);
+            baldes.getAndIncrement(indiceBalde(valor));
+            contagem.increment();
+            soma.add(valor);
+            if (valor > maximo.get()) {
+                maximo.accumulateAndGet(valor, Math::max);
+            }
+        }
+
+        public long getContagem() {
+            return contagem.sum();
+        }
+
+        public long getMaximo() {
+            return maximo.get();
+        }
+
+        /**
+         * @return A duração média, em nanossegundos (0 se não houver medições).
+         */
+        public long getMedia() {
+            long total = contagem.sum();
+            return total == 0 ? 0 : soma.sum() / total;
+        }
+
+        /**
+         * Estima a duração abaixo da qual fica uma fração das medições.
+         * Devolve o limite superior do balde onde cai essa medição (nunca acima do máximo).
+         * @param fracao A fração (ex: 0.99 para o p99).
+         * @return A duração, em nanossegundos (0 se não houver medições).
+         */
+        public long getPercentil(double fracao) {
+            long[] copia = copiarBaldes();
+            long total = 0;
+            for (long valor : copia) {
+                total += valor;
+            }
+            if (total == 0) {
+                return 0;
+            }
+            long alvo = Math.max(1, (long) Math.ceil(fracao * total));
+            long acumulado = 0;
+            for (int i = 0; i < copia.length; i++) {
+                acumulado += copia[i];
+                if (acumulado >= alvo) {
+                    return Math.min(limiteSuperior(i), getMaximo());
+                }
+            }
+            return getMaximo();
+        }
+
+        // Os contadores dos baldes num dado momento (as medições seguintes não entram).
+        private long[] copiarBaldes() {
+            long[] copia = new long[NUMERO_BALDES];
+            for (int i = 0; i < NUMERO_BALDES; i++) {
+                copia[i] = baldes.get(i);
+            }
+            return copia;
+        }
+
+        // Abaixo de 8 ns, um balde por valor; acima, 8 baldes por potência de 2.
+        static int indiceBalde(long valor) {
+            if (valor < SUB_BALDES) {
+                return (int) valor;
+            }
+            int expoente = Long.SIZE - 1 - Long.numberOfLeadingZeros(valor);
+            int subBalde = (int) (valor >>> (expoente - BITS_SUB_BALDES)) & (SUB_BALDES - 1);
+            return ((expoente - BITS_SUB_BALDES + 1) << BITS_SUB_BALDES) + subBalde;
+        }
+
+        static long limiteInferior(int indice) {
+            if (indice < SUB_BALDES) {
+                return indice;
+            }
+            int expoente = (indice >> BITS_SUB_BALDES) + BITS_SUB_BALDES - 1;
+            long subBalde = indice & (SUB_BALDES - 1);
+            return (SUB_BALDES + subBalde) << (expoente - BITS_SUB_BALDES);
+        }
+
+        static long limiteSuperior(int indice) {
+            return indice + 1 == NUMERO_BALDES ? Long.MAX_VALUE : limiteInferior(indice + 1) - 1;
+        }
+    }
+
+    /**
+     * Persistência que mede o tempo de cada escrita e a entrega à persistência real.
+     */
+    static final class PersistenciaMedida implements Persistencia {
+        private final Persistencia destino;
+        private final Metricas metricas;
+
+        PersistenciaMedida(Persistencia destino, Metricas metricas) {
+            this.destino = destino;
+            this.metricas = metricas;
+        }
+
+        @Override
+        public void registarAdepto(Adepto adepto) {
+            long inicio = System.nanoTime();
+            boolean sucesso = false;
+            try {
+                destino.registarAdepto(adepto);
+                sucesso = true;
+            } finally {
+                metricas.registar(Operacao.ESCRITA_PERSISTENCIA, inicio, sucesso);
+            }
+        }
+
+        @Override
+        public void registarBilhete(Adepto adepto, Bilhete bilhete) {
+            long inicio = System.nanoTime();
+            boolean sucesso = false;
+            try {
+                destino.registarBilhete(adepto, bilhete);
+                sucesso = true;
+            } finally {
+                metricas.registar(Operacao.ESCRITA_PERSISTENCIA, inicio, sucesso);
+            }
+        }
+
+        @Override
+        public void anularBilhete(Adepto adepto, Bilhete bilhete) {
+            long inicio = System.nanoTime();
+            boolean sucesso = false;
+            try {
+                destino.anularBilhete(adepto, bilhete);
+                sucesso = true;
+            } finally {
+                metricas.registar(Operacao.ESCRITA_PERSISTENCIA, inicio, sucesso);
+            }
+        }
+
+        @Override
+        public void registarRolote(Rolote rolote) {
+            long inicio = System.nanoTime();
+            boolean sucesso = false;
+            try {
+                destino.registarRolote(rolote);
+                sucesso = true;
+            } finally {
+                metricas.registar(Operacao.ESCRITA_PERSISTENCIA, inicio, sucesso);
+            }
+        }
+
+        @Override
+        public void registarCompraComida(Adepto adepto, Rolote rolote, Map<Produto, Integer> carrinho, long total) {
+            long inicio = System.nanoTime();
+            boolean sucesso = false;
+            try {
+                destino.registarCompraComida(adepto, rolote, carrinho, total);
+                sucesso = true;
+            } finally {
+                metricas.registar(Operacao.ESCRITA_PERSISTENCIA, inicio, sucesso);
+            }
+        }
+
+        @Override
+        public void registarJogo(Jogo jogo) {
+            long inicio = System.nanoTime();
+            boolean sucesso = false;
+            try {
+                destino.registarJogo(jogo);
+                sucesso = true;
+            } finally {
+                metricas.registar(Operacao.ESCRITA_PERSISTENCIA, inicio, sucesso);
+            }
+        }
+
+        @Override
+        public void registarFimJogo(Jogo jogo) {
+            long inicio = System.nanoTime();
+            boolean sucesso = false;
+            try {
+                destino.registarFimJogo(jogo);
+                sucesso = true;
+            } finally {
+                metricas.registar(Operacao.ESCRITA_PERSISTENCIA, inicio, sucesso);
+            }
+        }
+
+        @Override
+        public void sincronizar() {
+            destino.sincronizar();
+        }
+
+        @Override
+        public void fechar() {
+            destino.fechar();
+        }
+    }
+
+    // --- ATRIBUTOS ---
+
+    private final Histograma[] latencias = new Histograma[Operacao.values().length];
+    private final LongAdder[] falhas = new LongAdder[Operacao.values().length];
+    private final LocalDateTime inicio = LocalDateTime.now();   // Desde quando as métricas são recolhidas.
+
+    // --- CONSTRUTOR ---
+
+    public Metricas() {
+        for (int i = 0; i < latencias.length; i++) {
+            latencias[i] = new Histograma();
+            falhas[i] = new LongAdder();
+        }
+    }
+
+    // --- REGISTO ---
+
+    /**
+     * Regista uma operação que começou no instante indicado e acabou agora.
+     * @param operacao A operação.
+     * @param inicioNanos O valor de System.nanoTime() no início da operação.
+     * @param sucesso false se a operação falhou ou foi recusada (ex: lugar ocupado, saldo insuficiente).
+     */
+    public void registar(Operacao operacao, long inicioNanos, boolean sucesso) {
+        latencias[operacao.ordinal()].registar(System.nanoTime() - inicioNanos);
+        if (!sucesso) {
+            falhas[operacao.ordinal()].increment();
+        }
+    }
+
+    // --- GETTERS ---
+
+    public Histograma getLatencias(Operacao operacao) {
+        return latencias[operacao.ordinal()];
+    }
+
+    public long getFalhas(Operacao operacao) {
+        return falhas[operacao.ordinal()].sum();
+    }
+
+    // --- APRESENTAÇÃO ---
+
+    /**
+     * Mostra o resumo das métricas na consola.
+     */
+    public void mostrar() {
+        escreverResumo(System.out);
+    }
+
+    /**
+     * Guarda as métricas num ficheiro de texto: o resumo e, para cada operação,
+     * os baldes não vazios do histograma (limites em nanossegundos e contagem).
+     * @param ficheiro O ficheiro a criar (ou substituir).
+     * @throws IOException Se o ficheiro não puder ser escrito.
+     */
+    public void guardar(Path ficheiro) throws IOException {
+        try (PrintStream saida = new PrintStream(Files.newOutputStream(ficheiro), false, StandardCharsets.UTF_8)) {
+            escreverResumo(saida);
+            saida.println("\n--- Histogramas (limite inferior ns; limite superior ns; contagem) ---");
+            for (Operacao operacao : Operacao.values()) {
+                saida.println("\n[" + operacao + "]");
+                long[] baldes = getLatencias(operacao).copiarBaldes();
+                for (int i = 0; i < baldes.length; i++) {
+                    if (baldes[i] != 0) {
+                        saida.println(Histograma.limiteInferior(i) + ";" + Histograma.limiteSuperior(i) + ";" + baldes[i]);
+                    }
+                }
+            }
+            if (saida.checkError()) {
+                throw new IOException("Falha ao escrever as métricas em " + ficheiro + ".");
+            }
+        }
+    }
+
+    private void escreverResumo(PrintStream saida) {
+        saida.println("\n=== Métricas de Desempenho ===");
+        saida.println("Desde " + inicio.format(Formatos.DATA_HORA_SEGUNDOS) + " até " + LocalDateTime.now().format(Formatos.DATA_HORA_SEGUNDOS));
+        saida.printf("%-30s %10s %8s %10s %10s %10s %10s %10s\n",
+                "Operação", "Contagem", "Falhas", "Média µs", "p50 µs", "p99 µs", "p99.9 µs", "Máx µs");
+        for (Operacao operacao : Operacao.values()) {
+            Histograma histograma = getLatencias(operacao);
+            saida.printf("%-30s %10d %8d %10.1f %10.1f %10.1f %10.1f %10.1f\n",
+                    operacao.getDescricao(), histograma.getContagem(), getFalhas(operacao),
+                    histograma.getMedia() / 1e3, histograma.getPercentil(0.50) / 1e3, histograma.getPercentil(0.99) / 1e3,
+                    histograma.getPercentil(0.999) / 1e3, histograma.getMaximo() / 1e3);
+        }
+    }
+}
@@ -0,0 +1,360 @@
+package src.POO.teste_final;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Executa uma sequência de comandos sem interação, lidos de um ficheiro ou do stdin
+ * (ex: para repetir um dia de vendas ou fazer operações em massa).
+ * Os comandos chamam as mesmas operações do estádio que o MenuController.
+ *
+ * Um comando por linha, com os campos separados por ';'. As linhas vazias e as que
+ * começam por '#' são ignoradas. Os comandos são:
+ * - rolote;nome;produto:preço:stock;...          cria e abre uma rolote
+ * - adepto;nome;idade;cc;endereço;carteira        regista um adepto
+ * - bilhete;adepto;setor;lugar[;jogo]             compra o lugar indicado (1 a capacidade)
+ * - bloco;adepto;setor;quantidade[;jogo]          compra lugares juntos, escolhidos automaticamente
+ * - comida;adepto;rolote;produto:quantidade;...   compra comida (tudo ou nada)
+ * - estatisticas[;jogo]                           mostra a ocupação e as receitas
+ * - jogo[;jogo]                                   inicia o jogo
+ * Sem número de jogo, é usado o jogo atual do estádio. Os preços e a carteira são em euros.
+ *
+ * Cada comando escreve uma linha "OK ..." ou "ERRO linha N: ...". Toda a saída (incluindo
+ * as mensagens das próprias operações) passa por um buffer grande e só é despejada no fim
+ * ou quando o buffer enche, por isso o custo de escrever no terminal não limita o ritmo.
+ */
+public class ModoLote {
+
+    // --- CONSTANTES ---
+
+    private static final String SEPARADOR = ";";
+    private static final String SEPARADOR_ITEM = ":";
+    private static final int TAMANHO_BUFFER_SAIDA = 1 << 16;
+
+    // --- ATRIBUTOS ---
+
+    private final Estadio estadio;
+    private PrintStream saida;          // A saída do lote (com buffer), enquanto o lote corre.
+    private long comandosExecutados;    // Comandos concluídos com sucesso.
+    private long comandosFalhados;      // Comandos com erro.
+
+    // --- CONSTRUTOR ---
+
+    /**
+     * Cria o modo de lote para um estádio.
+     * @param estadio O estádio onde os comandos são executados.
+     */
+    public ModoLote(Estadio estadio) {
+        this.estadio = estadio;
+    }
+
+    // --- GETTERS ---
+
+    public long getComandosExecutados() {
+        return comandosExecutados;
+    }
+
+    public long getComandosFalhados() {
+        return comandosFalhados;
+    }
+
+    // --- EXECUÇÃO ---
+
+    /**
+     * Executa todos os comandos da entrada, até ao fim.
+     * Enquanto o lote corre, o System.out é substituído por uma saída com buffer, para
+     * que também as mensagens das operações do estádio sejam escritas em blocos.
+     * @param entrada De onde são lidos os comandos.
+     * @throws IOException Se a leitura da entrada falhar.
+     */
+    public void executar(BufferedReader entrada) throws IOException {
+        PrintStream saidaOriginal = System.out;
+        this.saida = new PrintStream(new BufferedOutputStream(new FileOutputStream(FileDescriptor.out), TAMANHO_BUFFER_SAIDA),
+                false, StandardCharsets.UTF_8);
+        System.setOut(this.saida);
+        long inicio = System.nanoTime();
+        try {
+            String linha;
+            long numeroLinha = 0;
+            while ((linha = entrada.readLine()) != null) {
+                numeroLinha++;
+                executarLinha(linha, numeroLinha);
+            }
+            long duracao = System.nanoTime() - inicio;
+            long total = comandosExecutados + comandosFalhados;
+            saida.printf("\n[LOTE] %d comando(s) em %d ms (%d com erro, %.0f comandos/s)\n",
+                    total, duracao / 1_000_000, comandosFalhados, total * 1e9 / Math.max(duracao, 1));
+        } finally {
+            saida.flush();
+            System.setOut(saidaOriginal);
+        }
+    }
+
+    /**
+     * Executa uma linha do lote. Os erros de um comando são mostrados e contados,
+     * mas não interrompem o lote.
+     */
+    private void executarLinha(String linha, long numeroLinha) {
+        String texto = linha.trim();
+        if (texto.isEmpty() || texto.charAt(0) == '#') {
+            return;
+        }
+        String[] campos = texto.split(SEPARADOR, -1);
+        try {
+            String resultado = executarComando(campos);
+            saida.append("OK ").append(resultado).append('\n');
+            comandosExecutados++;
+        } catch (IllegalArgumentException | IllegalStateException | UncheckedIOException e) {
+            saida.append("ERRO linha ").append(Long.toString(numeroLinha)).append(": ").append(e.getMessage()).append('\n');
+            comandosFalhados++;
+        }
+    }
+
+    /**
+     * Executa um comando já dividido em campos.
+     * @return A descrição do que foi feito, para a linha "OK".
+     * @throws IllegalArgumentException Se o comando for inválido ou não puder ser concluído.
+     */
+    private String executarComando(String[] campos) {
+        String comando = campos[0].trim().toLowerCase();
+        switch (comando) {
+            case "rolote":
+                return comandoRolote(campos);
+            case "adepto":
+                return comandoAdepto(campos);
+            case "bilhete":
+                return comandoBilhete(campos);
+            case "bloco":
+                return comandoBloco(campos);
+            case "comida":
+                return comandoComida(campos);
+            case "estatisticas":
+                return comandoEstatisticas(campos);
+            case "jogo":
+                return comandoJogo(campos);
+            default:
+                throw new IllegalArgumentException("Comando desconhecido: '" + campos[0] + "'.");
+        }
+    }
+
+    // --- COMANDOS ---
+
+    // rolote;nome;produto:preço:stock;...
+    private String comandoRolote(String[] campos) {
+        exigirCampos(campos, 3, "rolote;nome;produto:preço:stock;...");
+        Rolote rolote = new Rolote(estadio.getRolotes().size() + 1, texto(campos[1], "nome"));
+        for (int i = 2; i < campos.length; i++) {
+            String[] item = campos[i].split(SEPARADOR_ITEM, -1);
+            if (item.length != 3) {
+                throw new IllegalArgumentException("Produto inválido: '" + campos[i] + "' (use nome:preço:stock).");
+            }
+            long preco = Dinheiro.deEuros(Double.parseDouble(item[1].trim()));
+            int stock = Integer.parseInt(item[2].trim());
+            if (preco <= 0 || stock < 0) {
+                throw new IllegalArgumentException("Produto inválido: '" + campos[i] + "' (preço > 0 e stock >= 0).");
+            }
+            rolote.adicionaProduto(new Produto(i - 1, texto(item[0], "nome do produto"), preco, stock));
+        }
+        rolote.abrirRolote();
+        if (!estadio.adicionarRolote(rolote)) {
+            throw new IllegalStateException("O estádio já tem o número máximo de rolotes.");
+        }
+        return "rolote " + rolote.getId();
+    }
+
+    // adepto;nome;idade;cc;endereço;carteira
+    private String comandoAdepto(String[] campos) {
+        exigirCampos(campos, 6, "adepto;nome;idade;cc;endereço;carteira");
+        String nome = texto(campos[1], "nome");
+        int idade = Integer.parseInt(campos[2].trim());
+        String cc = campos[3].trim();
+        String endereco = texto(campos[4], "endereço");
+        long carteira = Dinheiro.deEuros(Double.parseDouble(campos[5].trim()));
+        if (idade < Adepto.IDADE_MINIMA) {
+            throw new IllegalArgumentException("O adepto deve ter no mínimo " + Adepto.IDADE_MINIMA + " anos.");
+        }
+        if (!Adepto.documentoValido(cc)) {
+            throw new IllegalArgumentException("O CC deve conter exatamente 8 dígitos numéricos.");
+        }
+        if (carteira < Adepto.CARTEIRA_MINIMA) {
+            throw new IllegalArgumentException("O valor mínimo da carteira é " + Dinheiro.formatar(Adepto.CARTEIRA_MINIMA) + ".");
+        }
+        Adepto adepto = estadio.criarNovoAdepto(nome, idade, cc, endereco, carteira);
+        if (adepto == null) {
+            throw new IllegalStateException("Já existe um adepto registado com o CC " + cc + ".");
+        }
+        return "adepto " + adepto.getCodigo();
+    }
+
+    // bilhete;adepto;setor;lugar[;jogo]
+    private String comandoBilhete(String[] campos) {
+        exigirCampos(campos, 4, "bilhete;adepto;setor;lugar[;jogo]");
+        Adepto adepto = adepto(campos[1]);
+        Setor setor = setor(campos[2]);
+        Jogo jogo = jogo(campos, 4);
+        int lugar = Integer.parseInt(campos[3].trim());
+        if (lugar < 1 || lugar > setor.getCapacidade()) {
+            throw new IllegalArgumentException("Lugar inválido: " + lugar + " (1-" + setor.getCapacidade() + ").");
+        }
+        int fila = (lugar - 1) / setor.getColunas();
+        int coluna = (lugar - 1) % setor.getColunas();
+
+        Reserva reserva = estadio.reterLugar(jogo, setor, fila, coluna);
+        if (reserva == null) {
+            throw new IllegalStateException("O lugar " + setor.getId() + lugar + " já está ocupado.");
+        }
+        Estadio.Venda venda = estadio.venderReserva(adepto, reserva);
+        if (!venda.isVendido()) {
+            throw new IllegalStateException("A compra do lugar " + setor.getId() + lugar + " falhou: "
+                    + venda.getResultado().getDescricao() + ".");
+        }
+        return "bilhete " + venda.getBilhete().getCodigo();
+    }
+
+    // bloco;adepto;setor;quantidade[;jogo]
+    private String comandoBloco(String[] campos) {
+        exigirCampos(campos, 4, "bloco;adepto;setor;quantidade[;jogo]");
+        Adepto adepto = adepto(campos[1]);
+        Setor setor = setor(campos[2]);
+        Jogo jogo = jogo(campos, 4);
+        int quantidade = Integer.parseInt(campos[3].trim());
+
+        List<Reserva> reservas = estadio.reterBlocoContiguo(jogo, setor, quantidade);
+        if (reservas == null) {
+            throw new IllegalStateException("Não existem " + quantidade + " lugares juntos disponíveis no Setor " + setor.getId() + ".");
+        }
+        StringBuilder codigos = new StringBuilder("bloco");
+        for (int i = 0; i < reservas.size(); i++) {
+            Estadio.Venda venda = estadio.venderReserva(adepto, reservas.get(i));
+            if (!venda.isVendido()) {
+                // Como no menu: os bilhetes já pagos ficam, os lugares restantes são libertados.
+                for (int j = i + 1; j < reservas.size(); j++) {
+                    reservas.get(j).cancelar();
+                }
+                throw new IllegalStateException("A compra falhou no bilhete " + (i + 1) + " de " + quantidade
+                        + " (" + venda.getResultado().getDescricao() + "); os lugares seguintes foram libertados.");
+            }
+            codigos.append(' ').append(venda.getBilhete().getCodigo());
+        }
+        return codigos.toString();
+    }
+
+    // comida;adepto;rolote;produto:quantidade;...
+    private String comandoComida(String[] campos) {
+        exigirCampos(campos, 4, "comida;adepto;rolote;produto:quantidade;...");
+        Adepto adepto = adepto(campos[1]);
+        Rolote rolote = rolote(campos[2]);
+
+        Map<Produto, Integer> carrinho = new LinkedHashMap<>();
+        for (int i = 3; i < campos.length; i++) {
+            String[] item = campos[i].split(SEPARADOR_ITEM, -1);
+            if (item.length != 2) {
+                throw new IllegalArgumentException("Item inválido: '" + campos[i] + "' (use produto:quantidade).");
+            }
+            int numeroProduto = Integer.parseInt(item[0].trim());
+            int quantidade = Integer.parseInt(item[1].trim());
+            if (numeroProduto < 1 || numeroProduto > rolote.getProdutos().size() || quantidade <= 0) {
+                throw new IllegalArgumentException("Item inválido: '" + campos[i] + "'.");
+            }
+            carrinho.merge(rolote.getProdutos().get(numeroProduto - 1), quantidade, Integer::sum);
+        }
+
+        long total = rolote.calcularTotal(carrinho);
+        Rolote.ResultadoCompra resultado = estadio.finalizarCompraComida(adepto, rolote, carrinho);
+        if (resultado != Rolote.ResultadoCompra.CONCLUIDA) {
+            throw new IllegalStateException("Compra de comida recusada: " + resultado + ".");
+        }
+        return "comida " + Dinheiro.formatar(total);
+    }
+
+    // estatisticas[;jogo]
+    private String comandoEstatisticas(String[] campos) {
+        Jogo jogo = jogo(campos, 1);
+        EstatisticasEstadio estatisticas = estadio.getEstatisticas(jogo);
+        return String.format("estatisticas jogo %d: ocupação %d/%d (%.2f%%), bilheteira %s, rolotes %s (%d/%d abertas)",
+                jogo.getNumero(), estatisticas.getLugaresOcupados(), estatisticas.getCapacidade(),
+                estatisticas.getPercentagemOcupacao(), Dinheiro.formatar(estatisticas.getReceitaBilheteira()),
+                Dinheiro.formatar(estatisticas.getFaturacaoRolotes()), estatisticas.getRolotesAbertas(),
+                estatisticas.getTotalRolotes());
+    }
+
+    // jogo[;jogo]
+    private String comandoJogo(String[] campos) {
+        Jogo jogo = jogo(campos, 1);
+        if (jogo.isTerminado()) {
+            throw new IllegalStateException("O jogo " + jogo.getNumero() + " já terminou.");
+        }
+        jogo.iniciarJogo(estadio);
+        return "jogo " + jogo.getNumero() + ": " + jogo.getResultado();
+    }
+
+    // --- MÉTODOS AUXILIARES ---
+
+    private static void exigirCampos(String[] campos, int minimo, String formato) {
+        if (campos.length < minimo) {
+            throw new IllegalArgumentException("Faltam campos (formato: " + formato + ").");
+        }
+    }
+
+    private static String texto(String campo, String descricao) {
+        String valor = campo.trim();
+        if (valor.isEmpty()) {
+            throw new IllegalArgumentException("O campo '" + descricao + "' não pode ser vazio.");
+        }
+        return valor;
+    }
+
+    private Adepto adepto(String codigo) {
+        Adepto adepto = estadio.procurarAdepto(codigo.trim());
+        if (adepto == null) {
+            throw new IllegalArgumentException("Adepto não encontrado: '" + codigo.trim() + "'.");
+        }
+        return adepto;
+    }
+
+    private Setor setor(String id) {
+        String idSetor = id.trim();
+        for (Setor setor : estadio.getSetores()) {
+            if (setor.getId().equalsIgnoreCase(idSetor)) {
+                return setor;
+            }
+        }
+        throw new IllegalArgumentException("Setor inválido: '" + idSetor + "'.");
+    }
+
+    private Rolote rolote(String id) {
+        int numero = Integer.parseInt(id.trim());
+        for (Rolote rolote : estadio.getRolotes()) {
+            if (rolote.getId() == numero) {
+                return rolote;
+            }
+        }
+        throw new IllegalArgumentException("Rolote não encontrada: " + numero + ".");
+    }
+
+    // O jogo indicado no campo opcional, ou o jogo atual se o campo não existir.
+    private Jogo jogo(String[] campos, int indice) {
+        if (campos.length <= indice || campos[indice].trim().isEmpty()) {
+            Jogo atual = estadio.getJogo();
+            if (atual == null) {
+                throw new IllegalStateException("Não há nenhum jogo agendado.");
+            }
+            return atual;
+        }
+        int numero = Integer.parseInt(campos[indice].trim());
+        Jogo jogo = estadio.procurarJogo(numero);
+        if (jogo == null) {
+            throw new IllegalArgumentException("Jogo não encontrado: " + numero + ".");
+        }
+        return jogo;
+    }
+}
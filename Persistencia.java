@@ -0,0 +1,106 @@
+package src.POO.teste_final;
+
+import java.util.Map;
+
+/**
+ * Define onde e como são guardados os dados dos adeptos e dos bilhetes vendidos.
+ * Existem duas implementações:
+ * - PersistenciaFicheiros: um ficheiro de texto por adepto e por bilhete (adeptos/ID/...).
+ * - DiarioTransacoes: um diário binário sequencial (em segmentos), com escritas agrupadas.
+ * Para medições só em memória (gerador de carga, benchmarks), NENHUMA não guarda nada.
+ *
+ * Se um registo não puder ser escrito (ou sincronizado), as implementações lançam
+ * UncheckedIOException; quem fez a operação deve desfazê-la, porque não ficou guardada.
+ */
+public interface Persistencia {
+
+    /**
+     * Persistência que não guarda nada, para medir apenas as operações em memória.
+     */
+    Persistencia NENHUMA = new Persistencia() {
+        @Override
+        public void registarAdepto(Adepto adepto) {
+        }
+
+        @Override
+        public void registarBilhete(Adepto adepto, Bilhete bilhete) {
+        }
+
+        @Override
+        public void anularBilhete(Adepto adepto, Bilhete bilhete) {
+        }
+
+        @Override
+        public void sincronizar() {
+        }
+
+        @Override
+        public void fechar() {
+        }
+    };
+
+    /**
+     * Guarda os dados de um adepto acabado de criar.
+     * @param adepto O novo adepto.
+     */
+    void registarAdepto(Adepto adepto);
+
+    /**
+     * Guarda um bilhete comprado por um adepto.
+     * @param adepto O adepto que comprou o bilhete.
+     * @param bilhete O bilhete vendido.
+     */
+    void registarBilhete(Adepto adepto, Bilhete bilhete);
+
+    /**
+     * Regista a anulação (reembolso) de um bilhete já guardado.
+     * @param adepto O adepto a quem o bilhete foi reembolsado.
+     * @param bilhete O bilhete anulado.
+     */
+    void anularBilhete(Adepto adepto, Bilhete bilhete);
+
+    /**
+     * Guarda uma rolote acabada de adicionar ao estádio, com os seus produtos e stock.
+     * Por omissão não faz nada: só é preciso para poder reconstruir o estádio a partir do disco.
+     * @param rolote A nova rolote.
+     */
+    default void registarRolote(Rolote rolote) {
+    }
+
+    /**
+     * Guarda uma compra de comida já paga e entregue.
+     * Por omissão não faz nada: só é preciso para poder reconstruir o estádio a partir do disco.
+     * @param adepto O adepto que pagou.
+     * @param rolote A rolote onde a compra foi feita.
+     * @param carrinho Os produtos e as quantidades vendidas.
+     * @param total O valor cobrado ao adepto, em cêntimos.
+     */
+    default void registarCompraComida(Adepto adepto, Rolote rolote, Map<Produto, Integer> carrinho, long total) {
+    }
+
+    /**
+     * Guarda um jogo acabado de criar no calendário (equipas, data e árbitro).
+     * Por omissão não faz nada: só é preciso para poder reconstruir o estádio a partir do disco.
+     * @param jogo O novo jogo.
+     */
+    default void registarJogo(Jogo jogo) {
+    }
+
+    /**
+     * Guarda o resultado de um jogo que terminou.
+     * Por omissão não faz nada: só é preciso para poder reconstruir o estádio a partir do disco.
+     * @param jogo O jogo terminado.
+     */
+    default void registarFimJogo(Jogo jogo) {
+    }
+
+    /**
+     * Garante que tudo o que já foi registado está escrito no disco.
+     */
+    void sincronizar();
+
+    /**
+     * Sincroniza e liberta os recursos (ficheiros abertos, threads).
+     */
+    void fechar();
+}
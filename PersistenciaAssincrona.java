@@ -0,0 +1,315 @@
+package src.POO.teste_final;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Retira a escrita em disco do caminho da venda.
+ * Cada pedido de persistência é colocado numa fila limitada e uma thread dedicada
+ * esvazia-a em lotes: entrega todos os pedidos do lote à persistência real e faz
+ * uma única sincronização por lote.
+ *
+ * O modo de durabilidade decide quando é que a venda pode continuar:
+ * - SEM_ESPERA: assim que o pedido entra na fila.
+ * - ESPERAR_ESCRITA: só depois de o lote com o pedido estar sincronizado no disco. Se a
+ *   escrita do pedido ou a sincronização do lote falhar, a operação lança
+ *   UncheckedIOException e quem a chamou deve desfazer a venda.
+ * Se a fila estiver cheia, quem regista espera por espaço (a fila nunca cresce sem limite).
+ */
+public class PersistenciaAssincrona implements Persistencia {
+
+    // --- TIPOS ---
+
+    /**
+     * Quando é que uma operação registada pode ser dada como concluída.
+     */
+    public enum ModoDurabilidade {
+        SEM_ESPERA,         // Regressa logo que o pedido está na fila.
+        ESPERAR_ESCRITA     // Regressa depois de o lote ser escrito e sincronizado.
+    }
+
+    // Um pedido à espera na fila. Tudo o que é guardado já não muda depois de o pedido ser criado:
+    // os campos usados do adepto e do bilhete são fixos, a rolote nova e o carrinho são cópias,
+    // numa compra de comida da rolote só é usado o ID e um jogo só é registado quando é criado
+    // ou quando já terminou.
+    private static final class Pedido {
+        final byte tipo;
+        final Adepto adepto;
+        final Bilhete bilhete;
+        final Rolote rolote;
+        final Map<Produto, Integer> carrinho;
+        final long total;
+        final Jogo jogo;
+        final CompletableFuture<Void> concluido;   // Só existe quando alguém espera pelo pedido.
+
+        Pedido(byte tipo, Adepto adepto, Bilhete bilhete, Rolote rolote, Map<Produto, Integer> carrinho,
+               long total, Jogo jogo, CompletableFuture<Void> concluido) {
+            this.tipo = tipo;
+            this.adepto = adepto;
+            this.bilhete = bilhete;
+            this.rolote = rolote;
+            this.carrinho = carrinho;
+            this.total = total;
+            this.jogo = jogo;
+            this.concluido = concluido;
+        }
+    }
+
+    // --- CONSTANTES ---
+
+    private static final byte ADEPTO = 1;
+    private static final byte BILHETE = 2;
+    private static final byte ANULACAO = 3;
+    private static final byte ROLOTE = 4;
+    private static final byte COMIDA = 5;
+    private static final byte JOGO = 6;
+    private static final byte FIM_JOGO = 7;
+    private static final byte SINCRONIZACAO = 8;   // Não escreve nada; serve para esperar pela fila.
+    private static final byte FIM = 9;             // Pede à thread de escrita que termine.
+
+    // --- ATRIBUTOS ---
+
+    private final Persistencia destino;             // A persistência que faz a escrita real.
+    private final ModoDurabilidade modo;            // Se as operações esperam pelo disco.
+    private final BlockingQueue<Pedido> fila;       // Pedidos ainda por escrever.
+    private final int tamanhoMaximoLote;            // Quantos pedidos, no máximo, por sincronização.
+    private final Thread escritor;                  // A thread que esvazia a fila.
+    // Quem submete usa o trinco de leitura e fechar usa o de escrita: nenhum pedido entra na fila depois de FIM.
+    private final ReadWriteLock trincoFecho = new ReentrantReadWriteLock();
+    private boolean fechada;                        // Protegido pelo trincoFecho.
+
+    // --- CONSTRUTOR ---
+
+    /**
+     * Cria o pipeline assíncrono e arranca a thread de escrita.
+     *
+     * @param destino A persistência que faz a escrita real (ex: o diário de transações).
+     * @param modo O modo de durabilidade das operações.
+     * @param capacidadeFila O número máximo de pedidos à espera.
+     * @param tamanhoMaximoLote O número máximo de pedidos escritos por sincronização.
+     */
+    public PersistenciaAssincrona(Persistencia destino, ModoDurabilidade modo, int capacidadeFila, int tamanhoMaximoLote) {
+        if (capacidadeFila <= 0 || tamanhoMaximoLote <= 0) {
+            throw new IllegalArgumentException("A capacidade da fila e o tamanho do lote devem ser positivos.");
+        }
+        this.destino = destino;
+        this.modo = modo;
+        this.fila = new ArrayBlockingQueue<>(capacidadeFila);
+        this.tamanhoMaximoLote = tamanhoMaximoLote;
+
+        this.escritor = new Thread(this::ciclarEscrita, "persistencia-assincrona");
+        this.escritor.setDaemon(true);
+        this.escritor.start();
+    }
+
+    // --- GETTERS ---
+
+    public ModoDurabilidade getModo() {
+        return modo;
+    }
+
+    /**
+     * Devolve o número de pedidos que ainda aguardam escrita.
+     * @return O tamanho atual da fila.
+     */
+    public int getPedidosPendentes() {
+        return fila.size();
+    }
+
+    // --- MÉTODOS DE PERSISTÊNCIA ---
+
+    @Override
+    public void registarAdepto(Adepto adepto) {
+        submeter(new Pedido(ADEPTO, adepto, null, null, null, 0, null, criarEspera()));
+    }
+
+    @Override
+    public void registarBilhete(Adepto adepto, Bilhete bilhete) {
+        submeter(new Pedido(BILHETE, adepto, bilhete, null, null, 0, null, criarEspera()));
+    }
+
+    @Override
+    public void anularBilhete(Adepto adepto, Bilhete bilhete) {
+        submeter(new Pedido(ANULACAO, adepto, bilhete, null, null, 0, null, criarEspera()));
+    }
+
+    @Override
+    public void registarRolote(Rolote rolote) {
+        submeter(new Pedido(ROLOTE, null, null, rolote.copiar(), null, 0, null, criarEspera()));
+    }
+
+    @Override
+    public void registarCompraComida(Adepto adepto, Rolote rolote, Map<Produto, Integer> carrinho, long total) {
+        submeter(new Pedido(COMIDA, adepto, null, rolote, new HashMap<>(carrinho), total, null, criarEspera()));
+    }
+
+    @Override
+    public void registarJogo(Jogo jogo) {
+        submeter(new Pedido(JOGO, null, null, null, null, 0, jogo, criarEspera()));
+    }
+
+    @Override
+    public void registarFimJogo(Jogo jogo) {
+        submeter(new Pedido(FIM_JOGO, null, null, null, null, 0, jogo, criarEspera()));
+    }
+
+    /**
+     * Espera até que todos os pedidos já submetidos estejam escritos e sincronizados,
+     * qualquer que seja o modo de durabilidade.
+     */
+    @Override
+    public void sincronizar() {
+        submeter(new Pedido(SINCRONIZACAO, null, null, null, null, 0, null, new CompletableFuture<>()));
+    }
+
+    /**
+     * Escreve todos os pedidos pendentes, pára a thread de escrita e fecha o destino.
+     * Os pedidos submetidos depois disto são recusados.
+     */
+    @Override
+    public void fechar() {
+        // O FIM tem de chegar à fila e a thread de escrita tem de terminar antes de o destino ser
+        // fechado, mesmo que esta thread seja interrompida: a interrupção só é reposta no fim.
+        boolean interrompida = false;
+        trincoFecho.writeLock().lock();
+        try {
+            if (fechada) {
+                return;
+            }
+            fechada = true; // A partir daqui não são aceites novos pedidos
+            // A thread de escrita ainda está a esvaziar a fila, por isso o put acaba sempre por entrar.
+            while (true) {
+                try {
+                    fila.put(new Pedido(FIM, null, null, null, null, 0, null, null));
+                    break;
+                } catch (InterruptedException e) {
+                    interrompida = true;
+                }
+            }
+        } finally {
+            trincoFecho.writeLock().unlock();
+        }
+
+        while (escritor.isAlive()) {
+            try {
+                escritor.join();
+            } catch (InterruptedException e) {
+                interrompida = true;
+            }
+        }
+        if (interrompida) {
+            Thread.currentThread().interrupt();
+        }
+        destino.fechar();
+    }
+
+    // --- MÉTODOS AUXILIARES ---
+
+    // No modo ESPERAR_ESCRITA, cada pedido leva um futuro que é concluído depois da sincronização do lote.
+    private CompletableFuture<Void> criarEspera() {
+        return modo == ModoDurabilidade.ESPERAR_ESCRITA ? new CompletableFuture<>() : null;
+    }
+
+    /**
+     * Coloca um pedido na fila e, se o pedido tiver um futuro, espera que o seu lote fique no disco.
+     * @throws UncheckedIOException Se a persistência já foi fechada, ou se o pedido tem um futuro
+     *         e não ficou garantidamente no disco.
+     */
+    private void submeter(Pedido pedido) {
+        try {
+            trincoFecho.readLock().lock();
+            try {
+                if (fechada) {
+                    throw new UncheckedIOException(new IOException("A persistência já foi fechada; o pedido não foi guardado."));
+                }
+                fila.put(pedido);
+            } finally {
+                trincoFecho.readLock().unlock();
+            }
+            // A espera pelo disco é feita fora do trinco, para não atrasar o fecho.
+            if (pedido.concluido != null) {
+                pedido.concluido.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            if (pedido.concluido != null) {
+                throw new UncheckedIOException(new InterruptedIOException("Interrompido à espera da escrita no disco."));
+            }
+        } catch (ExecutionException e) {
+            Throwable causa = e.getCause();
+            IOException falha = causa instanceof UncheckedIOException falhaEscrita ? falhaEscrita.getCause() : new IOException(causa);
+            throw new UncheckedIOException("Falha ao guardar os dados: " + causa.getMessage(), falha);
+        }
+    }
+
+    /**
+     * Ciclo da thread de escrita: espera pelo primeiro pedido, junta-lhe os que já
+     * estiverem na fila (até ao tamanho máximo do lote), escreve-os e sincroniza uma vez.
+     * Um pedido cuja escrita falhou falha logo; os restantes só são concluídos com sucesso
+     * se a sincronização do lote correr bem.
+     */
+    private void ciclarEscrita() {
+        List<Pedido> lote = new ArrayList<>(tamanhoMaximoLote);
+        boolean terminar = false;
+        while (!terminar) {
+            try {
+                lote.add(fila.take());
+            } catch (InterruptedException e) {
+                // Só termina através do pedido FIM, para não perder pedidos na fila.
+                continue;
+            }
+            fila.drainTo(lote, tamanhoMaximoLote - 1);
+
+            for (Pedido pedido : lote) {
+                try {
+                    switch (pedido.tipo) {
+                        case ADEPTO -> destino.registarAdepto(pedido.adepto);
+                        case BILHETE -> destino.registarBilhete(pedido.adepto, pedido.bilhete);
+                        case ANULACAO -> destino.anularBilhete(pedido.adepto, pedido.bilhete);
+                        case ROLOTE -> destino.registarRolote(pedido.rolote);
+                        case COMIDA -> destino.registarCompraComida(pedido.adepto, pedido.rolote, pedido.carrinho, pedido.total);
+                        case JOGO -> destino.registarJogo(pedido.jogo);
+                        case FIM_JOGO -> destino.registarFimJogo(pedido.jogo);
+                        case FIM -> terminar = true;
+                        default -> { } // SINCRONIZACAO: basta a sincronização do lote
+                    }
+                } catch (RuntimeException e) {
+                    System.err.println("ERRO: Falha ao guardar os dados: " + e.getMessage());
+                    if (pedido.concluido != null) {
+                        pedido.concluido.completeExceptionally(e);
+                    }
+                }
+            }
+            RuntimeException falhaSincronizacao = null;
+            try {
+                destino.sincronizar();
+            } catch (RuntimeException e) {
+                falhaSincronizacao = e;
+                System.err.println("ERRO: Falha ao sincronizar os dados: " + e.getMessage());
+            }
+
+            // Os pedidos que já falharam mantêm a sua falha (um futuro só é concluído uma vez).
+            for (Pedido pedido : lote) {
+                if (pedido.concluido != null) {
+                    if (falhaSincronizacao == null) {
+                        pedido.concluido.complete(null);
+                    } else {
+                        pedido.concluido.completeExceptionally(falhaSincronizacao);
+                    }
+                }
+            }
+            lote.clear();
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package src.POO.teste_final;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * Persistência em ficheiros de texto, um por adepto e um por bilhete:
+ * adeptos/ID/info.txt e adeptos/ID/bilhetes/ID_BILHETE.txt.
+ * É o modo original do sistema: simples de consultar à mão, mas cria um
+ * ficheiro novo (e uma pasta, se necessário) por cada operação.
+ */
+public class PersistenciaFicheiros implements Persistencia {
+
+    // --- CONSTANTES ---
+
+    private static final String DESTINO = "ficheiros";  // Como esta persistência aparece nos eventos JFR.
+
+    // --- ATRIBUTOS ---
+
+    private final Path diretorioBase;   // A pasta onde ficam as pastas dos adeptos.
+
+    // --- CONSTRUTORES ---
+
+    /**
+     * Cria uma persistência em ficheiros na pasta padrão "adeptos".
+     */
+    public PersistenciaFicheiros() {
+        this(Paths.get("adeptos"));
+    }
+
+    /**
+     * Cria uma persistência em ficheiros numa pasta à escolha.
+     * @param diretorioBase A pasta onde serão criadas as pastas dos adeptos.
+     */
+    public PersistenciaFicheiros(Path diretorioBase) {
+        this.diretorioBase = diretorioBase;
+    }
+
+    // --- MÉTODOS DE PERSISTÊNCIA ---
+
+    /**
+     * Guarda os dados principais do adepto num ficheiro info.txt.
+     * Cria um diretório para o adepto se não existir.
+     */
+    @Override
+    public void registarAdepto(Adepto adepto) {
+        // Define o caminho para o diretório do adepto (ex: "adeptos/AD001")
+        Path diretorioAdepto = diretorioBase.resolve(adepto.getCodigo());
+        EventosJfr.EscritaPersistencia evento = new EventosJfr.EscritaPersistencia();
+        evento.begin();
+
+        try {
+            // Cria o diretório (e o diretório "adeptos" se necessário). Não faz nada se já existir.
+            Files.createDirectories(diretorioAdepto);
+
+            // Define o caminho completo para o ficheiro (ex: "adeptos/AD001/info.txt")
+            File ficheiroInfo = new File(diretorioAdepto.toString(), "info.txt");
+
+            // Usa try-with-resources para garantir que o PrintWriter é fechado automaticamente.
+            try (PrintWriter writer = new PrintWriter(new FileWriter(ficheiroInfo))) {
+                writer.println("ID: " + adepto.getCodigo());
+                writer.println("Nome: " + adepto.getNome());
+                writer.println("Idade: " + adepto.getIdade());
+                writer.println("Documento: " + adepto.getDocumento());
+                writer.println("Morada: " + adepto.getEndereco());
+                writer.println("Carteira Inicial: " + Dinheiro.formatar(adepto.getCarteiraInicial()));
+                if (writer.checkError()) {  // O PrintWriter não lança exceções: é preciso perguntar
+                    throw new IOException("Falha ao escrever " + ficheiroInfo + ".");
+                }
+            }
+            if (evento.shouldCommit()) {
+                evento.concluir(DESTINO, "adepto", adepto.getId(), null, ficheiroInfo.length());
+            }
+
+        } catch (IOException e) {
+            throw new UncheckedIOException("Falha ao guardar os dados do adepto " + adepto.getCodigo() + " em ficheiro.", e);
+        }
+    }
+
+    /**
+     * Guarda os dados de um bilhete comprado num ficheiro .txt dentro da pasta do adepto.
+     */
+    @Override
+    public void registarBilhete(Adepto adepto, Bilhete bilhete) {
+        // Define o caminho para o diretório de bilhetes do adepto (ex: "adeptos/AD001/bilhetes")
+        Path diretorioBilhetes = diretorioBase.resolve(adepto.getCodigo()).resolve("bilhetes");
+        EventosJfr.EscritaPersistencia evento = new EventosJfr.EscritaPersistencia();
+        evento.begin();
+
+        try {
+            Files.createDirectories(diretorioBilhetes);
+
+            // O nome do ficheiro será o código do bilhete (ex: "J1-A7.txt")
+            File ficheiroBilhete = new File(diretorioBilhetes.toString(), bilhete.getCodigo() + ".txt");
+
+            try (PrintWriter writer = new PrintWriter(new FileWriter(ficheiroBilhete))) {
+                // Usamos o método toString() do bilhete, que já formata a informação toda.
+                writer.println(bilhete.toString());
+                if (writer.checkError()) {
+                    throw new IOException("Falha ao escrever " + ficheiroBilhete + ".");
+                }
+            }
+            if (evento.shouldCommit()) {
+                evento.concluir(DESTINO, "bilhete", adepto.getId(), bilhete.getSetor().getId(), ficheiroBilhete.length());
+            }
+
+        } catch (IOException e) {
+            throw new UncheckedIOException("Falha ao guardar o bilhete " + bilhete.getCodigo() + " em ficheiro.", e);
+        }
+    }
+
+    /**
+     * Apaga o ficheiro de um bilhete anulado.
+     */
+    @Override
+    public void anularBilhete(Adepto adepto, Bilhete bilhete) {
+        try {
+            Files.deleteIfExists(diretorioBase.resolve(adepto.getCodigo()).resolve("bilhetes").resolve(bilhete.getCodigo() + ".txt"));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Falha ao apagar o ficheiro do bilhete " + bilhete.getCodigo() + ".", e);
+        }
+    }
+
+    /**
+     * Cada ficheiro é fechado logo após a escrita, por isso não há nada pendente.
+     */
+    @Override
+    public void sincronizar() {
+    }
+
+    @Override
+    public void fechar() {
+    }
+}
@@ -1,8 +1,12 @@
 package src.POO.teste_final;
 
+import java.util.concurrent.atomic.AtomicInteger;
+
 /**
  * Modela um item vendável, contendo suas informações básicas como
  * identificação, nome, preço e stock.
+ * O stock é um contador atómico: várias caixas podem vender o mesmo produto ao
+ * mesmo tempo sem venderem mais unidades do que as que existem (ver retirarStock).
  */
 public class Produto {
 
@@ -10,8 +14,8 @@ public class Produto {
 
     private int id;                 // O identificador numérico único para o produto.
     private String nome;            // O nome de exibição do produto (ex: "Cachorro Quente").
-    private double preco;           // O preço de venda unitário do produto.
-    private int quantidadeStock;    // A quantidade de unidades deste produto atualmente disponíveis.
+    private volatile long preco;    // O preço de venda unitário do produto, em cêntimos.
+    private final AtomicInteger quantidadeStock; // A quantidade de unidades deste produto atualmente disponíveis.
 
     // --- CONSTRUTOR ---
 
@@ -21,10 +25,10 @@ public class Produto {
      *
      * @param id O número de identificação para este produto.
      * @param nome O nome para este produto.
-     * @param preco O preço para este produto.
+     * @param preco O preço para este produto, em cêntimos.
      * @param quantidadeStock A quantidade inicial em stock.
      */
-    public Produto(int id, String nome, double preco, int quantidadeStock) {
+    public Produto(int id, String nome, long preco, int quantidadeStock) {
         // Validação do nome
         if (nome == null || nome.trim().isEmpty()) {
             throw new IllegalArgumentException("O nome do produto não pode ser vazio.");
@@ -43,7 +47,7 @@ public class Produto {
         this.id = id;
         this.nome = nome;
         this.preco = preco;
-        this.quantidadeStock = quantidadeStock;
+        this.quantidadeStock = new AtomicInteger(quantidadeStock);
     }
 
     // --- GETTERS E SETTERS ---
@@ -87,18 +91,18 @@ public class Produto {
 
     /**
      * Devolve o preço do produto.
-     * @return o preço do produto.
+     * @return o preço do produto, em cêntimos.
      */
-    public double getPreco() {
+    public long getPreco() {
         return preco;
     }
 
     /**
      * Define ou atualiza o preço do produto.
      * Inclui uma validação para não permitir preços negativos.
-     * @param preco O novo preço do produto.
+     * @param preco O novo preço do produto, em cêntimos.
      */
-    public void setPreco(double preco) {
+    public void setPreco(long preco) {
         if (preco <= 0) {
             throw new IllegalArgumentException("O preço do produto deve ser maior que zero.");
         }
@@ -110,7 +114,7 @@ public class Produto {
      * @return o número de unidades em stock.
      */
     public int getQuantidadeStock() {
-        return quantidadeStock;
+        return quantidadeStock.get();
     }
 
     /**
@@ -122,7 +126,42 @@ public class Produto {
         if (quantidadeStock < 0) {
             throw new IllegalArgumentException("O stock não pode ser negativo.");
         }
-        this.quantidadeStock = quantidadeStock;
+        this.quantidadeStock.set(quantidadeStock);
+    }
+
+    // --- STOCK ---
+
+    /**
+     * Retira unidades do stock, de forma atómica, se houver unidades suficientes.
+     * A verificação e a subtração são uma única operação (compare-and-set), por isso
+     * duas vendas simultâneas nunca levam o stock abaixo de zero.
+     *
+     * @param quantidade O número de unidades a retirar (maior que zero).
+     * @return true se as unidades foram retiradas, false se o stock não chegava.
+     */
+    public boolean retirarStock(int quantidade) {
+        if (quantidade <= 0) {
+            throw new IllegalArgumentException("A quantidade deve ser positiva.");
+        }
+        int stock;
+        do {
+            stock = quantidadeStock.get();
+            if (stock < quantidade) {
+                return false;
+            }
+        } while (!quantidadeStock.compareAndSet(stock, stock - quantidade));
+        return true;
+    }
+
+    /**
+     * Devolve unidades ao stock (ex: uma venda anulada), de forma atómica.
+     * @param quantidade O número de unidades a devolver (maior que zero).
+     */
+    public void reporStock(int quantidade) {
+        if (quantidade <= 0) {
+            throw new IllegalArgumentException("A quantidade deve ser positiva.");
+        }
+        quantidadeStock.addAndGet(quantidade);
     }
 
     // --- MÉTODOS ADICIONAIS ---
@@ -135,10 +174,10 @@ public class Produto {
     @Override
     public String toString() {
         // String.format() cria uma string substituindo os marcadores (%) pelos valores fornecidos.
-        return String.format("%d. %s %.2f€ (stock: %d)",
+        return String.format("%d. %s %s (stock: %d)",
                 this.id,
                 this.nome,
-                this.preco,
-                this.quantidadeStock);
+                Dinheiro.formatar(this.preco),
+                this.quantidadeStock.get());
     }
 }
\ No newline at end of file
@@ -0,0 +1,117 @@
+package src.POO.teste_final;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * O relógio que dita o ritmo da simulação de um jogo.
+ * O jogo pede ao relógio que deixe passar um certo tempo "real" (ex: 1 segundo por
+ * minuto de jogo) e o relógio decide quanto tempo de facto espera:
+ * - tempoReal(): espera o tempo todo (o ritmo original, ~90 segundos por jogo).
+ * - acelerado(fator): espera o tempo dividido pelo fator (ex: 60 = um jogo em 1,5 s).
+ * - instantaneo(): não espera nada; um jogo inteiro corre em microssegundos.
+ *
+ * Em todos os modos o relógio conta o tempo virtual que já passou na simulação,
+ * por isso um jogo instantâneo continua a saber em que ponto está.
+ */
+public final class RelogioJogo {
+
+    // --- ATRIBUTOS ---
+
+    private final double fator;                 // Quantas vezes mais rápido do que o tempo real (infinito = instantâneo).
+    private final AtomicLong tempoVirtualNanos; // Tempo virtual já decorrido, em nanossegundos.
+
+    // --- CONSTRUTOR E FÁBRICAS ---
+
+    private RelogioJogo(double fator) {
+        this.fator = fator;
+        this.tempoVirtualNanos = new AtomicLong();
+    }
+
+    /**
+     * Relógio ao ritmo real: cada pausa pedida é cumprida por inteiro.
+     * @return Um novo relógio em tempo real.
+     */
+    public static RelogioJogo tempoReal() {
+        return new RelogioJogo(1);
+    }
+
+    /**
+     * Relógio acelerado: cada pausa pedida é dividida pelo fator.
+     * @param fator Quantas vezes mais rápido do que o tempo real (maior que zero).
+     * @return Um novo relógio acelerado.
+     */
+    public static RelogioJogo acelerado(double fator) {
+        if (!(fator > 0)) {
+            throw new IllegalArgumentException("O fator de aceleração deve ser maior que zero.");
+        }
+        return new RelogioJogo(fator);
+    }
+
+    /**
+     * Relógio instantâneo: as pausas só avançam o tempo virtual, sem esperar.
+     * @return Um novo relógio instantâneo.
+     */
+    public static RelogioJogo instantaneo() {
+        return new RelogioJogo(Double.POSITIVE_INFINITY);
+    }
+
+    /**
+     * Cria um relógio a partir de uma descrição textual (ex: uma opção da linha de comandos):
+     * "real", "instantaneo" ou um fator de aceleração (ex: "60").
+     * @param descricao A descrição do relógio.
+     * @return O relógio correspondente.
+     * @throws IllegalArgumentException Se a descrição não for reconhecida.
+     */
+    public static RelogioJogo deDescricao(String descricao) {
+        String texto = descricao.trim().toLowerCase();
+        switch (texto) {
+            case "real":
+                return tempoReal();
+            case "instantaneo":
+                return instantaneo();
+            default:
+                try {
+                    return acelerado(Double.parseDouble(texto));
+                } catch (NumberFormatException e) {
+                    throw new IllegalArgumentException("Relógio desconhecido: '" + descricao
+                            + "' (use real, instantaneo ou um fator de aceleração).");
+                }
+        }
+    }
+
+    // --- GETTERS ---
+
+    public boolean isInstantaneo() {
+        return Double.isInfinite(fator);
+    }
+
+    /**
+     * Devolve o tempo virtual que já passou na simulação (a soma das pausas pedidas).
+     * @return O tempo virtual decorrido.
+     */
+    public Duration getTempoVirtual() {
+        return Duration.ofNanos(tempoVirtualNanos.get());
+    }
+
+    // --- MÉTODOS ---
+
+    /**
+     * Deixa passar um período de tempo da simulação.
+     * @param duracao O tempo que passaria no ritmo real.
+     * @throws InterruptedException Se a thread for interrompida durante a espera.
+     */
+    public void aguardar(Duration duracao) throws InterruptedException {
+        long nanos = duracao.toNanos();
+        tempoVirtualNanos.addAndGet(nanos);
+        if (isInstantaneo()) {
+            // Não espera, mas continua a respeitar um pedido de interrupção.
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+            return;
+        }
+        TimeUnit.NANOSECONDS.sleep((long) (nanos / fator));
+    }
+}
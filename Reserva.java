@@ -0,0 +1,110 @@
+package src.POO.teste_final;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Modela a retenção temporária de um lugar, entre o momento em que o adepto o
+ * escolhe e o momento em que o pagamento é confirmado.
+ * Enquanto a reserva está ativa, o lugar aparece como indisponível para as outras
+ * bilheteiras. A reserva termina de uma de três formas: é confirmada (o lugar fica
+ * vendido), é cancelada, ou expira (o lugar volta a ficar livre).
+ */
+public class Reserva {
+
+    // --- CONSTANTES ---
+
+    private static final int ATIVA = 0;
+    private static final int CONFIRMADA = 1;
+    private static final int LIBERTADA = 2;
+
+    // --- ATRIBUTOS ---
+
+    private final MapaLugares mapa;         // O mapa (setor de um jogo) onde o lugar está retido.
+    private final int fila;                 // A fila do lugar (0 a filas - 1).
+    private final int coluna;               // A coluna do lugar (0 a colunas - 1).
+    private final AtomicInteger estado;     // ATIVA, CONFIRMADA ou LIBERTADA.
+    private long tickExpiracao;             // O tick da roda de expiração em que a reserva expira.
+
+    // --- CONSTRUTOR ---
+
+    /**
+     * Cria uma reserva ativa para um lugar que já foi reclamado no mapa.
+     * As reservas são criadas pelo MapaLugares; não devem ser criadas diretamente.
+     */
+    Reserva(MapaLugares mapa, int fila, int coluna) {
+        this.mapa = mapa;
+        this.fila = fila;
+        this.coluna = coluna;
+        this.estado = new AtomicInteger(ATIVA);
+    }
+
+    // --- GETTERS ---
+
+    public MapaLugares getMapa() {
+        return mapa;
+    }
+
+    public Setor getSetor() {
+        return mapa.getSetor();
+    }
+
+    public int getFila() {
+        return fila;
+    }
+
+    public int getColuna() {
+        return coluna;
+    }
+
+    /**
+     * Indica se a reserva ainda está ativa (nem confirmada, nem cancelada, nem expirada).
+     * @return true se o lugar continua retido por esta reserva.
+     */
+    public boolean isAtiva() {
+        return estado.get() == ATIVA;
+    }
+
+    long getTickExpiracao() {
+        return tickExpiracao;
+    }
+
+    void setTickExpiracao(long tickExpiracao) {
+        this.tickExpiracao = tickExpiracao;
+    }
+
+    // --- MÉTODOS DE GESTÃO ---
+
+    /**
+     * Confirma a reserva, transformando o lugar retido num lugar vendido.
+     * A confirmação e a expiração competem entre si: apenas a primeira a chegar tem efeito.
+     * @return true se o lugar ficou vendido, false se a reserva já tinha expirado ou sido cancelada.
+     */
+    public boolean confirmar() {
+        if (estado.compareAndSet(ATIVA, CONFIRMADA)) {
+            mapa.terminarRetencao(fila, coluna, false);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Cancela a reserva e devolve o lugar ao mapa.
+     * @return true se a reserva foi cancelada, false se já não estava ativa.
+     */
+    public boolean cancelar() {
+        if (estado.compareAndSet(ATIVA, LIBERTADA)) {
+            mapa.terminarRetencao(fila, coluna, true);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Chamado pela roda de expiração quando o prazo da reserva termina.
+     * Tem o mesmo efeito que cancelar().
+     * @return true se a reserva estava ativa e expirou agora.
+     */
+    boolean expirar() {
+        return cancelar();
+    }
+}
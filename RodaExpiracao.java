@@ -0,0 +1,115 @@
+package src.POO.teste_final;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Roda temporizadora (timer wheel) que liberta as reservas de lugares expiradas.
+ * O tempo é dividido em ticks; cada reserva é colocada na ranhura do tick em que
+ * expira. A cada tick só é visitada uma ranhura, por isso o custo depende apenas
+ * do número de reservas que expiram nesse momento e nunca do número de lugares.
+ * Reservas com prazo superior a uma volta completa da roda ficam na mesma ranhura
+ * e são recolocadas até chegar a sua volta.
+ */
+public class RodaExpiracao {
+
+    // --- CONSTANTES ---
+
+    private static final int NUMERO_RANHURAS = 512; // Potência de 2, para usar uma máscara em vez de %
+
+    // --- ATRIBUTOS ---
+
+    private final long duracaoTickNanos;                    // Duração de um tick.
+    private final List<Queue<Reserva>> ranhuras;            // Uma fila de reservas por ranhura.
+    private final ScheduledExecutorService temporizador;    // Thread que faz avançar a roda.
+    private volatile long tickAtual;                        // O último tick processado.
+
+    // --- CONSTRUTOR ---
+
+    /**
+     * Cria e põe a girar uma nova roda de expiração.
+     * A thread da roda é daemon, para não impedir o programa de terminar.
+     * @param duracaoTick A resolução da roda (ex: 100 ms).
+     */
+    public RodaExpiracao(Duration duracaoTick) {
+        this.duracaoTickNanos = duracaoTick.toNanos();
+        if (this.duracaoTickNanos <= 0) {
+            throw new IllegalArgumentException("A duração do tick deve ser positiva.");
+        }
+        this.ranhuras = new ArrayList<>(NUMERO_RANHURAS);
+        for (int i = 0; i < NUMERO_RANHURAS; i++) {
+            this.ranhuras.add(new ConcurrentLinkedQueue<>());
+        }
+
+        this.temporizador = Executors.newSingleThreadScheduledExecutor(tarefa -> {
+            Thread thread = new Thread(tarefa, "roda-expiracao-reservas");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.temporizador.scheduleAtFixedRate(this::avancar, duracaoTickNanos, duracaoTickNanos, TimeUnit.NANOSECONDS);
+    }
+
+    // --- MÉTODOS DE GESTÃO ---
+
+    /**
+     * Agenda a expiração de uma reserva.
+     * @param reserva A reserva a expirar.
+     * @param prazo Quanto tempo a reserva pode ficar ativa.
+     */
+    public void agendar(Reserva reserva, Duration prazo) {
+        long ticks = Math.max(1, (prazo.toNanos() + duracaoTickNanos - 1) / duracaoTickNanos);
+        long tickExpiracao = tickAtual + ticks;
+        reserva.setTickExpiracao(tickExpiracao);
+        ranhuras.get((int) (tickExpiracao & (NUMERO_RANHURAS - 1))).add(reserva);
+    }
+
+    /**
+     * Pára a roda. As reservas que ainda estejam ativas deixam de expirar.
+     */
+    public void parar() {
+        temporizador.shutdownNow();
+    }
+
+    /**
+     * Avança um tick e expira as reservas da ranhura correspondente.
+     * Reservas já confirmadas ou canceladas são simplesmente descartadas.
+     * Uma exceção nunca pode sair daqui: o scheduleAtFixedRate deixaria de chamar a roda
+     * e nenhuma reserva voltaria a expirar. A falha de uma reserva é registada e a roda continua.
+     */
+    private void avancar() {
+        long tick = tickAtual + 1;
+        tickAtual = tick;
+        Queue<Reserva> ranhura = ranhuras.get((int) (tick & (NUMERO_RANHURAS - 1)));
+
+        List<Reserva> voltasSeguintes = null;
+        Reserva reserva;
+        while ((reserva = ranhura.poll()) != null) {
+            if (!reserva.isAtiva()) {
+                continue;
+            }
+            if (reserva.getTickExpiracao() <= tick) {
+                try {
+                    reserva.expirar();
+                } catch (RuntimeException e) {
+                    System.err.println("ERRO: Falha ao expirar a reserva do lugar (fila " + (reserva.getFila() + 1)
+                            + ", coluna " + (reserva.getColuna() + 1) + "): " + e);
+                }
+            } else {
+                // Pertence a uma volta seguinte da roda.
+                if (voltasSeguintes == null) {
+                    voltasSeguintes = new ArrayList<>();
+                }
+                voltasSeguintes.add(reserva);
+            }
+        }
+        if (voltasSeguintes != null) {
+            ranhura.addAll(voltasSeguintes);
+        }
+    }
+}
@@ -2,21 +2,41 @@ package src.POO.teste_final;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * Modela uma rolote de venda de produtos no estádio.
  * É responsável por gerir a sua lista de produtos, o seu estado (aberta/fechada)
  * e o seu faturamento.
+ *
+ * Várias caixas podem vender na mesma rolote ao mesmo tempo, sem um trinco comum:
+ * o stock de cada produto é retirado de forma atómica e a faturação é acumulada num
+ * LongAdder, que reparte as somas por várias células quando há muitas vendas em simultâneo.
  */
 public class Rolote {
 
+    // --- TIPOS ---
+
+    /**
+     * O resultado de uma compra de vários produtos (ver finalizarCompra).
+     */
+    public enum ResultadoCompra {
+        CONCLUIDA,              // Stock retirado, adepto cobrado e faturação atualizada.
+        CARRINHO_VAZIO,         // Não havia nada para comprar.
+        ROLOTE_FECHADA,         // A rolote não está a vender.
+        STOCK_INSUFICIENTE,     // Faltava stock de pelo menos um produto; nada foi alterado.
+        SALDO_INSUFICIENTE      // O adepto não tinha saldo; o stock foi reposto.
+    }
+
     // --- ATRIBUTOS ---
 
     private int id;                     // O ID único da rolote (1 a 5).
     private String nome;                // O nome da rolote (ex: "Sabores do Leão").
     private List<Produto> produtos;     // A lista de produtos que a rolote vende.
-    private boolean aberto;             // O estado da rolote: true = aberta, false = fechada.
-    private double faturamentoDiario;   // O total de vendas em euros.
+    private volatile boolean aberto;    // O estado da rolote: true = aberta, false = fechada.
+    private final LongAdder faturamentoDiario; // O total de vendas, em cêntimos.
 
     // --- CONSTRUTOR ---
 
@@ -30,9 +50,9 @@ public class Rolote {
     public Rolote(int id, String nome) {
         this.id = id;
         this.nome = nome;
-        this.produtos = new ArrayList<>(); // Inicializa uma lista de produtos vazia.
+        this.produtos = new CopyOnWriteArrayList<>(); // Lista vazia; pode ser percorrida enquanto se vende.
         this.aberto = false;               // Começa fechada por defeito.
-        this.faturamentoDiario = 0.0;      // Começa com zero de faturação.
+        this.faturamentoDiario = new LongAdder(); // Começa com zero de faturação.
     }
 
     // --- GETTERS E SETTERS ---
@@ -56,10 +76,10 @@ public class Rolote {
     /**
      * Devolve a faturação total da rolote.
      * Corresponde ao requisito 'calcularFaturacao'.
-     * @return O valor total faturado.
+     * @return O valor total faturado, em cêntimos.
      */
-    public double getFaturamentoDiario() {
-        return faturamentoDiario;
+    public long getFaturamentoDiario() {
+        return faturamentoDiario.sum();
     }
 
     // --- MÉTODOS DE GESTÃO ---
@@ -91,6 +111,7 @@ public class Rolote {
     /**
      * Processa a venda de uma certa quantidade de um produto.
      * Verifica se a rolote está aberta e se há stock suficiente.
+     * Pode ser chamado por várias caixas ao mesmo tempo.
      *
      * @param produto O produto a ser vendido.
      * @param quantidade A quantidade a ser vendida.
@@ -109,26 +130,143 @@ public class Rolote {
             return false;
         }
 
-        // Validação 3: Há stock suficiente?
-        if (produto.getQuantidadeStock() < quantidade) {
+        // Validação 3 e atualização do stock numa só operação atómica
+        if (!produto.retirarStock(quantidade)) {
             System.out.println("Erro: Stock insuficiente para '" + produto.getNome() + "'. Pedido: " + quantidade + ", Disponível: " + produto.getQuantidadeStock());
             return false;
         }
 
-        // --- Se todas as validações passarem, processa a venda ---
-
-        // Atualiza o stock do produto
-        int novoStock = produto.getQuantidadeStock() - quantidade;
-        produto.setQuantidadeStock(novoStock);
-
         // Atualiza a faturação da rolote
-        double valorVenda = produto.getPreco() * quantidade;
-        this.faturamentoDiario += valorVenda;
+        this.faturamentoDiario.add(Dinheiro.multiplicar(produto.getPreco(), quantidade));
 
         System.out.println("Venda efetuada: " + quantidade + "x " + produto.getNome());
         return true;
     }
 
+    /**
+     * Calcula o valor de um carrinho de compras, aos preços atuais.
+     * @param carrinho Os produtos e as quantidades.
+     * @return O valor total, em cêntimos.
+     */
+    public long calcularTotal(Map<Produto, Integer> carrinho) {
+        long total = 0;
+        for (Map.Entry<Produto, Integer> linha : carrinho.entrySet()) {
+            total = Dinheiro.somar(total, Dinheiro.multiplicar(linha.getKey().getPreco(), linha.getValue()));
+        }
+        return total;
+    }
+
+    /**
+     * Vende um carrinho inteiro a um adepto, como uma única operação: ou são vendidos
+     * todos os produtos, ou nenhum.
+     *
+     * 1. Retira (reserva) o stock de cada linha do carrinho, de forma atómica produto a produto.
+     *    Se faltar stock de alguma linha, as linhas já reservadas são repostas.
+     * 2. Cobra o total ao adepto. Se o saldo não chegar, todo o stock reservado é reposto.
+     * 3. Só então soma o total à faturação.
+     *
+     * Não há nenhum trinco sobre a rolote: outras caixas continuam a vender enquanto o
+     * carrinho é processado, e o stock reservado nunca pode ser vendido a outra caixa.
+     *
+     * @param adepto O adepto que paga.
+     * @param carrinho Os produtos (desta rolote) e as quantidades, todas maiores que zero.
+     * @return O resultado da compra.
+     */
+    public ResultadoCompra finalizarCompra(Adepto adepto, Map<Produto, Integer> carrinho) {
+        EventosJfr.VendaRolote evento = new EventosJfr.VendaRolote();
+        evento.begin();
+        ResultadoCompra resultado = venderCarrinho(adepto, carrinho);
+        if (evento.shouldCommit()) {
+            int unidades = 0;
+            for (int quantidade : carrinho.values()) {
+                unidades += quantidade;
+            }
+            evento.rolote = this.nome;
+            evento.adepto = adepto.getCodigo();
+            evento.produtos = carrinho.size();
+            evento.unidades = unidades;
+            evento.total = calcularTotal(carrinho);
+            evento.resultado = resultado.name();
+            evento.commit();
+        }
+        return resultado;
+    }
+
+    private ResultadoCompra venderCarrinho(Adepto adepto, Map<Produto, Integer> carrinho) {
+        if (carrinho.isEmpty()) {
+            return ResultadoCompra.CARRINHO_VAZIO;
+        }
+        if (!this.aberto) {
+            return ResultadoCompra.ROLOTE_FECHADA;
+        }
+
+        // 1. Reserva do stock
+        List<Map.Entry<Produto, Integer>> reservadas = new ArrayList<>(carrinho.size());
+        for (Map.Entry<Produto, Integer> linha : carrinho.entrySet()) {
+            if (!linha.getKey().retirarStock(linha.getValue())) {
+                reporStock(reservadas);
+                return ResultadoCompra.STOCK_INSUFICIENTE;
+            }
+            reservadas.add(linha);
+        }
+
+        // 2. Pagamento
+        long total = calcularTotal(carrinho);
+        if (!adepto.debitar(total)) {
+            reporStock(reservadas);
+            return ResultadoCompra.SALDO_INSUFICIENTE;
+        }
+
+        // 3. Confirmação
+        this.faturamentoDiario.add(total);
+        return ResultadoCompra.CONCLUIDA;
+    }
+
+    /**
+     * Desfaz uma compra concluída que não pôde ser guardada: repõe o stock, retira o total
+     * da faturação e devolve-o ao adepto.
+     * @param adepto O adepto que pagou.
+     * @param carrinho Os produtos e as quantidades vendidas.
+     * @param total O valor cobrado, em cêntimos.
+     */
+    void anularCompra(Adepto adepto, Map<Produto, Integer> carrinho, long total) {
+        reporStock(new ArrayList<>(carrinho.entrySet()));
+        this.faturamentoDiario.add(-total);
+        adepto.creditar(total);
+    }
+
+    // Devolve ao stock as linhas de um carrinho já reservadas.
+    private static void reporStock(List<Map.Entry<Produto, Integer>> reservadas) {
+        for (Map.Entry<Produto, Integer> linha : reservadas) {
+            linha.getKey().reporStock(linha.getValue());
+        }
+    }
+
+    /**
+     * Repõe o estado da rolote ao restaurá-la a partir do disco (sem mensagens).
+     * @param aberto Se a rolote estava aberta.
+     * @param faturamentoDiario O total faturado até ao momento, em cêntimos.
+     */
+    void restaurarEstado(boolean aberto, long faturamentoDiario) {
+        this.aberto = aberto;
+        this.faturamentoDiario.reset();
+        this.faturamentoDiario.add(faturamentoDiario);
+    }
+
+    /**
+     * Cria uma cópia independente da rolote e dos seus produtos, tal como estão agora.
+     * Serve para guardar o estado da rolote mais tarde sem ser afetado por vendas entretanto feitas.
+     * @return A cópia da rolote.
+     */
+    Rolote copiar() {
+        Rolote copia = new Rolote(this.id, this.nome);
+        for (Produto produto : this.produtos) {
+            copia.adicionaProduto(new Produto(produto.getId(), produto.getNome(), produto.getPreco(), produto.getQuantidadeStock()));
+        }
+        copia.restaurarEstado(this.aberto, getFaturamentoDiario());
+        return copia;
+    }
+
     /**
      * Retorna uma representação textual do menu da rolote.
      * @return Uma String com o nome da rolote e a lista dos seus produtos.
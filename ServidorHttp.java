@@ -0,0 +1,628 @@
+package src.POO.teste_final;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * API HTTP/JSON do estádio, para as bilheteiras e caixas ligadas em rede.
+ * Usa o servidor HTTP do próprio JDK; cada pedido é tratado numa virtual thread, por isso
+ * milhares de pedidos em simultâneo (ex: adeptos à espera do pagamento) não ocupam milhares
+ * de threads do sistema. As operações chamadas são as mesmas do MenuController e do ModoLote,
+ * que já podem ser usadas por várias threads ao mesmo tempo.
+ *
+ * Pedidos:
+ * - GET  /estadio                      nome, capacidade e setores
+ * - GET  /jogos                        o calendário
+ * - GET  /jogos/{n}                    um jogo, com os lugares livres de cada setor
+ * - POST /jogos/{n}/bilhetes           compra um lugar {"adepto","setor","lugar"}
+ *                                      ou um bloco de lugares juntos {"adepto","setor","quantidade"};
+ *                                      um bloco é vendido por inteiro ou não é vendido
+ * - POST /adeptos                      regista um adepto {"nome","idade","cc","endereco","carteiraCentimos"}
+ * - GET  /adeptos/{codigo}             um adepto, com os seus bilhetes
+ * - GET  /rolotes                      as rolotes e os seus produtos
+ * - POST /rolotes/{id}/compras         compra comida {"adepto","itens":[{"produto","quantidade"}]}
+ * - GET  /estatisticas[?jogo=n]        ocupação e receitas (do jogo atual, por omissão)
+ * Os valores em dinheiro são sempre em cêntimos. Os lugares e os produtos são numerados a
+ * partir de 1, como no menu. Os erros são devolvidos como {"erro": "mensagem"}.
+ */
+public class ServidorHttp {
+
+    // --- CONSTANTES ---
+
+    private static final int LIGACOES_EM_ESPERA = 4096;        // Ligações aceites pelo sistema antes de serem atendidas.
+    private static final int TAMANHO_MAXIMO_CORPO = 64 * 1024; // Bytes de um pedido; acima disto o pedido é recusado.
+    private static final int SEGUNDOS_PARAGEM = 1;             // Tempo dado aos pedidos em curso quando o servidor para.
+    private static final String TIPO_JSON = "application/json; charset=utf-8";
+
+    static {
+        // O servidor do JDK envia os cabeçalhos e o corpo em escritas separadas; com o algoritmo de
+        // Nagle ligado, cada resposta numa ligação reutilizada fica ~40 ms à espera do ACK do cliente.
+        // A propriedade é lida uma só vez, quando o primeiro servidor é criado.
+        System.getProperties().putIfAbsent("sun.net.httpserver.nodelay", "true");
+    }
+
+    // --- TIPOS ---
+
+    /**
+     * Um pedido que não pode ser atendido, com o código HTTP a devolver.
+     */
+    private static final class ErroHttp extends RuntimeException {
+        private final int codigo;
+
+        ErroHttp(int codigo, String mensagem) {
+            super(mensagem);
+            this.codigo = codigo;
+        }
+    }
+
+    // --- ATRIBUTOS ---
+
+    private final Estadio estadio;
+    private final HttpServer servidor;
+    private final ExecutorService executor;     // Uma virtual thread por pedido.
+    private final AtomicBoolean parado = new AtomicBoolean(false);
+
+    // --- CONSTRUTOR ---
+
+    /**
+     * Cria o servidor, à escuta apenas neste computador (localhost).
+     * @param estadio O estádio servido pela API.
+     * @param porta A porta (0 escolhe uma porta livre; ver getPorta()).
+     * @throws IOException Se a porta não puder ser usada.
+     */
+    public ServidorHttp(Estadio estadio, int porta) throws IOException {
+        this(estadio, new InetSocketAddress(InetAddress.getLoopbackAddress(), porta));
+    }
+
+    /**
+     * Cria o servidor, à escuta no endereço indicado.
+     * @param estadio O estádio servido pela API.
+     * @param endereco O endereço e a porta.
+     * @throws IOException Se o endereço não puder ser usado.
+     */
+    public ServidorHttp(Estadio estadio, InetSocketAddress endereco) throws IOException {
+        this.estadio = estadio;
+        this.servidor = HttpServer.create(endereco, LIGACOES_EM_ESPERA);
+        this.executor = Executors.newVirtualThreadPerTaskExecutor();
+        this.servidor.setExecutor(this.executor);
+        this.servidor.createContext("/", this::tratar);
+    }
+
+    // --- GETTERS ---
+
+    public int getPorta() {
+        return servidor.getAddress().getPort();
+    }
+
+    // --- CICLO DE VIDA ---
+
+    /**
+     * Começa a aceitar pedidos.
+     */
+    public void iniciar() {
+        servidor.start();
+    }
+
+    /**
+     * Deixa de aceitar pedidos e espera um pouco pelos que estão em curso.
+     * Pode ser chamado mais do que uma vez (ex: no fim do menu e no hook de encerramento).
+     */
+    public void parar() {
+        if (parado.compareAndSet(false, true)) {
+            servidor.stop(SEGUNDOS_PARAGEM);
+            executor.shutdown();
+        }
+    }
+
+    // --- TRATAMENTO DOS PEDIDOS ---
+
+    /**
+     * Trata um pedido: encaminha-o pelo método e pelo caminho e envia a resposta.
+     * Corre numa virtual thread própria.
+     */
+    private void tratar(HttpExchange troca) {
+        try (troca) {
+            int codigo;
+            String resposta;
+            try {
+                StringBuilder json = new StringBuilder(256);
+                codigo = encaminhar(troca, json);
+                resposta = json.toString();
+            } catch (ErroHttp e) {
+                codigo = e.codigo;
+                resposta = erro(e.getMessage());
+            } catch (IllegalArgumentException e) {
+                // Dados inválidos no pedido (ex: JSON mal formado, número fora dos limites).
+                codigo = 400;
+                resposta = erro(e.getMessage());
+            } catch (IllegalStateException e) {
+                // O pedido é válido, mas o estado do estádio não o permite (ex: lugar já vendido).
+                codigo = 409;
+                resposta = erro(e.getMessage());
+            } catch (RuntimeException e) {
+                codigo = 500;
+                resposta = erro("Erro interno: " + e);
+            }
+            enviar(troca, codigo, resposta);
+        } catch (IOException e) {
+            // O cliente desligou-se antes de receber a resposta: não há a quem responder.
+        }
+    }
+
+    /**
+     * Escolhe a operação pelo método e pelo caminho do pedido.
+     * @param json Onde escrever a resposta.
+     * @return O código HTTP da resposta.
+     */
+    private int encaminhar(HttpExchange troca, StringBuilder json) throws IOException {
+        String metodo = troca.getRequestMethod();
+        String[] partes = partesCaminho(troca.getRequestURI().getPath());
+        String recurso = partes.length > 0 ? partes[0] : "";
+
+        switch (recurso) {
+            case "estadio":
+                exigir(metodo, "GET", partes, 1);
+                return escreverEstadio(json);
+            case "jogos":
+                if (partes.length == 1) {
+                    exigir(metodo, "GET", partes, 1);
+                    return escreverCalendario(json);
+                }
+                if (partes.length == 2) {
+                    exigir(metodo, "GET", partes, 2);
+                    return escreverJogo(json, jogo(partes[1]));
+                }
+                if (partes[2].equals("bilhetes")) {
+                    exigir(metodo, "POST", partes, 3);
+                    return comprarBilhetes(json, jogo(partes[1]), lerCorpo(troca));
+                }
+                break;
+            case "adeptos":
+                if (partes.length == 1) {
+                    exigir(metodo, "POST", partes, 1);
+                    return registarAdepto(json, lerCorpo(troca));
+                }
+                exigir(metodo, "GET", partes, 2);
+                return escreverAdepto(json, adepto(partes[1]));
+            case "rolotes":
+                if (partes.length == 1) {
+                    exigir(metodo, "GET", partes, 1);
+                    return escreverRolotes(json);
+                }
+                if (partes.length == 3 && partes[2].equals("compras")) {
+                    exigir(metodo, "POST", partes, 3);
+                    return comprarComida(json, rolote(partes[1]), lerCorpo(troca));
+                }
+                break;
+            case "estatisticas":
+                exigir(metodo, "GET", partes, 1);
+                return escreverEstatisticas(json, parametro(troca.getRequestURI().getRawQuery(), "jogo"));
+            default:
+                break;
+        }
+        throw new ErroHttp(404, "Recurso não encontrado: " + troca.getRequestURI().getPath());
+    }
+
+    // --- OPERAÇÕES ---
+
+    private int escreverEstadio(StringBuilder json) {
+        json.append("{\"nome\":");
+        Json.escape(json, estadio.getNome());
+        json.append(",\"localizacao\":");
+        Json.escape(json, estadio.getLocalizacao());
+        json.append(",\"capacidade\":").append(estadio.getCapacidadeMaxima());
+        json.append(",\"setores\":[");
+        List<Setor> setores = estadio.getSetores();
+        for (int i = 0; i < setores.size(); i++) {
+            Setor setor = setores.get(i);
+            if (i > 0) {
+                json.append(',');
+            }
+            json.append("{\"id\":");
+            Json.escape(json, setor.getId());
+            json.append(",\"precoCentimos\":").append(setor.getPrecoBase())
+                    .append(",\"filas\":").append(setor.getFilas())
+                    .append(",\"colunas\":").append(setor.getColunas())
+                    .append(",\"capacidade\":").append(setor.getCapacidade()).append('}');
+        }
+        json.append("]}");
+        return 200;
+    }
+
+    private int escreverCalendario(StringBuilder json) {
+        json.append('[');
+        List<Jogo> calendario = estadio.getCalendario();
+        for (int i = 0; i < calendario.size(); i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            escreverResumoJogo(json, calendario.get(i));
+            json.append('}');
+        }
+        json.append(']');
+        return 200;
+    }
+
+    private int escreverJogo(StringBuilder json, Jogo jogo) {
+        escreverResumoJogo(json, jogo);
+        json.append(",\"setores\":[");
+        List<Setor> setores = estadio.getSetores();
+        for (int i = 0; i < setores.size(); i++) {
+            Setor setor = setores.get(i);
+            int ocupados = jogo.getLugaresOcupados(setor);
+            if (i > 0) {
+                json.append(',');
+            }
+            json.append("{\"id\":");
+            Json.escape(json, setor.getId());
+            json.append(",\"precoCentimos\":").append(setor.getPrecoBase())
+                    .append(",\"capacidade\":").append(setor.getCapacidade())
+                    .append(",\"ocupados\":").append(ocupados)
+                    .append(",\"livres\":").append(setor.getCapacidade() - ocupados).append('}');
+        }
+        json.append("]}");
+        return 200;
+    }
+
+    // Escreve os campos comuns de um jogo, sem fechar o objeto.
+    private void escreverResumoJogo(StringBuilder json, Jogo jogo) {
+        json.append("{\"numero\":").append(jogo.getNumero()).append(",\"casa\":");
+        Json.escape(json, jogo.getEquipaCasa().getNome());
+        json.append(",\"visitante\":");
+        Json.escape(json, jogo.getEquipaVisitante().getNome());
+        json.append(",\"dataHora\":");
+        Json.escape(json, jogo.getDataHora().toString());
+        json.append(",\"terminado\":").append(jogo.isTerminado())
+                .append(",\"atual\":").append(jogo == estadio.getJogo());
+    }
+
+    // POST /jogos/{n}/bilhetes
+    private int comprarBilhetes(StringBuilder json, Jogo jogo, Map<String, Object> pedido) {
+        Adepto adepto = adepto(texto(pedido, "adepto"));
+        Setor setor = setor(texto(pedido, "setor"));
+
+        List<Reserva> reservas;
+        if (pedido.containsKey("lugar")) {
+            int lugar = inteiro(pedido, "lugar");
+            if (lugar < 1 || lugar > setor.getCapacidade()) {
+                throw new IllegalArgumentException("Lugar inválido: " + lugar + " (1-" + setor.getCapacidade() + ").");
+            }
+            Reserva reserva = estadio.reterLugar(jogo, setor, (lugar - 1) / setor.getColunas(), (lugar - 1) % setor.getColunas());
+            if (reserva == null) {
+                throw new IllegalStateException("O lugar " + setor.getId() + lugar + " já está ocupado.");
+            }
+            reservas = List.of(reserva);
+        } else {
+            int quantidade = inteiro(pedido, "quantidade");
+            if (quantidade < 1 || quantidade > setor.getColunas()) {
+                throw new IllegalArgumentException("Quantidade inválida: " + quantidade + " (1-" + setor.getColunas() + ").");
+            }
+            reservas = estadio.reterBlocoContiguo(jogo, setor, quantidade);
+            if (reservas == null) {
+                throw new IllegalStateException("Não existem " + quantidade + " lugares juntos disponíveis no Setor " + setor.getId() + ".");
+            }
+        }
+
+        // Tudo ou nada: se um bilhete falhar, os anteriores são anulados e reembolsados e os
+        // lugares ainda retidos são libertados (venderReserva já liberta o lugar que falhou).
+        List<Bilhete> vendidos = new ArrayList<>(reservas.size());
+        try {
+            for (Reserva reserva : reservas) {
+                Estadio.Venda venda = estadio.venderReserva(adepto, reserva);
+                if (!venda.isVendido()) {
+                    String motivo = venda.getResultado().getDescricao();
+                    throw new IllegalStateException(reservas.size() == 1
+                            ? "A compra falhou: " + motivo + "."
+                            : "A compra falhou no bilhete " + (vendidos.size() + 1) + " de " + reservas.size()
+                                    + " (" + motivo + "); nenhum bilhete foi cobrado e os lugares foram libertados.");
+                }
+                vendidos.add(venda.getBilhete());
+            }
+        } catch (RuntimeException e) {
+            for (int j = vendidos.size() + 1; j < reservas.size(); j++) {
+                reservas.get(j).cancelar();
+            }
+            for (Bilhete bilhete : vendidos) {
+                try {
+                    estadio.anularVenda(adepto, bilhete);
+                } catch (UncheckedIOException falha) {
+                    e.addSuppressed(falha);
+                }
+            }
+            throw e;
+        }
+
+        json.append("{\"bilhetes\":[");
+        for (int i = 0; i < vendidos.size(); i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            escreverBilhete(json, vendidos.get(i));
+        }
+        json.append("],\"carteiraCentimos\":").append(adepto.getCarteira()).append('}');
+        return 201;
+    }
+
+    // POST /adeptos
+    private int registarAdepto(StringBuilder json, Map<String, Object> pedido) {
+        String nome = textoNaoVazio(pedido, "nome");
+        int idade = inteiro(pedido, "idade");
+        String cc = texto(pedido, "cc").trim();
+        String endereco = textoNaoVazio(pedido, "endereco");
+        long carteira = numero(pedido, "carteiraCentimos");
+        if (idade < Adepto.IDADE_MINIMA) {
+            throw new IllegalArgumentException("O adepto deve ter no mínimo " + Adepto.IDADE_MINIMA + " anos.");
+        }
+        if (!Adepto.documentoValido(cc)) {
+            throw new IllegalArgumentException("O CC deve conter exatamente 8 dígitos numéricos.");
+        }
+        if (carteira < Adepto.CARTEIRA_MINIMA) {
+            throw new IllegalArgumentException("O valor mínimo da carteira é " + Dinheiro.formatar(Adepto.CARTEIRA_MINIMA) + ".");
+        }
+        // Verificado antes para o caso comum não escrever no terminal; o registo continua a garantir que o CC é único.
+        if (estadio.existeDocumento(cc) || estadio.criarNovoAdepto(nome, idade, cc, endereco, carteira) == null) {
+            throw new IllegalStateException("Já existe um adepto registado com o CC " + cc + ".");
+        }
+        escreverAdepto(json, estadio.procurarAdeptoPorDocumento(cc));
+        return 201;
+    }
+
+    // GET /adeptos/{codigo}
+    private int escreverAdepto(StringBuilder json, Adepto adepto) {
+        json.append("{\"codigo\":");
+        Json.escape(json, adepto.getCodigo());
+        json.append(",\"nome\":");
+        Json.escape(json, adepto.getNome());
+        json.append(",\"carteiraCentimos\":").append(adepto.getCarteira()).append(",\"bilhetes\":[");
+        boolean primeiro = true;
+        for (Bilhete bilhete : adepto.getBilhetes()) {
+            if (!primeiro) {
+                json.append(',');
+            }
+            escreverBilhete(json, bilhete);
+            primeiro = false;
+        }
+        json.append("]}");
+        return 200;
+    }
+
+    private void escreverBilhete(StringBuilder json, Bilhete bilhete) {
+        json.append("{\"codigo\":");
+        Json.escape(json, bilhete.getCodigo());
+        json.append(",\"jogo\":").append(bilhete.getNumeroJogo()).append(",\"setor\":");
+        Json.escape(json, bilhete.getSetor().getId());
+        json.append(",\"lugar\":").append(bilhete.getNumeroLugar())
+                .append(",\"precoCentimos\":").append(bilhete.getPreco()).append('}');
+    }
+
+    // GET /rolotes
+    private int escreverRolotes(StringBuilder json) {
+        json.append('[');
+        boolean primeira = true;
+        for (Rolote rolote : estadio.getRolotes()) {
+            if (!primeira) {
+                json.append(',');
+            }
+            json.append("{\"id\":").append(rolote.getId()).append(",\"nome\":");
+            Json.escape(json, rolote.getNome());
+            json.append(",\"aberta\":").append(rolote.isAberto()).append(",\"produtos\":[");
+            List<Produto> produtos = rolote.getProdutos();
+            for (int i = 0; i < produtos.size(); i++) {
+                Produto produto = produtos.get(i);
+                if (i > 0) {
+                    json.append(',');
+                }
+                json.append("{\"produto\":").append(i + 1).append(",\"nome\":");
+                Json.escape(json, produto.getNome());
+                json.append(",\"precoCentimos\":").append(produto.getPreco())
+                        .append(",\"stock\":").append(produto.getQuantidadeStock()).append('}');
+            }
+            json.append("]}");
+            primeira = false;
+        }
+        json.append(']');
+        return 200;
+    }
+
+    // POST /rolotes/{id}/compras
+    private int comprarComida(StringBuilder json, Rolote rolote, Map<String, Object> pedido) {
+        Adepto adepto = adepto(texto(pedido, "adepto"));
+        if (!(pedido.get("itens") instanceof List<?> itens)) {
+            throw new IllegalArgumentException("Falta a lista 'itens'.");
+        }
+
+        Map<Produto, Integer> carrinho = new LinkedHashMap<>();
+        List<Produto> produtos = rolote.getProdutos();
+        for (Object elemento : itens) {
+            if (!(elemento instanceof Map<?, ?> item)) {
+                throw new IllegalArgumentException("Cada item deve ser um objeto {\"produto\", \"quantidade\"}.");
+            }
+            int numeroProduto = inteiro(item, "produto");
+            int quantidade = inteiro(item, "quantidade");
+            if (numeroProduto < 1 || numeroProduto > produtos.size() || quantidade <= 0) {
+                throw new IllegalArgumentException("Item inválido: produto " + numeroProduto + ", quantidade " + quantidade + ".");
+            }
+            carrinho.merge(produtos.get(numeroProduto - 1), quantidade, Integer::sum);
+        }
+
+        long total = rolote.calcularTotal(carrinho);
+        Rolote.ResultadoCompra resultado = estadio.finalizarCompraComida(adepto, rolote, carrinho);
+        if (resultado == Rolote.ResultadoCompra.CARRINHO_VAZIO) {
+            throw new IllegalArgumentException("O carrinho está vazio.");
+        }
+        if (resultado != Rolote.ResultadoCompra.CONCLUIDA) {
+            throw new IllegalStateException("Compra de comida recusada: " + resultado + ".");
+        }
+        json.append("{\"totalCentimos\":").append(total)
+                .append(",\"carteiraCentimos\":").append(adepto.getCarteira()).append('}');
+        return 201;
+    }
+
+    // GET /estatisticas[?jogo=n]
+    private int escreverEstatisticas(StringBuilder json, String numeroJogo) {
+        Jogo jogo = numeroJogo == null ? estadio.getJogo() : jogo(numeroJogo);
+        EstatisticasEstadio estatisticas = estadio.getEstatisticas(jogo);
+        json.append("{\"jogo\":").append(jogo == null ? "null" : Integer.toString(jogo.getNumero()))
+                .append(",\"ocupados\":").append(estatisticas.getLugaresOcupados())
+                .append(",\"capacidade\":").append(estatisticas.getCapacidade())
+                .append(",\"percentagemOcupacao\":").append(String.format(Locale.ROOT, "%.2f", estatisticas.getPercentagemOcupacao()))
+                .append(",\"receitaBilheteiraCentimos\":").append(estatisticas.getReceitaBilheteira())
+                .append(",\"faturacaoRolotesCentimos\":").append(estatisticas.getFaturacaoRolotes())
+                .append(",\"rolotesAbertas\":").append(estatisticas.getRolotesAbertas())
+                .append(",\"totalRolotes\":").append(estatisticas.getTotalRolotes())
+                .append(",\"setores\":[");
+        List<EstatisticasEstadio.OcupacaoSetor> setores = estatisticas.getSetores();
+        for (int i = 0; i < setores.size(); i++) {
+            EstatisticasEstadio.OcupacaoSetor setor = setores.get(i);
+            if (i > 0) {
+                json.append(',');
+            }
+            json.append("{\"id\":");
+            Json.escape(json, setor.getId());
+            json.append(",\"ocupados\":").append(setor.getOcupados())
+                    .append(",\"capacidade\":").append(setor.getCapacidade()).append('}');
+        }
+        json.append("]}");
+        return 200;
+    }
+
+    // --- MÉTODOS AUXILIARES ---
+
+    private static String[] partesCaminho(String caminho) {
+        String limpo = caminho.replaceAll("^/+|/+$", "");
+        return limpo.isEmpty() ? new String[0] : limpo.split("/+");
+    }
+
+    // Confirma o método e que o caminho não tem partes a mais.
+    private static void exigir(String metodo, String esperado, String[] partes, int tamanho) {
+        if (partes.length != tamanho) {
+            throw new ErroHttp(404, "Recurso não encontrado: /" + String.join("/", partes));
+        }
+        if (!metodo.equals(esperado)) {
+            throw new ErroHttp(405, "Método " + metodo + " não permitido (use " + esperado + ").");
+        }
+    }
+
+    private static Map<String, Object> lerCorpo(HttpExchange troca) throws IOException {
+        byte[] corpo;
+        try (InputStream entrada = troca.getRequestBody()) {
+            corpo = entrada.readNBytes(TAMANHO_MAXIMO_CORPO + 1);
+        }
+        if (corpo.length > TAMANHO_MAXIMO_CORPO) {
+            throw new ErroHttp(413, "O pedido ultrapassa " + TAMANHO_MAXIMO_CORPO + " bytes.");
+        }
+        return Json.lerObjeto(new String(corpo, StandardCharsets.UTF_8));
+    }
+
+    private static void enviar(HttpExchange troca, int codigo, String resposta) throws IOException {
+        byte[] bytes = resposta.getBytes(StandardCharsets.UTF_8);
+        troca.getResponseHeaders().set("Content-Type", TIPO_JSON);
+        troca.sendResponseHeaders(codigo, bytes.length);
+        try (OutputStream saida = troca.getResponseBody()) {
+            saida.write(bytes);
+        }
+    }
+
+    private static String erro(String mensagem) {
+        return Json.escape(new StringBuilder("{\"erro\":"), mensagem).append('}').toString();
+    }
+
+    // O valor de um parâmetro da query string (ex: jogo em ?jogo=2), ou null se não existir.
+    private static String parametro(String query, String nome) {
+        if (query == null) {
+            return null;
+        }
+        for (String par : query.split("&")) {
+            int igual = par.indexOf('=');
+            if (igual > 0 && par.substring(0, igual).equals(nome)) {
+                return par.substring(igual + 1);
+            }
+        }
+        return null;
+    }
+
+    private static String texto(Map<?, ?> objeto, String chave) {
+        if (!(objeto.get(chave) instanceof String valor)) {
+            throw new IllegalArgumentException("O campo '" + chave + "' deve ser um texto.");
+        }
+        return valor;
+    }
+
+    private static String textoNaoVazio(Map<?, ?> objeto, String chave) {
+        String valor = texto(objeto, chave).trim();
+        if (valor.isEmpty()) {
+            throw new IllegalArgumentException("O campo '" + chave + "' não pode ser vazio.");
+        }
+        return valor;
+    }
+
+    private static long numero(Map<?, ?> objeto, String chave) {
+        if (!(objeto.get(chave) instanceof Long valor)) {
+            throw new IllegalArgumentException("O campo '" + chave + "' deve ser um número inteiro.");
+        }
+        return valor;
+    }
+
+    private static int inteiro(Map<?, ?> objeto, String chave) {
+        long valor = numero(objeto, chave);
+        if (valor < Integer.MIN_VALUE || valor > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("O campo '" + chave + "' está fora dos limites.");
+        }
+        return (int) valor;
+    }
+
+    private Jogo jogo(String numero) {
+        Jogo jogo;
+        try {
+            jogo = estadio.procurarJogo(Integer.parseInt(numero));
+        } catch (NumberFormatException e) {
+            jogo = null;
+        }
+        if (jogo == null) {
+            throw new ErroHttp(404, "Jogo não encontrado: " + numero + ".");
+        }
+        return jogo;
+    }
+
+    private Adepto adepto(String codigo) {
+        Adepto adepto = estadio.procurarAdepto(codigo);
+        if (adepto == null) {
+            throw new ErroHttp(404, "Adepto não encontrado: '" + codigo + "'.");
+        }
+        return adepto;
+    }
+
+    private Setor setor(String id) {
+        for (Setor setor : estadio.getSetores()) {
+            if (setor.getId().equalsIgnoreCase(id.trim())) {
+                return setor;
+            }
+        }
+        throw new IllegalArgumentException("Setor inválido: '" + id + "'.");
+    }
+
+    private Rolote rolote(String id) {
+        for (Rolote rolote : estadio.getRolotes()) {
+            if (Integer.toString(rolote.getId()).equals(id)) {
+                return rolote;
+            }
+        }
+        throw new ErroHttp(404, "Rolote não encontrada: " + id + ".");
+    }
+}
@@ -2,48 +2,85 @@ package src.POO.teste_final;
 
 /**
  * Modela um setor do estádio, com um identificador, preço base e uma
- * grelha de lugares. É responsável por gerir a disponibilidade dos assentos.
+ * grelha de lugares. O setor só descreve a grelha e é partilhado por todos os
+ * jogos do estádio: a ocupação dos lugares de cada jogo fica num MapaLugares
+ * (ver Jogo.getMapa()).
  */
 public class Setor {
 
     // --- CONSTANTES ---
 
-    // Usar constantes evita "números mágicos" no código e define a capacidade
-    // num único lugar.
-    private static final int FILAS = 5;
-    private static final int COLUNAS = 5;
+    // Dimensões usadas quando o setor é criado sem dimensões explícitas.
+    private static final int FILAS_PADRAO = 5;
+    private static final int COLUNAS_PADRAO = 5;
+
+    // Cada palavra (long) do MapaLugares guarda o estado de 64 lugares, um bit por lugar.
+    static final int BITS_POR_PALAVRA = 64;
 
     // --- ATRIBUTOS ---
 
     private String id;              // O identificador do setor (ex: "A", "B", "C", "D").
-    private double precoBase;       // O preço base de um bilhete para este setor.
-    private boolean[][] lugares;    // Matriz para representar os lugares.
+    private long precoBase;         // O preço base de um bilhete para este setor, em cêntimos.
+    private final int filas;        // O número de filas do setor.
+    private final int colunas;      // O número de lugares por fila.
+    private final int palavrasPorFila; // Quantas palavras ocupa cada fila (cada fila começa numa palavra nova).
+    private final long mascaraUltimaPalavra; // Bits válidos da última palavra de cada fila.
+
+    // --- CONSTRUTORES ---
 
-    // --- CONSTRUTOR ---
+    /**
+     * Cria uma nova instância de Setor com a grelha padrão de 5x5 lugares.
+     *
+     * @param id O identificador do setor (ex: "A").
+     * @param precoBase O preço base do bilhete para este setor.
+     */
+    public Setor(String id, long precoBase) {
+        this(id, precoBase, FILAS_PADRAO, COLUNAS_PADRAO);
+    }
 
     /**
-     * Cria uma nova instância de Setor.
-     * Inicializa a grelha de lugares com base nas constantes de FILAS e COLUNAS.
+     * Cria uma nova instância de Setor com as dimensões indicadas.
+     * Nos mapas de lugares, cada lugar ocupa um único bit e cada fila é alinhada ao início
+     * de uma palavra, para que as pesquisas por fila possam trabalhar palavra a palavra.
      *
      * @param id O identificador do setor (ex: "A").
      * @param precoBase O preço base do bilhete para este setor.
+     * @param filas O número de filas (de 1 a Bilhete.MAXIMO_FILA + 1).
+     * @param colunas O número de lugares por fila (de 1 a Bilhete.MAXIMO_COLUNA + 1).
+     * @throws IllegalArgumentException Se as dimensões não couberem no ID dos bilhetes
+     *         ou a capacidade exceder a de um int.
      */
-    public Setor(String id, double precoBase) {
+    public Setor(String id, long precoBase, int filas, int colunas) {
+        if (filas <= 0 || colunas <= 0) {
+            throw new IllegalArgumentException("O setor deve ter pelo menos uma fila e uma coluna.");
+        }
+        // A fila e a coluna de cada lugar são guardadas no ID do bilhete (ver Bilhete.codificarId).
+        if (filas - 1 > Bilhete.MAXIMO_FILA || colunas - 1 > Bilhete.MAXIMO_COLUNA) {
+            throw new IllegalArgumentException("O setor pode ter no máximo " + (Bilhete.MAXIMO_FILA + 1)
+                    + " filas e " + (Bilhete.MAXIMO_COLUNA + 1) + " lugares por fila.");
+        }
+        if ((long) filas * colunas > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("O setor excede a capacidade máxima suportada.");
+        }
         this.id = id;
         this.precoBase = precoBase;
-        // Cria a matriz usando as constantes.
-        this.lugares = new boolean[FILAS][COLUNAS];
+        this.filas = filas;
+        this.colunas = colunas;
+        this.palavrasPorFila = (colunas + BITS_POR_PALAVRA - 1) / BITS_POR_PALAVRA;
+
+        int bitsNaUltimaPalavra = colunas - (palavrasPorFila - 1) * BITS_POR_PALAVRA;
+        this.mascaraUltimaPalavra = bitsNaUltimaPalavra == BITS_POR_PALAVRA ? -1L : (1L << bitsNaUltimaPalavra) - 1;
     }
 
     // --- GETTERS E SETTERS ---
 
     /**
-     * Devolve a capacidade total do setor, calculada a partir das constantes.
+     * Devolve a capacidade total do setor, calculada a partir das suas dimensões.
      * Isto cumpre o requisito de ter uma "capacidade" acessível.
-     * @return A capacidade total do setor (25).
+     * @return A capacidade total do setor (25 na grelha padrão).
      */
     public int getCapacidade() {
-        return FILAS * COLUNAS;
+        return filas * colunas;
     }
 
     /**
@@ -58,65 +95,49 @@ public class Setor {
      * Devolve o preço base do bilhete para este setor.
      * @return O preço do bilhete.
      */
-    public double getPrecoBase() {
+    public long getPrecoBase() {
         return precoBase;
     }
 
     /**
-     * Verifica o número total de lugares disponíveis no setor.
-     * @return O número de lugares livres (não ocupados).
+     * Devolve o número de filas do setor.
+     * @return O número de filas.
      */
-    public int verificarDisponibilidade() {
-        int lugaresLivres = 0;
-        for (int i = 0; i < FILAS; i++) {
-            for (int j = 0; j < COLUNAS; j++) {
-                if (!this.lugares[i][j]) {
-                    lugaresLivres++;
-                }
-            }
-        }
-        return lugaresLivres;
+    public int getFilas() {
+        return filas;
     }
 
     /**
-     * Exibe uma representação visual da grelha de lugares do setor.
+     * Devolve o número de lugares em cada fila.
+     * @return O número de colunas.
      */
-    public void mostrarLugares() {
-        System.out.println("\nEstado atual do Setor " + this.id + ":");
-        System.out.println("(Legenda: [ ] = Livre, [X] = Ocupado)");
-        for (int i = 0; i < FILAS; i++) {
-            for (int j = 0; j < COLUNAS; j++) {
-                if (this.lugares[i][j]) {
-                    System.out.print("[X] ");
-                } else {
-                    System.out.print("[ ] ");
-                }
-            }
-            System.out.println();
-        }
+    public int getColunas() {
+        return colunas;
     }
 
-    /**
-     * Ocupa um lugar específico na grelha do setor.
-     * @param fila A fila do lugar (0 a 4).
-     * @param coluna A coluna do lugar (0 a 4).
-     */
-    public void ocuparLugar(int fila, int coluna) {
-        if (fila >= 0 && fila < FILAS && coluna >= 0 && coluna < COLUNAS) {
-            this.lugares[fila][coluna] = true; // Define o lugar como ocupado
-        }
+    // --- GEOMETRIA DA GRELHA (usada pelo MapaLugares) ---
+
+    // Quantas palavras ocupa cada fila.
+    int getPalavrasPorFila() {
+        return palavrasPorFila;
     }
 
-    /**
-     * Verifica se um lugar específico já está ocupado.
-     * @param fila A fila do lugar (0 a 4).
-     * @param coluna A coluna do lugar (0 a 4).
-     * @return true se o lugar estiver ocupado, false caso contrário.
-     */
-    public boolean isLugarOcupado(int fila, int coluna) {
-        if (fila >= 0 && fila < FILAS && coluna >= 0 && coluna < COLUNAS) {
-            return this.lugares[fila][coluna];
-        }
-        return true; // Considera ocupado se as coordenadas forem inválidas
+    // Quantas palavras são precisas para guardar um bit por lugar de todo o setor.
+    int getNumeroPalavras() {
+        return filas * palavrasPorFila;
+    }
+
+    // Bits válidos da palavra p de uma fila (a última pode estar incompleta).
+    long mascaraPalavra(int p) {
+        return p == palavrasPorFila - 1 ? mascaraUltimaPalavra : -1L;
+    }
+
+    boolean coordenadasValidas(int fila, int coluna) {
+        return fila >= 0 && fila < filas && coluna >= 0 && coluna < colunas;
+    }
+
+    // Índice da palavra que contém o lugar (fila, coluna).
+    int indicePalavra(int fila, int coluna) {
+        return fila * palavrasPorFila + coluna / BITS_POR_PALAVRA;
     }
-}
\ No newline at end of file
+}
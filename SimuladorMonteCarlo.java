@@ -0,0 +1,347 @@
+package src.POO.teste_final;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Simula em massa (milhões de vezes) um jogo entre duas equipas, com as mesmas regras
+ * do Jogo: em cada oportunidade (a cada 10 minutos), cada equipa tem 10% de probabilidade
+ * de marcar, e o marcador é um jogador do plantel escolhido ao acaso.
+ *
+ * As simulações são divididas em blocos por um ForkJoinPool. Cada bloco tem o seu próprio
+ * SplittableRandom (obtido com split() do gerador do bloco pai) e os seus próprios
+ * contadores, que só são somados no fim: as threads não partilham nada enquanto simulam
+ * e o ciclo interior não cria objetos. Como a divisão em blocos depende só do número de
+ * simulações, a mesma semente dá sempre o mesmo resultado, com qualquer número de threads.
+ */
+public class SimuladorMonteCarlo {
+
+    // --- CONSTANTES ---
+
+    // Oportunidades de golo de cada equipa por jogo (minutos 10, 20, ..., 90).
+    private static final int OPORTUNIDADES = Jogo.DURACAO_JOGO / Jogo.INTERVALO_OPORTUNIDADES;
+    // Golos possíveis de cada equipa: de 0 a OPORTUNIDADES.
+    private static final int GOLOS_POSSIVEIS = OPORTUNIDADES + 1;
+    // Abaixo deste número de simulações, um bloco não é dividido.
+    private static final int SIMULACOES_POR_BLOCO = 1 << 14;
+
+    // --- ATRIBUTOS ---
+
+    private final Equipa casa;
+    private final Equipa visitante;
+    private final ForkJoinPool pool;    // Onde correm os blocos de simulações.
+
+    // --- CONSTRUTORES ---
+
+    /**
+     * Cria um simulador que usa o ForkJoinPool comum (uma thread por processador).
+     * @param casa A equipa da casa.
+     * @param visitante A equipa visitante.
+     */
+    public SimuladorMonteCarlo(Equipa casa, Equipa visitante) {
+        this(casa, visitante, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Cria um simulador que usa o ForkJoinPool indicado.
+     * @param casa A equipa da casa.
+     * @param visitante A equipa visitante.
+     * @param pool O pool onde correm as simulações.
+     */
+    public SimuladorMonteCarlo(Equipa casa, Equipa visitante, ForkJoinPool pool) {
+        this.casa = casa;
+        this.visitante = visitante;
+        this.pool = pool;
+    }
+
+    // --- SIMULAÇÃO ---
+
+    /**
+     * Simula o jogo o número de vezes indicado.
+     * @param numeroSimulacoes Quantos jogos simular (maior que zero).
+     * @param semente A semente do gerador aleatório: a mesma semente dá o mesmo resultado.
+     * @return As distribuições de resultados e de marcadores.
+     */
+    public Resultado simular(long numeroSimulacoes, long semente) {
+        if (numeroSimulacoes <= 0) {
+            throw new IllegalArgumentException("O número de simulações deve ser positivo.");
+        }
+        // Só o tamanho dos planteis entra na simulação; os nomes são associados no fim.
+        int jogadoresCasa = casa.getPlantel().size();
+        int jogadoresVisitante = visitante.getPlantel().size();
+        Contagem contagem = pool.invoke(new Bloco(0, numeroSimulacoes, new SplittableRandom(semente),
+                jogadoresCasa, jogadoresVisitante));
+        return new Resultado(this, numeroSimulacoes, contagem);
+    }
+
+    /**
+     * Simula o jogo o número de vezes indicado, com uma semente aleatória.
+     * @param numeroSimulacoes Quantos jogos simular (maior que zero).
+     * @return As distribuições de resultados e de marcadores.
+     */
+    public Resultado simular(long numeroSimulacoes) {
+        return simular(numeroSimulacoes, new SplittableRandom().nextLong());
+    }
+
+    // Os contadores de um bloco de simulações (e, depois de somados, de todas).
+    private static final class Contagem {
+        final long[] placares = new long[GOLOS_POSSIVEIS * GOLOS_POSSIVEIS]; // [golosCasa * GOLOS_POSSIVEIS + golosVisitante]
+        final long[] golosPorJogadorCasa;
+        final long[] golosPorJogadorVisitante;
+
+        Contagem(int jogadoresCasa, int jogadoresVisitante) {
+            this.golosPorJogadorCasa = new long[jogadoresCasa];
+            this.golosPorJogadorVisitante = new long[jogadoresVisitante];
+        }
+
+        void somar(Contagem outra) {
+            for (int i = 0; i < placares.length; i++) {
+                placares[i] += outra.placares[i];
+            }
+            for (int i = 0; i < golosPorJogadorCasa.length; i++) {
+                golosPorJogadorCasa[i] += outra.golosPorJogadorCasa[i];
+            }
+            for (int i = 0; i < golosPorJogadorVisitante.length; i++) {
+                golosPorJogadorVisitante[i] += outra.golosPorJogadorVisitante[i];
+            }
+        }
+    }
+
+    // Um bloco de simulações [inicio, fim). Divide-se ao meio até ser pequeno o suficiente.
+    private static final class Bloco extends RecursiveTask<Contagem> {
+        private final long inicio;
+        private final long fim;
+        private final SplittableRandom aleatorio;
+        private final int jogadoresCasa;
+        private final int jogadoresVisitante;
+
+        Bloco(long inicio, long fim, SplittableRandom aleatorio, int jogadoresCasa, int jogadoresVisitante) {
+            this.inicio = inicio;
+            this.fim = fim;
+            this.aleatorio = aleatorio;
+            this.jogadoresCasa = jogadoresCasa;
+            this.jogadoresVisitante = jogadoresVisitante;
+        }
+
+        @Override
+        protected Contagem compute() {
+            if (fim - inicio <= SIMULACOES_POR_BLOCO) {
+                return simularBloco();
+            }
+            long meio = inicio + (fim - inicio) / 2;
+            // O split() é feito aqui, na ordem de divisão, e não nas threads: o resultado não depende do escalonamento.
+            Bloco esquerda = new Bloco(inicio, meio, aleatorio.split(), jogadoresCasa, jogadoresVisitante);
+            Bloco direita = new Bloco(meio, fim, aleatorio.split(), jogadoresCasa, jogadoresVisitante);
+            esquerda.fork();
+            Contagem contagem = direita.compute();
+            contagem.somar(esquerda.join());
+            return contagem;
+        }
+
+        // O ciclo interior: só primitivos e os arrays do bloco, sem criar objetos.
+        private Contagem simularBloco() {
+            Contagem contagem = new Contagem(jogadoresCasa, jogadoresVisitante);
+            long[] placares = contagem.placares;
+            long[] marcadoresCasa = contagem.golosPorJogadorCasa;
+            long[] marcadoresVisitante = contagem.golosPorJogadorVisitante;
+            SplittableRandom aleatorio = this.aleatorio;
+
+            for (long n = inicio; n < fim; n++) {
+                int golosCasa = 0;
+                int golosVisitante = 0;
+                for (int oportunidade = 0; oportunidade < OPORTUNIDADES; oportunidade++) {
+                    // A mesma ordem do Jogo: primeiro a casa, depois o visitante.
+                    if (aleatorio.nextDouble() < Jogo.PROBABILIDADE_GOLO) {
+                        golosCasa++;
+                        if (jogadoresCasa > 0) {
+                            marcadoresCasa[aleatorio.nextInt(jogadoresCasa)]++;
+                        }
+                    }
+                    if (aleatorio.nextDouble() < Jogo.PROBABILIDADE_GOLO) {
+                        golosVisitante++;
+                        if (jogadoresVisitante > 0) {
+                            marcadoresVisitante[aleatorio.nextInt(jogadoresVisitante)]++;
+                        }
+                    }
+                }
+                placares[golosCasa * GOLOS_POSSIVEIS + golosVisitante]++;
+            }
+            return contagem;
+        }
+    }
+
+    // --- RESULTADO ---
+
+    /**
+     * As distribuições obtidas numa série de simulações: resultados (placares),
+     * vitórias/empates/derrotas e golos por jogador.
+     */
+    public static final class Resultado {
+        private final Equipa casa;
+        private final Equipa visitante;
+        private final long numeroSimulacoes;
+        private final long[] placares;
+        private final Map<String, Long> marcadoresCasa;
+        private final Map<String, Long> marcadoresVisitante;
+        private final long vitoriasCasa;
+        private final long empates;
+        private final long vitoriasVisitante;
+        private final long golosCasa;
+        private final long golosVisitante;
+
+        private Resultado(SimuladorMonteCarlo simulador, long numeroSimulacoes, Contagem contagem) {
+            this.casa = simulador.casa;
+            this.visitante = simulador.visitante;
+            this.numeroSimulacoes = numeroSimulacoes;
+            this.placares = contagem.placares;
+            this.marcadoresCasa = porJogador(casa.getPlantel(), contagem.golosPorJogadorCasa);
+            this.marcadoresVisitante = porJogador(visitante.getPlantel(), contagem.golosPorJogadorVisitante);
+
+            long vitoriasCasa = 0, empates = 0, vitoriasVisitante = 0, golosCasa = 0, golosVisitante = 0;
+            for (int gc = 0; gc < GOLOS_POSSIVEIS; gc++) {
+                for (int gv = 0; gv < GOLOS_POSSIVEIS; gv++) {
+                    long jogos = placares[gc * GOLOS_POSSIVEIS + gv];
+                    if (gc > gv) {
+                        vitoriasCasa += jogos;
+                    } else if (gc == gv) {
+                        empates += jogos;
+                    } else {
+                        vitoriasVisitante += jogos;
+                    }
+                    golosCasa += jogos * gc;
+                    golosVisitante += jogos * gv;
+                }
+            }
+            this.vitoriasCasa = vitoriasCasa;
+            this.empates = empates;
+            this.vitoriasVisitante = vitoriasVisitante;
+            this.golosCasa = golosCasa;
+            this.golosVisitante = golosVisitante;
+        }
+
+        private static Map<String, Long> porJogador(List<String> plantel, long[] golos) {
+            Map<String, Long> marcadores = new LinkedHashMap<>();
+            for (int i = 0; i < golos.length && i < plantel.size(); i++) {
+                marcadores.merge(plantel.get(i), golos[i], Long::sum);
+            }
+            return Collections.unmodifiableMap(marcadores);
+        }
+
+        public Equipa getCasa() {
+            return casa;
+        }
+
+        public Equipa getVisitante() {
+            return visitante;
+        }
+
+        public long getNumeroSimulacoes() {
+            return numeroSimulacoes;
+        }
+
+        /**
+         * Devolve o número de simulações que acabaram com um dado resultado.
+         * @param golosCasa Os golos da equipa da casa.
+         * @param golosVisitante Os golos da equipa visitante.
+         * @return O número de jogos com esse resultado (0 se o resultado for impossível).
+         */
+        public long getOcorrencias(int golosCasa, int golosVisitante) {
+            if (golosCasa < 0 || golosCasa >= GOLOS_POSSIVEIS || golosVisitante < 0 || golosVisitante >= GOLOS_POSSIVEIS) {
+                return 0;
+            }
+            return placares[golosCasa * GOLOS_POSSIVEIS + golosVisitante];
+        }
+
+        public double getProbabilidade(int golosCasa, int golosVisitante) {
+            return (double) getOcorrencias(golosCasa, golosVisitante) / numeroSimulacoes;
+        }
+
+        public long getVitoriasCasa() {
+            return vitoriasCasa;
+        }
+
+        public long getEmpates() {
+            return empates;
+        }
+
+        public long getVitoriasVisitante() {
+            return vitoriasVisitante;
+        }
+
+        public double getProbabilidadeVitoriaCasa() {
+            return (double) vitoriasCasa / numeroSimulacoes;
+        }
+
+        public double getProbabilidadeEmpate() {
+            return (double) empates / numeroSimulacoes;
+        }
+
+        public double getProbabilidadeVitoriaVisitante() {
+            return (double) vitoriasVisitante / numeroSimulacoes;
+        }
+
+        public double getMediaGolosCasa() {
+            return (double) golosCasa / numeroSimulacoes;
+        }
+
+        public double getMediaGolosVisitante() {
+            return (double) golosVisitante / numeroSimulacoes;
+        }
+
+        /**
+         * Devolve os golos marcados por cada jogador da equipa da casa, somados em todas as simulações.
+         * @return Um mapa jogador -> golos, pela ordem do plantel.
+         */
+        public Map<String, Long> getMarcadoresCasa() {
+            return marcadoresCasa;
+        }
+
+        /**
+         * Devolve os golos marcados por cada jogador da equipa visitante, somados em todas as simulações.
+         * @return Um mapa jogador -> golos, pela ordem do plantel.
+         */
+        public Map<String, Long> getMarcadoresVisitante() {
+            return marcadoresVisitante;
+        }
+
+        /**
+         * Devolve os resultados mais frequentes, do mais para o menos provável.
+         * @param quantidade Quantos resultados devolver, no máximo.
+         * @return Os resultados, como pares {golosCasa, golosVisitante}.
+         */
+        public List<int[]> getResultadosMaisProvaveis(int quantidade) {
+            List<int[]> resultados = new ArrayList<>(placares.length);
+            for (int i = 0; i < placares.length; i++) {
+                if (placares[i] > 0) {
+                    resultados.add(new int[] {i / GOLOS_POSSIVEIS, i % GOLOS_POSSIVEIS});
+                }
+            }
+            resultados.sort((a, b) -> Long.compare(getOcorrencias(b[0], b[1]), getOcorrencias(a[0], a[1])));
+            return resultados.subList(0, Math.min(quantidade, resultados.size()));
+        }
+
+        /**
+         * Imprime um resumo das simulações: probabilidades, média de golos,
+         * resultados mais prováveis e melhores marcadores.
+         */
+        public void mostrarResumo() {
+            System.out.printf("\n=== Previsão: %s vs %s (%d simulações) ===\n",
+                    casa.getNome(), visitante.getNome(), numeroSimulacoes);
+            System.out.printf("- Vitória %s: %.2f%%\n", casa.getNome(), getProbabilidadeVitoriaCasa() * 100);
+            System.out.printf("- Empate: %.2f%%\n", getProbabilidadeEmpate() * 100);
+            System.out.printf("- Vitória %s: %.2f%%\n", visitante.getNome(), getProbabilidadeVitoriaVisitante() * 100);
+            System.out.printf("- Golos por jogo: %.2f - %.2f\n", getMediaGolosCasa(), getMediaGolosVisitante());
+            System.out.println("- Resultados mais prováveis:");
+            for (int[] resultado : getResultadosMaisProvaveis(5)) {
+                System.out.printf("  * %d - %d: %.2f%%\n", resultado[0], resultado[1],
+                        getProbabilidade(resultado[0], resultado[1]) * 100);
+            }
+        }
+    }
+}
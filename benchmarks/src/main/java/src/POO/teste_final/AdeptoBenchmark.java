@@ -0,0 +1,85 @@
+package src.POO.teste_final;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Mede a compra de um bilhete por um adepto, sem persistência e com o diário de transações
+ * (escrita síncrona agrupada, ou assíncrona).
+ *
+ * Cada operação compra o bilhete e reembolsa-o logo a seguir, para a lista de bilhetes do
+ * adepto não crescer durante a medição; o reembolso também passa pela persistência.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class AdeptoBenchmark {
+
+    @Param({"memoria", "diario", "assincrono"})
+    public String persistencia;
+
+    private Persistencia destino;
+    private Path diretorio;
+    private Adepto adepto;
+    private Bilhete bilhete;
+
+    @Setup
+    public void preparar() throws IOException {
+        switch (persistencia) {
+            case "memoria" -> destino = Persistencia.NENHUMA;
+            case "diario" -> {
+                diretorio = Files.createTempDirectory("benchmark-diario");
+                destino = new DiarioTransacoes(diretorio, Duration.ofMillis(10));
+            }
+            case "assincrono" -> {
+                diretorio = Files.createTempDirectory("benchmark-diario");
+                destino = new PersistenciaAssincrona(new DiarioTransacoes(diretorio, null),
+                        PersistenciaAssincrona.ModoDurabilidade.SEM_ESPERA, 8192, 512);
+            }
+            default -> throw new IllegalArgumentException("Persistência desconhecida: " + persistencia);
+        }
+        Setor setor = new Setor("A", Dinheiro.deEuros(10), 10, 10);
+        adepto = new Adepto(1, "Adepto", 30, "12345678", "-", Long.MAX_VALUE / 2, destino);
+        bilhete = new Bilhete(Bilhete.codificarId(1, 0, 0, 0), setor, setor.getPrecoBase());
+    }
+
+    @TearDown
+    public void terminar() throws IOException {
+        destino.fechar();
+        if (diretorio != null) {
+            try (Stream<Path> caminhos = Files.walk(diretorio)) {
+                for (Path caminho : caminhos.sorted(Comparator.reverseOrder()).toList()) {
+                    Files.delete(caminho);
+                }
+            }
+        }
+    }
+
+    @Benchmark
+    public boolean comprarBilhete() {
+        boolean comprado = adepto.comprarBilhete(bilhete);
+        adepto.reembolsarBilhete(bilhete);
+        return comprado;
+    }
+}
@@ -0,0 +1,53 @@
+package src.POO.teste_final;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mede a apresentação de um bilhete: o recibo completo (toString, ou escrito num
+ * StringBuilder reutilizado) e o código (J1-A7).
+ * Com -prof gc, o JMH mostra também quantos bytes cada versão aloca.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class BilheteBenchmark {
+
+    private Bilhete bilhete;
+    private final StringBuilder recibo = new StringBuilder(256);
+
+    @Setup
+    public void preparar() {
+        Setor setor = new Setor("B", Dinheiro.deEuros(20), 50, 50);
+        bilhete = new Bilhete(Bilhete.codificarId(3, 1, 12, 34), setor, setor.getPrecoBase());
+    }
+
+    @Benchmark
+    public String toStringBilhete() {
+        return bilhete.toString();
+    }
+
+    @Benchmark
+    public StringBuilder escreverRecibo() {
+        recibo.setLength(0);
+        return bilhete.escreverRecibo(recibo);
+    }
+
+    @Benchmark
+    public String getCodigo() {
+        return bilhete.getCodigo();
+    }
+}
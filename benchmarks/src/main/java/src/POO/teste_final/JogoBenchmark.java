@@ -0,0 +1,49 @@
+package src.POO.teste_final;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mede o cálculo da receita da bilheteira de um jogo com muitos bilhetes vendidos.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JogoBenchmark {
+
+    @Param({"1000", "100000"})
+    public int bilhetes;
+
+    private Jogo jogo;
+
+    @Setup
+    public void preparar() {
+        Equipa equipa = new Equipa("Equipa", "-", 1900, "-");
+        equipa.adicionarJogador("Jogador");
+        Setor setor = new Setor("A", Dinheiro.deEuros(10), 1000, 1000);
+        jogo = new Jogo(1, equipa, equipa, LocalDateTime.now(), "-");
+        for (int i = 0; i < bilhetes; i++) {
+            jogo.adicionarBilheteVendido(new Bilhete(Bilhete.codificarId(1, 0, i / 1000, i % 1000), setor, setor.getPrecoBase()));
+        }
+    }
+
+    @Benchmark
+    public long calcularReceitaBilheteira() {
+        return jogo.calcularReceitaBilheteira();
+    }
+}
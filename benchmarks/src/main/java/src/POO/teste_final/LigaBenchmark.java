@@ -0,0 +1,57 @@
+package src.POO.teste_final;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mede a simulação de uma época completa de uma liga (todos os jogos, a duas voltas,
+ * e a classificação) e de várias épocas seguidas para a previsão.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class LigaBenchmark {
+
+    @Param({"20"})
+    public int equipas;
+
+    private Liga liga;
+    private long semente;
+
+    @Setup
+    public void preparar() {
+        List<Equipa> participantes = new ArrayList<>(equipas);
+        for (int i = 1; i <= equipas; i++) {
+            Equipa equipa = new Equipa("Equipa " + i, "-", 1900, "-");
+            equipa.adicionarJogador("Jogador " + i);
+            participantes.add(equipa);
+        }
+        liga = new Liga("Liga", participantes);
+    }
+
+    @Benchmark
+    public Liga.Epoca simularEpoca() {
+        return liga.simularEpoca(semente++);
+    }
+
+    @Benchmark
+    public Liga.Previsao simularMilEpocas() {
+        return liga.simularEpocas(1000, semente++);
+    }
+}
@@ -0,0 +1,96 @@
+package src.POO.teste_final;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mede a consulta e a ocupação de lugares num setor de 100 x 100 lugares, meio ocupado.
+ * (A disponibilidade de um setor é de cada jogo: ver MapaLugares.)
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class LugaresBenchmark {
+
+    private static final int FILAS = 100;
+    private static final int COLUNAS = 100;
+
+    private Estadio estadio;
+    private MapaLugares mapa;
+    private int[] lugaresLivres;    // Lugares livres no início, por onde os benchmarks vão passando.
+    private int proximo;
+
+    @Setup
+    public void preparar() {
+        estadio = new Estadio("Benchmark", "-", FILAS, COLUNAS);
+        Equipa equipa = new Equipa("Equipa", "-", 1900, "-");
+        equipa.adicionarJogador("Jogador");
+        Jogo jogo = estadio.criarJogo(equipa, equipa, LocalDateTime.now(), "-");
+        mapa = jogo.getMapa(estadio.getSetores().get(0));
+
+        // Ocupa metade dos lugares ao acaso (sempre os mesmos) e guarda os que ficaram livres.
+        SplittableRandom random = new SplittableRandom(42);
+        int[] livres = new int[FILAS * COLUNAS];
+        int quantos = 0;
+        for (int lugar = 0; lugar < FILAS * COLUNAS; lugar++) {
+            if (random.nextBoolean()) {
+                mapa.ocuparLugar(lugar / COLUNAS, lugar % COLUNAS);
+            } else {
+                livres[quantos++] = lugar;
+            }
+        }
+        lugaresLivres = Arrays.copyOf(livres, quantos);
+    }
+
+    @TearDown
+    public void terminar() {
+        estadio.fechar();
+    }
+
+    private int proximoLugarLivre() {
+        int lugar = lugaresLivres[proximo];
+        proximo = proximo + 1 == lugaresLivres.length ? 0 : proximo + 1;
+        return lugar;
+    }
+
+    @Benchmark
+    public int verificarDisponibilidade() {
+        return mapa.verificarDisponibilidade();
+    }
+
+    @Benchmark
+    public boolean isLugarOcupado() {
+        // Percorre todos os lugares, livres e ocupados.
+        int lugar = proximo;
+        proximo = proximo + 1 == FILAS * COLUNAS ? 0 : proximo + 1;
+        return mapa.isLugarOcupado(lugar / COLUNAS, lugar % COLUNAS);
+    }
+
+    @Benchmark
+    public boolean ocuparELibertarLugar() {
+        // Ocupa um lugar livre e liberta-o logo a seguir, para o estado do mapa não mudar.
+        int lugar = proximoLugarLivre();
+        int fila = lugar / COLUNAS;
+        int coluna = lugar % COLUNAS;
+        boolean ocupado = mapa.tentarOcuparLugar(fila, coluna);
+        mapa.libertarLugar(fila, coluna);
+        return ocupado;
+    }
+}
@@ -0,0 +1,78 @@
+package src.POO.teste_final;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mede a venda de produtos numa rolote: um produto de cada vez (vendeProduto) e um
+ * carrinho com dois produtos (finalizarCompra).
+ *
+ * O vendeProduto escreve uma mensagem por venda; durante a medição a consola é trocada
+ * por uma saída que descarta tudo, para medir a venda e a formatação da mensagem, e não o terminal.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class RoloteBenchmark {
+
+    private PrintStream saidaOriginal;
+    private Rolote rolote;
+    private Produto agua;
+    private Adepto adepto;
+    private Map<Produto, Integer> carrinho;
+
+    @Setup(Level.Trial)
+    public void silenciarConsola() {
+        saidaOriginal = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+    }
+
+    @Setup(Level.Iteration)
+    public void preparar() {
+        // Stock e saldo nunca se esgotam dentro de uma iteração.
+        rolote = new Rolote(1, "Rolote");
+        agua = new Produto(0, "Água", 150, Integer.MAX_VALUE);
+        Produto bifana = new Produto(1, "Bifana", 450, Integer.MAX_VALUE);
+        rolote.adicionaProduto(agua);
+        rolote.adicionaProduto(bifana);
+        rolote.abrirRolote();
+        adepto = new Adepto(1, "Adepto", 30, "12345678", "-", Long.MAX_VALUE / 2, Persistencia.NENHUMA);
+        carrinho = new LinkedHashMap<>();
+        carrinho.put(agua, 2);
+        carrinho.put(bifana, 1);
+    }
+
+    @TearDown(Level.Trial)
+    public void restaurarConsola() {
+        System.setOut(saidaOriginal);
+    }
+
+    @Benchmark
+    public boolean vendeProduto() {
+        return rolote.vendeProduto(agua, 1);
+    }
+
+    @Benchmark
+    public Rolote.ResultadoCompra finalizarCompra() {
+        return rolote.finalizarCompra(adepto, carrinho);
+    }
+}